@@ -0,0 +1,114 @@
+package com.catevildev.atividade.carga;
+
+import com.catevildev.atividade.benchmark.BaseDadosBenchmark;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// chamadas feitas pelos clientes do teste de carga; o nome e usado no mix (-Pmix=produtos.buscar:30,...)
+enum OperacaoCarga {
+    
+    PRODUTOS_LISTAR("produtos.listar", 15) {
+        @Override
+        HttpRequest.Builder requisicao(String base, DadosCarga dados, ThreadLocalRandom random) {
+            return get(base + "/api/produtos?tamanho=20");
+        }
+    },
+    PRODUTOS_POR_ID("produtos.porId", 15) {
+        @Override
+        HttpRequest.Builder requisicao(String base, DadosCarga dados, ThreadLocalRandom random) {
+            return get(base + "/api/produtos/" + (1 + random.nextInt(dados.quantidadeProdutos())));
+        }
+    },
+    PRODUTOS_BUSCAR("produtos.buscar", 15) {
+        @Override
+        HttpRequest.Builder requisicao(String base, DadosCarga dados, ThreadLocalRandom random) {
+            String termo = BaseDadosBenchmark.TERMOS[random.nextInt(BaseDadosBenchmark.TERMOS.length)];
+            return get(base + "/api/produtos/busca?termo=" + URLEncoder.encode(termo, StandardCharsets.UTF_8));
+        }
+    },
+    PEDIDOS_POR_ID("pedidos.porId", 15) {
+        @Override
+        HttpRequest.Builder requisicao(String base, DadosCarga dados, ThreadLocalRandom random) {
+            return get(base + "/api/pedidos/" + dados.pedidoAleatorio(random));
+        }
+    },
+    PEDIDOS_POR_USUARIO("pedidos.porUsuario", 10) {
+        @Override
+        HttpRequest.Builder requisicao(String base, DadosCarga dados, ThreadLocalRandom random) {
+            return get(base + "/api/pedidos/usuario/" + dados.usuarioAleatorio(random));
+        }
+    },
+    PEDIDOS_CRIAR("pedidos.criar", 5) {
+        @Override
+        HttpRequest.Builder requisicao(String base, DadosCarga dados, ThreadLocalRandom random) {
+            String corpo = "{\"usuario\":{\"id\":" + dados.usuarioAleatorio(random)
+                + "},\"valorTotal\":149.90,\"observacoes\":\"Teste de carga\"}";
+            return HttpRequest.newBuilder(URI.create(base + "/api/pedidos"))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo));
+        }
+    },
+    USUARIOS_LISTAR("usuarios.listar", 10) {
+        @Override
+        HttpRequest.Builder requisicao(String base, DadosCarga dados, ThreadLocalRandom random) {
+            return get(base + "/api/usuarios?tamanho=20");
+        }
+    },
+    USUARIOS_POR_ID("usuarios.porId", 15) {
+        @Override
+        HttpRequest.Builder requisicao(String base, DadosCarga dados, ThreadLocalRandom random) {
+            return get(base + "/api/usuarios/" + dados.usuarioAleatorio(random));
+        }
+    };
+    
+    static final Duration TIMEOUT = Duration.ofSeconds(10);
+    
+    private final String nome;
+    private final int pesoPadrao;
+    
+    OperacaoCarga(String nome, int pesoPadrao) {
+        this.nome = nome;
+        this.pesoPadrao = pesoPadrao;
+    }
+    
+    abstract HttpRequest.Builder requisicao(String base, DadosCarga dados, ThreadLocalRandom random);
+    
+    String getNome() {
+        return nome;
+    }
+    
+    int getPesoPadrao() {
+        return pesoPadrao;
+    }
+    
+    static OperacaoCarga de(String nome) {
+        for (OperacaoCarga operacao : values()) {
+            if (operacao.nome.equalsIgnoreCase(nome.trim())) {
+                return operacao;
+            }
+        }
+        throw new IllegalArgumentException("Operação de carga desconhecida: " + nome);
+    }
+    
+    private static HttpRequest.Builder get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(TIMEOUT).GET();
+    }
+    
+    // ids validos na base populada
+    record DadosCarga(int quantidadeUsuarios, int quantidadeProdutos, long[] idsPedidos) {
+        
+        long usuarioAleatorio(ThreadLocalRandom random) {
+            return 1 + random.nextInt(quantidadeUsuarios);
+        }
+        
+        long pedidoAleatorio(ThreadLocalRandom random) {
+            return idsPedidos[random.nextInt(idsPedidos.length)];
+        }
+    }
+}
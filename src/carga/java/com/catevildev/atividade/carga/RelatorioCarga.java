@@ -0,0 +1,111 @@
+package com.catevildev.atividade.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// resumo do teste de carga: tabela em texto, json para comparar entre versoes e um .hgrm por operacao
+final class RelatorioCarga {
+    
+    private static final double[] PERCENTIS = {50, 90, 99, 99.9};
+    
+    private final Collection<ResultadoOperacao> resultados;
+    private final int clientes;
+    private final double taxa;
+    private final Duration duracao;
+    
+    RelatorioCarga(Collection<ResultadoOperacao> resultados, int clientes, double taxa, Duration duracao) {
+        this.resultados = resultados;
+        this.clientes = clientes;
+        this.taxa = taxa;
+        this.duracao = duracao;
+    }
+    
+    String texto() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%n%-20s %10s %8s %9s %9s %9s %9s %9s %9s %10s%n",
+            "operacao", "requisicoes", "erros", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)", "erro(%)", "req/s"));
+        Histogram total = null;
+        long erros = 0;
+        for (ResultadoOperacao resultado : resultados) {
+            linha(sb, resultado.getOperacao().getNome(), resultado.getLatencias(), resultado.getErros());
+            total = total == null ? resultado.getLatencias().copy() : somar(total, resultado.getLatencias());
+            erros += resultado.getErros();
+        }
+        if (total != null) {
+            linha(sb, "TOTAL", total, erros);
+        }
+        return sb.toString();
+    }
+    
+    void gravar(Path diretorio) throws IOException {
+        Files.createDirectories(diretorio);
+        Files.writeString(diretorio.resolve("relatorio.txt"), texto());
+        
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("clientes", clientes);
+        json.put("taxaAlvo", taxa);
+        json.put("duracaoSegundos", duracao.toSeconds());
+        List<Map<String, Object>> operacoes = new ArrayList<>();
+        for (ResultadoOperacao resultado : resultados) {
+            Histogram latencias = resultado.getLatencias();
+            Map<String, Object> operacao = new LinkedHashMap<>();
+            operacao.put("operacao", resultado.getOperacao().getNome());
+            operacao.put("requisicoes", resultado.getRequisicoes());
+            operacao.put("erros", resultado.getErros());
+            operacao.put("requisicoesPorSegundo", porSegundo(resultado.getRequisicoes()));
+            for (double p : PERCENTIS) {
+                operacao.put("p" + formatarPercentil(p) + "Ms", milis(latencias.getValueAtPercentile(p)));
+            }
+            operacao.put("maxMs", milis(latencias.getMaxValue()));
+            operacoes.add(operacao);
+            
+            // distribuicao completa, no formato do HdrHistogram (escala em ms)
+            try (PrintStream hgrm = new PrintStream(
+                    diretorio.resolve(resultado.getOperacao().getNome() + ".hgrm").toFile())) {
+                latencias.outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        json.put("operacoes", operacoes);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(diretorio.resolve("relatorio.json").toFile(), json);
+    }
+    
+    private void linha(StringBuilder sb, String nome, Histogram latencias, long erros) {
+        long requisicoes = latencias.getTotalCount();
+        sb.append(String.format("%-20s %10d %8d", nome, requisicoes, erros));
+        for (double p : PERCENTIS) {
+            sb.append(String.format(" %9.2f", milis(latencias.getValueAtPercentile(p))));
+        }
+        sb.append(String.format(" %9.2f %9.2f %10.1f%n", milis(latencias.getMaxValue()),
+            requisicoes == 0 ? 0.0 : 100.0 * erros / requisicoes, porSegundo(requisicoes)));
+    }
+    
+    private double porSegundo(long requisicoes) {
+        return requisicoes / (double) duracao.toSeconds();
+    }
+    
+    private static Histogram somar(Histogram total, Histogram parcial) {
+        total.add(parcial);
+        return total;
+    }
+    
+    private static double milis(long micros) {
+        return micros / 1000.0;
+    }
+    
+    private static String formatarPercentil(double p) {
+        return p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p).replace(".", "");
+    }
+}
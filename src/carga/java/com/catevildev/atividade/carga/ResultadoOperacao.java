@@ -0,0 +1,45 @@
+package com.catevildev.atividade.carga;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// latencias (em microssegundos) e erros de uma operacao durante a medicao
+final class ResultadoOperacao {
+    
+    // ate 1 minuto com 3 digitos significativos
+    private static final long LATENCIA_MAXIMA_US = TimeUnit.MINUTES.toMicros(1);
+    
+    private final OperacaoCarga operacao;
+    private final Histogram latencias = new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3);
+    private final LongAdder erros = new LongAdder();
+    
+    ResultadoOperacao(OperacaoCarga operacao) {
+        this.operacao = operacao;
+    }
+    
+    void registrar(long latenciaNanos, boolean sucesso) {
+        latencias.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latenciaNanos), LATENCIA_MAXIMA_US));
+        if (!sucesso) {
+            erros.increment();
+        }
+    }
+    
+    OperacaoCarga getOperacao() {
+        return operacao;
+    }
+    
+    Histogram getLatencias() {
+        return latencias;
+    }
+    
+    long getRequisicoes() {
+        return latencias.getTotalCount();
+    }
+    
+    long getErros() {
+        return erros.sum();
+    }
+}
@@ -0,0 +1,172 @@
+package com.catevildev.atividade.carga;
+
+import com.catevildev.atividade.AtividadeApplication;
+import com.catevildev.atividade.benchmark.BaseDadosBenchmark;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// teste de carga ponta a ponta: sobe a aplicacao numa porta aleatoria com o H2 populado e dispara
+// chamadas HTTP a partir de varios clientes em virtual threads, medindo latencia (HdrHistogram) e erros.
+//
+// configuracao por system properties (a task 'carga' repassa -P<nome> como carga.<nome>):
+//   clientes (200), duracao em s (30), aquecimento em s (10), tamanho da base (10000),
+//   taxa total em req/s (0 = cada cliente dispara assim que recebe a resposta), mix (pesos por operacao),
+//   perfil (perfil Spring da aplicacao, ex.: virtual) e relatorio (diretorio de saida).
+public final class TesteCarga {
+    
+    private TesteCarga() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int clientes = Integer.getInteger("carga.clientes", 200);
+        Duration duracao = Duration.ofSeconds(Long.getLong("carga.duracao", 30));
+        Duration aquecimento = Duration.ofSeconds(Long.getLong("carga.aquecimento", 10));
+        int tamanho = Integer.getInteger("carga.tamanho", 10_000);
+        double taxa = Double.parseDouble(System.getProperty("carga.taxa", "0"));
+        Map<OperacaoCarga, Integer> mix = lerMix(System.getProperty("carga.mix", ""));
+        String perfil = System.getProperty("carga.perfil", "");
+        Path diretorio = Path.of(System.getProperty("carga.relatorio", "build/reports/carga"));
+        
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(AtividadeApplication.class)
+                .properties(
+                    "server.port=0",
+                    "spring.datasource.url=jdbc:h2:mem:carga",
+                    "spring.jpa.show-sql=false",
+                    "spring.h2.console.enabled=false",
+                    "logging.level.root=WARN",
+                    "app.pedidos.resumo.verificacao-cron=-",
+                    "app.pedidos.no-id=0")
+                .profiles(perfil.isBlank() ? new String[0] : perfil.split(","))
+                .run()) {
+            
+            long[] idsPedidos = BaseDadosBenchmark.popular(contexto, tamanho);
+            OperacaoCarga.DadosCarga dados = new OperacaoCarga.DadosCarga(
+                BaseDadosBenchmark.quantidadeUsuarios(tamanho), tamanho, idsPedidos);
+            String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+            
+            System.out.printf("Perfil %s; base com %d pedidos; %d clientes; aquecimento de %ds; medição de %ds%n",
+                perfil.isBlank() ? "padrão" : perfil, tamanho, clientes, aquecimento.toSeconds(), duracao.toSeconds());
+            
+            executar(base, dados, mix, clientes, taxa, aquecimento);
+            Map<OperacaoCarga, ResultadoOperacao> resultados = executar(base, dados, mix, clientes, taxa, duracao);
+            
+            RelatorioCarga relatorio = new RelatorioCarga(resultados.values(), clientes, taxa, duracao);
+            System.out.print(relatorio.texto());
+            relatorio.gravar(diretorio);
+            System.out.println("Relatório gravado em " + diretorio.toAbsolutePath());
+        }
+    }
+    
+    // uma fase (aquecimento ou medicao): cada cliente e uma virtual thread em laco ate o fim da fase
+    private static Map<OperacaoCarga, ResultadoOperacao> executar(String base, OperacaoCarga.DadosCarga dados,
+            Map<OperacaoCarga, Integer> mix, int clientes, double taxa, Duration duracao) throws InterruptedException {
+        Map<OperacaoCarga, ResultadoOperacao> resultados = new EnumMap<>(OperacaoCarga.class);
+        mix.keySet().forEach(op -> resultados.put(op, new ResultadoOperacao(op)));
+        OperacaoCarga[] sorteio = montarSorteio(mix);
+        
+        // com taxa fixa, cada cliente tem um intervalo entre disparos; a latencia conta a partir do
+        // instante planejado, para nao esconder a fila quando o servidor atrasa (coordinated omission)
+        long intervaloNanos = taxa > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * clientes / taxa) : 0;
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                 .executor(executor)
+                 .connectTimeout(OperacaoCarga.TIMEOUT)
+                 .build()) {
+            
+            long fim = System.nanoTime() + duracao.toNanos();
+            for (int i = 0; i < clientes; i++) {
+                executor.submit(() -> cliente(http, base, dados, sorteio, resultados, intervaloNanos, fim));
+            }
+            executor.shutdown();
+            executor.awaitTermination(duracao.toSeconds() + 60, TimeUnit.SECONDS);
+        }
+        return resultados;
+    }
+    
+    private static void cliente(HttpClient http, String base, OperacaoCarga.DadosCarga dados, OperacaoCarga[] sorteio,
+            Map<OperacaoCarga, ResultadoOperacao> resultados, long intervaloNanos, long fim) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // espalha o primeiro disparo para os clientes nao chegarem todos juntos
+        long planejado = System.nanoTime() + (intervaloNanos > 0 ? random.nextLong(intervaloNanos) : 0);
+        
+        while (planejado < fim) {
+            long agora = System.nanoTime();
+            if (planejado > agora) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(planejado - agora);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            
+            OperacaoCarga operacao = sorteio[random.nextInt(sorteio.length)];
+            long inicio = intervaloNanos > 0 ? planejado : System.nanoTime();
+            boolean sucesso;
+            try {
+                HttpResponse<Void> resposta = http.send(
+                    operacao.requisicao(base, dados, random).build(), HttpResponse.BodyHandlers.discarding());
+                sucesso = resposta.statusCode() < 400;
+            } catch (IOException e) {
+                sucesso = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            resultados.get(operacao).registrar(System.nanoTime() - inicio, sucesso);
+            
+            planejado = intervaloNanos > 0 ? planejado + intervaloNanos : System.nanoTime();
+        }
+    }
+    
+    // cada operacao aparece no vetor tantas vezes quanto o seu peso
+    private static OperacaoCarga[] montarSorteio(Map<OperacaoCarga, Integer> mix) {
+        List<OperacaoCarga> sorteio = new ArrayList<>();
+        mix.forEach((operacao, peso) -> {
+            for (int i = 0; i < peso; i++) {
+                sorteio.add(operacao);
+            }
+        });
+        if (sorteio.isEmpty()) {
+            throw new IllegalArgumentException("Mix de carga sem nenhuma operação com peso positivo");
+        }
+        return sorteio.toArray(new OperacaoCarga[0]);
+    }
+    
+    // "produtos.buscar:30,pedidos.criar:10"; vazio usa os pesos padrao de todas as operacoes
+    private static Map<OperacaoCarga, Integer> lerMix(String texto) {
+        Map<OperacaoCarga, Integer> mix = new EnumMap<>(OperacaoCarga.class);
+        if (texto.isBlank()) {
+            for (OperacaoCarga operacao : OperacaoCarga.values()) {
+                mix.put(operacao, operacao.getPesoPadrao());
+            }
+            return mix;
+        }
+        for (String item : texto.split(",")) {
+            String[] partes = item.split(":");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Item de mix inválido (use operacao:peso): " + item);
+            }
+            int peso = Integer.parseInt(partes[1].trim());
+            if (peso > 0) {
+                mix.put(OperacaoCarga.de(partes[0]), peso);
+            }
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,110 @@
+package com.catevildev.atividade.benchmark;
+
+import com.catevildev.atividade.AtividadeApplication;
+import com.catevildev.atividade.dto.ResultadoItemLote;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.entity.Usuario;
+import com.catevildev.atividade.repository.ProdutoRepository;
+import com.catevildev.atividade.repository.UsuarioRepository;
+import com.catevildev.atividade.service.ContadoresStatusPedido;
+import com.catevildev.atividade.service.IndiceBuscaProdutos;
+import com.catevildev.atividade.service.IndiceTrigramasUsuarios;
+import com.catevildev.atividade.service.PedidoLoteService;
+import com.catevildev.atividade.service.ResumoPedidosService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// sobe a aplicacao sem servidor web, com um H2 proprio, e popula a base com dados deterministicos.
+// tamanho = quantidade de pedidos; usuarios = tamanho / 10 e produtos = tamanho.
+// tambem usada pelo teste de carga (src/carga), que sobe a aplicacao com servidor web.
+public final class BaseDadosBenchmark {
+    
+    static final String[] NOMES = {"Notebook", "Mouse", "Teclado", "Monitor", "Cadeira", "Fone", "Console", "Câmera"};
+    static final String[] ADJETIVOS = {"Gamer", "Sem Fio", "Ultra", "Pro", "Compacto", "Mecânico"};
+    static final String[] CATEGORIAS = {"Informática", "Games", "Áudio", "Escritório"};
+    public static final String[] TERMOS = {"note", "mouse sem", "gamer", "monitor ultra", "audio", "cadeira pro", "mecanico", "cam"};
+    
+    private static final int BLOCO = 1000;
+    
+    private BaseDadosBenchmark() {
+    }
+    
+    static ConfigurableApplicationContext iniciar(int tamanho) {
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(AtividadeApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:benchmark" + tamanho,
+                "spring.jpa.show-sql=false",
+                "spring.h2.console.enabled=false",
+                "logging.level.root=WARN",
+                "app.pedidos.resumo.verificacao-cron=-",
+                "app.pedidos.estatisticas.reconciliacao-ms=3600000",
+                "app.pedidos.no-id=0")
+            .run();
+        popular(contexto, tamanho);
+        return contexto;
+    }
+    
+    public static int quantidadeUsuarios(int tamanho) {
+        return Math.max(1, tamanho / 10);
+    }
+    
+    // numa base nova os ids de usuarios vao de 1 a quantidadeUsuarios e os de produtos de 1 a tamanho;
+    // devolve os ids dos pedidos gravados
+    public static long[] popular(ConfigurableApplicationContext contexto, int tamanho) {
+        Random random = new Random(42);
+        
+        UsuarioRepository usuarioRepository = contexto.getBean(UsuarioRepository.class);
+        List<Long> idsUsuarios = new ArrayList<>();
+        for (int inicio = 0; inicio < quantidadeUsuarios(tamanho); inicio += BLOCO) {
+            List<Usuario> bloco = IntStream.range(inicio, Math.min(inicio + BLOCO, quantidadeUsuarios(tamanho)))
+                .mapToObj(i -> new Usuario("Usuario " + i, "usuario" + i + "@benchmark.local", "6699" + i))
+                .toList();
+            usuarioRepository.saveAll(bloco).forEach(u -> idsUsuarios.add(u.getId()));
+        }
+        
+        ProdutoRepository produtoRepository = contexto.getBean(ProdutoRepository.class);
+        for (int inicio = 0; inicio < tamanho; inicio += BLOCO) {
+            List<Produto> bloco = new ArrayList<>(BLOCO);
+            for (int i = inicio; i < Math.min(inicio + BLOCO, tamanho); i++) {
+                String nome = NOMES[random.nextInt(NOMES.length)] + " " + ADJETIVOS[random.nextInt(ADJETIVOS.length)] + " " + i;
+                bloco.add(new Produto(nome, "Descrição do produto " + i, preco(random), random.nextInt(200),
+                    CATEGORIAS[random.nextInt(CATEGORIAS.length)]));
+            }
+            produtoRepository.saveAll(bloco);
+        }
+        
+        List<Pedido> pedidos = new ArrayList<>(tamanho);
+        Pedido.StatusPedido[] status = Pedido.StatusPedido.values();
+        for (int i = 0; i < tamanho; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setId(idsUsuarios.get(random.nextInt(idsUsuarios.size())));
+            Pedido pedido = new Pedido(usuario, preco(random), "Pedido de benchmark " + i);
+            pedido.setStatus(status[random.nextInt(status.length)]);
+            pedidos.add(pedido);
+        }
+        long[] idsPedidos = contexto.getBean(PedidoLoteService.class).salvarEmLote(pedidos.iterator()).stream()
+            .filter(r -> r.getId() != null)
+            .mapToLong(ResultadoItemLote::getId)
+            .toArray();
+        
+        // dados gravados direto nos repositorios: alinha resumos, indices e contadores
+        contexto.getBean(ResumoPedidosService.class).reconstruir();
+        contexto.getBean(IndiceBuscaProdutos.class).reconstruir();
+        contexto.getBean(IndiceTrigramasUsuarios.class).reconstruir();
+        contexto.getBean(ContadoresStatusPedido.class).reconciliar();
+        return idsPedidos;
+    }
+    
+    private static BigDecimal preco(Random random) {
+        return BigDecimal.valueOf(100 + random.nextInt(500_000), 2);
+    }
+}
@@ -0,0 +1,106 @@
+package com.catevildev.atividade.benchmark;
+
+import com.catevildev.atividade.dto.Pagina;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.entity.Usuario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// custo de serializar uma pagina das listagens de pedidos e produtos em cada formato de resposta.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatosRespostaBenchmark {
+    
+    @Param({"json", "json-gzip", "cbor", "smile"})
+    public String formato;
+    
+    @Param({"20", "100"})
+    public int tamanhoPagina;
+    
+    private ObjectMapper mapper;
+    private boolean gzip;
+    private Pagina<Pedido> paginaPedidos;
+    private Pagina<Produto> paginaProdutos;
+    
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        switch (formato) {
+            case "cbor" -> builder.factory(new CBORFactory());
+            case "smile" -> builder.factory(new SmileFactory());
+            default -> { }
+        }
+        mapper = builder.build();
+        gzip = formato.equals("json-gzip");
+        
+        Usuario usuario = new Usuario("João Silva", "joao@gmail.com", "66999224466");
+        usuario.setId(1L);
+        List<Pedido> pedidos = new ArrayList<>();
+        List<Produto> produtos = new ArrayList<>();
+        for (long i = 1; i <= tamanhoPagina; i++) {
+            Pedido pedido = new Pedido(usuario, new BigDecimal("1234.56").add(BigDecimal.valueOf(i)),
+                "Entregar no período da tarde, portão lateral. Pedido " + i);
+            pedido.setId(i);
+            pedido.setNumeroPedido("PED" + (123456789012345L + i));
+            pedidos.add(pedido);
+            
+            Produto produto = new Produto("Notebook Ultra " + i,
+                "Notebook para desenvolvimento com 32 GB de memória, SSD de 1 TB e tela de 14 polegadas. Item " + i,
+                new BigDecimal("7999.90"), 10, "Informática");
+            produto.setId(i);
+            produtos.add(produto);
+        }
+        paginaPedidos = Pagina.de(pedidos, tamanhoPagina, p -> "cursor" + p.getId());
+        paginaProdutos = Pagina.de(produtos, tamanhoPagina, p -> "cursor" + p.getId());
+    }
+    
+    @Benchmark
+    public byte[] paginaPedidos() throws IOException {
+        return serializar(paginaPedidos);
+    }
+    
+    @Benchmark
+    public byte[] paginaProdutos() throws IOException {
+        return serializar(paginaProdutos);
+    }
+    
+    private byte[] serializar(Object valor) throws IOException {
+        if (!gzip) {
+            return mapper.writeValueAsBytes(valor);
+        }
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (GZIPOutputStream compactado = new GZIPOutputStream(saida)) {
+            mapper.writeValue(compactado, valor);
+        }
+        return saida.toByteArray();
+    }
+}
@@ -0,0 +1,93 @@
+package com.catevildev.atividade.benchmark;
+
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.entity.Usuario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// serializacao json de Pedido e Produto com o ObjectMapper configurado como o do Spring MVC
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacaoBenchmark {
+    
+    private ObjectMapper objectMapper;
+    private Pedido pedido;
+    private Produto produto;
+    private List<Pedido> paginaPedidos;
+    private byte[] pedidoJson;
+    private byte[] produtoJson;
+    
+    @Setup
+    public void iniciar() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        
+        Usuario usuario = new Usuario("João Silva", "joao@gmail.com", "66999224466");
+        usuario.setId(1L);
+        pedido = new Pedido(usuario, new BigDecimal("2500.00"), "Pedido urgente");
+        pedido.setId(1L);
+        pedido.setNumeroPedido("PED123456789012345");
+        produto = new Produto("Notebook", "Notebook para desenvolvimento", new BigDecimal("2500.00"), 10, "Eletrônicos");
+        produto.setId(1L);
+        
+        paginaPedidos = new ArrayList<>();
+        for (long i = 0; i < 20; i++) {
+            Pedido item = new Pedido(usuario, new BigDecimal("99.90"), "Item " + i);
+            item.setId(i);
+            item.setNumeroPedido("PED" + (123456789012345L + i));
+            paginaPedidos.add(item);
+        }
+        
+        pedidoJson = objectMapper.writeValueAsBytes(pedido);
+        produtoJson = objectMapper.writeValueAsBytes(produto);
+    }
+    
+    @Benchmark
+    public byte[] serializarPedido() throws IOException {
+        return objectMapper.writeValueAsBytes(pedido);
+    }
+    
+    @Benchmark
+    public byte[] serializarProduto() throws IOException {
+        return objectMapper.writeValueAsBytes(produto);
+    }
+    
+    // uma pagina no tamanho padrao
+    @Benchmark
+    public byte[] serializarPaginaPedidos() throws IOException {
+        return objectMapper.writeValueAsBytes(paginaPedidos);
+    }
+    
+    @Benchmark
+    public Pedido desserializarPedido() throws IOException {
+        return objectMapper.readValue(pedidoJson, Pedido.class);
+    }
+    
+    @Benchmark
+    public Produto desserializarProduto() throws IOException {
+        return objectMapper.readValue(produtoJson, Produto.class);
+    }
+}
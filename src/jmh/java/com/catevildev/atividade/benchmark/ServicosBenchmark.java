@@ -0,0 +1,97 @@
+package com.catevildev.atividade.benchmark;
+
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.entity.Usuario;
+import com.catevildev.atividade.repository.PedidoRepository;
+import com.catevildev.atividade.service.PedidoService;
+import com.catevildev.atividade.service.ProdutoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// caminhos quentes de servico e repositorio contra o H2 populado em varios tamanhos.
+// salvarPedido grava de verdade, entao a base cresce durante a medicao (como em producao).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServicosBenchmark {
+    
+    @Param({"1000", "10000", "100000"})
+    public int tamanho;
+    
+    private ConfigurableApplicationContext contexto;
+    private PedidoService pedidoService;
+    private ProdutoService produtoService;
+    private PedidoRepository pedidoRepository;
+    private int quantidadeUsuarios;
+    
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = BaseDadosBenchmark.iniciar(tamanho);
+        pedidoService = contexto.getBean(PedidoService.class);
+        produtoService = contexto.getBean(ProdutoService.class);
+        pedidoRepository = contexto.getBean(PedidoRepository.class);
+        quantidadeUsuarios = BaseDadosBenchmark.quantidadeUsuarios(tamanho);
+    }
+    
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+    
+    @Benchmark
+    public Pedido salvarPedido() {
+        Pedido pedido = new Pedido(usuarioAleatorio(), new BigDecimal("149.90"), "Pedido medido");
+        return pedidoService.salvar(pedido);
+    }
+    
+    @Benchmark
+    public List<Produto> buscarProdutoPorTermo() {
+        String termo = BaseDadosBenchmark.TERMOS[ThreadLocalRandom.current().nextInt(BaseDadosBenchmark.TERMOS.length)];
+        return produtoService.buscarPorTermo(termo);
+    }
+    
+    @Benchmark
+    public List<Pedido> buscarPedidosPorUsuario() {
+        return pedidoRepository.findByUsuario(usuarioAleatorio());
+    }
+    
+    // soma feita pelo banco a cada chamada
+    @Benchmark
+    public BigDecimal calcularValorTotalNoRepositorio() {
+        return pedidoRepository.calcularValorTotalPorUsuario(usuarioAleatorio());
+    }
+    
+    // soma lida do resumo materializado
+    @Benchmark
+    public BigDecimal calcularValorTotalNoServico() {
+        return pedidoService.calcularValorTotalPorUsuario(usuarioAleatorio().getId());
+    }
+    
+    // os usuarios foram gravados numa base nova, entao os ids vao de 1 a quantidadeUsuarios
+    private Usuario usuarioAleatorio() {
+        Usuario usuario = new Usuario();
+        usuario.setId(1L + ThreadLocalRandom.current().nextInt(quantidadeUsuarios));
+        return usuario;
+    }
+}
@@ -2,8 +2,14 @@ package com.catevildev.atividade;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+// cache avaliado antes da transacao: acerto nao abre transacao e eviccao ocorre depois do commit
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+@EnableScheduling
 public class AtividadeApplication {
 
 	public static void main(String[] args) {
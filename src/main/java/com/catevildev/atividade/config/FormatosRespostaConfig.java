@@ -0,0 +1,28 @@
+package com.catevildev.atividade.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// formatos binarios por negociacao de conteudo (Accept: application/cbor ou application/x-jackson-smile).
+// os mappers saem do mesmo builder do JSON do Spring Boot (modulos, datas, spring.jackson.*),
+// entao o conteudo e o mesmo do JSON, so a codificacao muda. O Boot troca os conversores padrao por estes.
+@Configuration
+public class FormatosRespostaConfig {
+    
+    @Bean
+    public MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(
+            builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+    
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter conversorSmile(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(
+            builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,71 @@
+package com.catevildev.atividade.config;
+
+import com.catevildev.atividade.replicacao.LeituraAposEscritaFiltro;
+import com.catevildev.atividade.replicacao.ReplicacaoLocalH2;
+import com.catevildev.atividade.replicacao.ReplicasLeitura;
+import com.catevildev.atividade.replicacao.RoteamentoDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+// leituras em replicas (perfil "replica"): transacoes readOnly vao para as replicas em dia, as demais para o
+// banco principal. O DataSource do JPA e do JdbcTemplate passa a ser o proxy de roteamento; o principal
+// continua configurado por spring.datasource.* e spring.datasource.hikari.*
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.habilitado", havingValue = "true")
+public class ReplicasConfig {
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    
+    @Bean
+    public ReplicasLeitura replicasLeitura(@Qualifier("dataSourcePrimario") HikariDataSource primario,
+                                           @Value("${app.datasource.replicas.urls}") List<String> urls,
+                                           @Value("${app.datasource.replicas.atraso-maximo:5s}") Duration atrasoMaximo,
+                                           MeterRegistry registry) {
+        return new ReplicasLeitura(primario, urls, atrasoMaximo, registry);
+    }
+    
+    // conexao so e pedida ao roteamento no primeiro SQL, quando o readOnly da transacao ja esta marcado
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimario") HikariDataSource primario,
+                                 ReplicasLeitura replicas, MeterRegistry registry) {
+        RoteamentoDataSource roteamento = new RoteamentoDataSource(primario, replicas, registry);
+        roteamento.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(roteamento);
+    }
+    
+    // depois de uma escrita o cliente le do principal pelo tempo que uma replica no rodizio pode estar atrasada
+    // (atraso maximo aceito mais o intervalo entre medidas do heartbeat)
+    @Bean
+    public LeituraAposEscritaFiltro leituraAposEscritaFiltro(
+            @Value("${app.datasource.replicas.atraso-maximo:5s}") Duration atrasoMaximo,
+            @Value("${app.datasource.replicas.heartbeat-ms:1000}") long heartbeatMs) {
+        return new LeituraAposEscritaFiltro(atrasoMaximo.plusMillis(heartbeatMs));
+    }
+    
+    // so para desenvolvimento: replicas H2 em memoria alimentadas por copia periodica do principal
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.replica-local.habilitada", havingValue = "true")
+    public ReplicacaoLocalH2 replicacaoLocalH2(@Qualifier("dataSourcePrimario") HikariDataSource primario,
+                                               ReplicasLeitura replicas, DataSourceProperties properties) {
+        return new ReplicacaoLocalH2(primario, replicas.getUrls(),
+            properties.determineUrl(), properties.determineUsername(), properties.determinePassword());
+    }
+}
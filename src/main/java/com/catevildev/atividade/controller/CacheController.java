@@ -0,0 +1,90 @@
+package com.catevildev.atividade.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class CacheController {
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    // estatisticas de acerto, falha e eviccao de cada cache
+    @GetMapping("/estatisticas")
+    public ResponseEntity<Map<String, Map<String, Object>>> buscarEstatisticas() {
+        Map<String, Map<String, Object>> estatisticas = new LinkedHashMap<>();
+        for (String nome : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(nome);
+            if (cache instanceof CaffeineCache caffeineCache) {
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> nativo = caffeineCache.getNativeCache();
+                CacheStats stats = nativo.stats();
+                
+                Map<String, Object> valores = new LinkedHashMap<>();
+                valores.put("tamanho", nativo.estimatedSize());
+                valores.put("acertos", stats.hitCount());
+                valores.put("falhas", stats.missCount());
+                valores.put("taxaAcerto", stats.hitRate());
+                valores.put("eviccoes", stats.evictionCount());
+                estatisticas.put(nome, valores);
+            }
+        }
+        return ResponseEntity.ok(estatisticas);
+    }
+    
+    // estatisticas de cada regiao do cache de segundo nivel do Hibernate (entidades e consultas)
+    @GetMapping("/regioes")
+    public ResponseEntity<Map<String, Map<String, Object>>> buscarEstatisticasRegioes() {
+        Statistics statistics = sessionFactory().getStatistics();
+        Map<String, Map<String, Object>> estatisticas = new LinkedHashMap<>();
+        for (String regiao : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(regiao);
+            if (stats == null) {
+                continue;
+            }
+            long acertos = stats.getHitCount();
+            long falhas = stats.getMissCount();
+            
+            Map<String, Object> valores = new LinkedHashMap<>();
+            valores.put("tamanho", stats.getElementCountInMemory());
+            valores.put("acertos", acertos);
+            valores.put("falhas", falhas);
+            valores.put("inclusoes", stats.getPutCount());
+            valores.put("taxaAcerto", acertos + falhas == 0 ? 0.0 : (double) acertos / (acertos + falhas));
+            estatisticas.put(regiao, valores);
+        }
+        return ResponseEntity.ok(estatisticas);
+    }
+    
+    // esvazia uma regiao do cache de segundo nivel (entidade ou resultados de consulta)
+    @DeleteMapping("/regioes/{regiao}")
+    public ResponseEntity<?> limparRegiao(@PathVariable String regiao) {
+        SessionFactory sessionFactory = sessionFactory();
+        if (!Arrays.asList(sessionFactory.getStatistics().getSecondLevelCacheRegionNames()).contains(regiao)) {
+            return ResponseEntity.notFound().build();
+        }
+        sessionFactory.getCache().evictRegion(regiao);
+        return ResponseEntity.ok().body("Região " + regiao + " esvaziada");
+    }
+    
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
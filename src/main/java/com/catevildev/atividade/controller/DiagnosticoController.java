@@ -0,0 +1,29 @@
+package com.catevildev.atividade.controller;
+
+import com.catevildev.atividade.diagnostico.AnalisadorPlanosConsultas;
+import com.catevildev.atividade.dto.PlanoConsulta;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/diagnostico")
+public class DiagnosticoController {
+    
+    @Autowired
+    private AnalisadorPlanosConsultas analisadorPlanos;
+    
+    // EXPLAIN dos metodos de consulta dos repositorios de pedidos, produtos e usuarios (so leitura)
+    // sem CORS liberado: e uma ferramenta de operacao, nao deve ser chamada de outras origens pelo navegador
+    @GetMapping("/planos-consultas")
+    public ResponseEntity<List<PlanoConsulta>> buscarPlanosConsultas(
+            @RequestParam(defaultValue = "false") boolean somenteVarreduras) {
+        List<PlanoConsulta> planos = analisadorPlanos.analisar();
+        if (somenteVarreduras) {
+            planos = planos.stream().filter(PlanoConsulta::isVarreduraCompleta).toList();
+        }
+        return ResponseEntity.ok(planos);
+    }
+}
@@ -0,0 +1,76 @@
+package com.catevildev.atividade.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// formato que o Spring vai escolher para a resposta, calculado antes do corpo existir (para o 304 sem ir ao banco).
+// segue a negociacao do AbstractMessageConverterMethodProcessor: tipos do Accept por qualidade e especificidade,
+// conversores na ordem registrada. Um Accept com varios tipos e pesos da o mesmo formato que a resposta tera
+@Component
+class FormatoNegociado {
+    
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    
+    @Autowired
+    private ContentNegotiationManager contentNegotiationManager;
+    
+    @Autowired
+    private HttpMessageConverters messageConverters;
+    
+    // cada representacao (json, cbor, smile) tem o seu ETag
+    String etagPorFormato(String etag, NativeWebRequest requisicao, Class<?> tipo) {
+        MediaType formato = negociar(requisicao, tipo);
+        if (formato != null) {
+            if (MediaType.APPLICATION_CBOR.isCompatibleWith(formato)) {
+                return etag + "-cbor";
+            }
+            if (SMILE.isCompatibleWith(formato)) {
+                return etag + "-smile";
+            }
+        }
+        return etag;
+    }
+    
+    // null se nenhum conversor atende o Accept (a resposta vai ser 406 de qualquer jeito)
+    private MediaType negociar(NativeWebRequest requisicao, Class<?> tipo) {
+        List<MediaType> aceitos;
+        try {
+            aceitos = contentNegotiationManager.resolveMediaTypes(requisicao);
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            return null;
+        }
+        List<MediaType> produziveis = new ArrayList<>();
+        for (HttpMessageConverter<?> conversor : messageConverters.getConverters()) {
+            if (conversor.canWrite(tipo, null)) {
+                produziveis.addAll(conversor.getSupportedMediaTypes(tipo));
+            }
+        }
+        
+        List<MediaType> compativeis = new ArrayList<>();
+        for (MediaType aceito : aceitos) {
+            for (MediaType produzivel : produziveis) {
+                if (aceito.isCompatibleWith(produzivel)) {
+                    MediaType comQualidade = produzivel.copyQualityValue(aceito);
+                    compativeis.add(aceito.isLessSpecific(comQualidade) ? comQualidade : aceito);
+                }
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(compativeis);
+        for (MediaType formato : compativeis) {
+            if (formato.isConcrete()) {
+                return formato;
+            }
+        }
+        return null;
+    }
+}
@@ -1,16 +1,36 @@
 package com.catevildev.atividade.controller;
 
+import com.catevildev.atividade.dto.DivergenciaResumo;
+import com.catevildev.atividade.dto.Pagina;
+import com.catevildev.atividade.dto.PedidoListagem;
+import com.catevildev.atividade.dto.ResultadoAtualizacaoStatus;
+import com.catevildev.atividade.dto.ResultadoItemLote;
 import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.ResumoPedidosUsuario;
+import com.catevildev.atividade.service.ArquivamentoPedidosService;
+import com.catevildev.atividade.service.AtualizacaoStatusPedidosService;
+import com.catevildev.atividade.service.CancelamentoAutomaticoPedidosService;
+import com.catevildev.atividade.service.PedidoExportacaoService;
+import com.catevildev.atividade.service.PedidoExportacaoService.FormatoExportacao;
+import com.catevildev.atividade.service.PedidoLoteService;
 import com.catevildev.atividade.service.PedidoService;
+import com.catevildev.atividade.service.ResumoPedidosService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -21,6 +41,27 @@ public class PedidoController {
     @Autowired // autowired para injetar o servico de pedido
     private PedidoService pedidoService;
     
+    @Autowired
+    private PedidoExportacaoService pedidoExportacaoService;
+    
+    @Autowired
+    private PedidoLoteService pedidoLoteService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ResumoPedidosService resumoPedidosService;
+    
+    @Autowired
+    private ArquivamentoPedidosService arquivamentoPedidosService;
+    
+    @Autowired
+    private CancelamentoAutomaticoPedidosService cancelamentoAutomaticoService;
+    
+    @Autowired
+    private AtualizacaoStatusPedidosService atualizacaoStatus;
+    
     // cria novo pedido
     @PostMapping
     public ResponseEntity<?> criarPedido(@RequestBody Pedido pedido) {
@@ -32,11 +73,49 @@ public class PedidoController {
         }
     }
     
-    // busca todos os pedidos
+    // cria pedidos em lote a partir de um array json ou de ndjson (um pedido por linha)
+    @PostMapping(value = "/lote", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> criarPedidosEmLote(HttpServletRequest request) {
+        try (MappingIterator<Pedido> pedidos = objectMapper.readerFor(Pedido.class).readValues(request.getInputStream())) {
+            List<ResultadoItemLote> resultados = pedidoLoteService.salvarEmLote(pedidos);
+            return ResponseEntity.ok(resultados);
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao criar pedidos em lote: " + e.getMessage());
+        }
+    }
+    
+    // busca todos os pedidos (paginado)
     @GetMapping
-    public ResponseEntity<List<Pedido>> buscarTodosPedidos() {
-        List<Pedido> pedidos = pedidoService.buscarTodos();
-        return ResponseEntity.ok(pedidos);
+    public ResponseEntity<?> buscarTodosPedidos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<Pedido> pedidos = pedidoService.buscarTodos(cursor, tamanho);
+            return ResponseEntity.ok(pedidos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar pedidos: " + e.getMessage());
+        }
+    }
+    
+    // listagem enxuta de pedidos (id, numero, usuario, valor, status e data), opcionalmente por status
+    @GetMapping("/listagem")
+    public ResponseEntity<?> buscarListagemPedidos(
+            @RequestParam(required = false) Pedido.StatusPedido status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<PedidoListagem> pedidos = pedidoService.buscarListagem(status, cursor, tamanho);
+            return ResponseEntity.ok(pedidos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar pedidos: " + e.getMessage());
+        }
+    }
+    
+    // quantidade de pedidos por status (contadores em memoria, sem consulta ao banco)
+    @GetMapping("/estatisticas")
+    public ResponseEntity<Map<String, Long>> buscarEstatisticas() {
+        Map<String, Long> contagens = pedidoService.contarTodosPorStatus();
+        return ResponseEntity.ok(contagens);
     }
     
     // busca pedido por id
@@ -72,26 +151,43 @@ public class PedidoController {
         }
     }
     
-    // busca pedidos por usuario
+    // busca pedidos por usuario (paginado)
     @GetMapping("/usuario/{usuarioId}")
-    public ResponseEntity<List<Pedido>> buscarPedidosPorUsuario(@PathVariable Long usuarioId) {
-        List<Pedido> pedidos = pedidoService.buscarPorUsuario(usuarioId);
-        return ResponseEntity.ok(pedidos);
+    public ResponseEntity<?> buscarPedidosPorUsuario(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<Pedido> pedidos = pedidoService.buscarPorUsuario(usuarioId, cursor, tamanho);
+            return ResponseEntity.ok(pedidos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar pedidos: " + e.getMessage());
+        }
     }
     
-    // busca pedidos por status
+    // busca pedidos por status (paginado)
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Pedido>> buscarPedidosPorStatus(@PathVariable Pedido.StatusPedido status) {
-        List<Pedido> pedidos = pedidoService.buscarPorStatus(status);
-        return ResponseEntity.ok(pedidos);
+    public ResponseEntity<?> buscarPedidosPorStatus(
+            @PathVariable Pedido.StatusPedido status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<Pedido> pedidos = pedidoService.buscarPorStatus(status, cursor, tamanho);
+            return ResponseEntity.ok(pedidos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar pedidos: " + e.getMessage());
+        }
     }
     
-    // atualiza status do pedido
+    // atualiza status do pedido; com a gravacao em lote ligada a mudanca e so enfileirada (202)
     @PatchMapping("/{id}/status")
     public ResponseEntity<?> atualizarStatusPedido(@PathVariable Long id, @RequestParam Pedido.StatusPedido status) {
         try {
-            Pedido pedido = pedidoService.atualizarStatus(id, status);
-            return ResponseEntity.ok(pedido);
+            ResultadoAtualizacaoStatus resultado = pedidoService.atualizarStatus(id, status);
+            if (resultado.isEnfileirada()) {
+                return ResponseEntity.accepted().body(Map.of("id", resultado.getId(), "status", resultado.getStatus()));
+            }
+            return ResponseEntity.ok(resultado.getPedido());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body("Erro ao atualizar status: " + e.getMessage());
         }
@@ -108,13 +204,19 @@ public class PedidoController {
         }
     }
     
-    // busca pedidos por periodo
+    // busca pedidos por periodo (paginado)
     @GetMapping("/periodo")
-    public ResponseEntity<List<Pedido>> buscarPedidosPorPeriodo(
+    public ResponseEntity<?> buscarPedidosPorPeriodo(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim) {
-        List<Pedido> pedidos = pedidoService.buscarPorPeriodo(dataInicio, dataFim);
-        return ResponseEntity.ok(pedidos);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<Pedido> pedidos = pedidoService.buscarPorPeriodo(dataInicio, dataFim, cursor, tamanho);
+            return ResponseEntity.ok(pedidos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar pedidos: " + e.getMessage());
+        }
     }
     
     // calcula valor total por usuario
@@ -123,4 +225,84 @@ public class PedidoController {
         BigDecimal valorTotal = pedidoService.calcularValorTotalPorUsuario(usuarioId);
         return ResponseEntity.ok(valorTotal);
     }
+    
+    // resumo de pedidos do usuario (total, quantidade e data do ultimo pedido)
+    @GetMapping("/usuario/{usuarioId}/resumo")
+    public ResponseEntity<?> buscarResumoPorUsuario(@PathVariable Long usuarioId) {
+        try {
+            ResumoPedidosUsuario resumo = pedidoService.buscarResumoPorUsuario(usuarioId);
+            return ResponseEntity.ok(resumo);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    // recalcula os totais por usuario a partir dos pedidos
+    @PostMapping("/totais/reconstruir")
+    public ResponseEntity<?> reconstruirTotais() {
+        int usuarios = resumoPedidosService.reconstruir();
+        return ResponseEntity.ok().body("Totais reconstruídos para " + usuarios + " usuários");
+    }
+    
+    // lista usuarios cujos totais nao batem com os pedidos
+    @GetMapping("/totais/verificar")
+    public ResponseEntity<List<DivergenciaResumo>> verificarTotais() {
+        List<DivergenciaResumo> divergencias = resumoPedidosService.verificar();
+        return ResponseEntity.ok(divergencias);
+    }
+    
+    // cancela agora os pedidos pendentes antigos, em lotes (o mesmo do agendamento)
+    @PostMapping("/pendentes/cancelamento")
+    public ResponseEntity<?> cancelarPendentesAntigos() {
+        try {
+            long cancelados = cancelamentoAutomaticoService.cancelarPendentesAntigos();
+            return ResponseEntity.ok().body(cancelados + " pedidos pendentes cancelados");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao cancelar pedidos pendentes: " + e.getMessage());
+        }
+    }
+    
+    // grava agora as mudancas de status enfileiradas (o mesmo da descarga periodica)
+    @PostMapping("/status/descarga")
+    public ResponseEntity<?> descarregarStatusPendentes() {
+        try {
+            long aplicadas = atualizacaoStatus.descarregar();
+            return ResponseEntity.ok().body(aplicadas + " mudanças de status gravadas, "
+                + atualizacaoStatus.quantidadePendente() + " pendentes");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao gravar mudanças de status: " + e.getMessage());
+        }
+    }
+    
+    // move agora os pedidos encerrados antigos para o arquivo (o mesmo do agendamento)
+    @PostMapping("/arquivamento")
+    public ResponseEntity<?> arquivarPedidos() {
+        try {
+            long arquivados = arquivamentoPedidosService.arquivar();
+            return ResponseEntity.ok().body(arquivados + " pedidos arquivados");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao arquivar pedidos: " + e.getMessage());
+        }
+    }
+    
+    // exporta pedidos em ndjson ou csv, escrevendo direto na resposta
+    @GetMapping("/exportar")
+    public void exportarPedidos(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) Pedido.StatusPedido status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
+            HttpServletResponse response) throws IOException {
+        FormatoExportacao formatoExportacao;
+        try {
+            formatoExportacao = FormatoExportacao.de(formato);
+        } catch (RuntimeException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        
+        response.setContentType(formatoExportacao.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"pedidos." + formatoExportacao.getExtensao() + "\"");
+        pedidoExportacaoService.exportar(status, dataInicio, dataFim, formatoExportacao, response.getOutputStream());
+    }
 }
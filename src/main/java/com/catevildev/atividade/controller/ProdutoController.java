@@ -1,13 +1,22 @@
 package com.catevildev.atividade.controller;
 
+import com.catevildev.atividade.dto.Pagina;
+import com.catevildev.atividade.dto.ProdutoListagem;
 import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.service.IndiceIndisponivelException;
 import com.catevildev.atividade.service.ProdutoService;
+import com.catevildev.atividade.service.VersaoCatalogo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +28,22 @@ public class ProdutoController {
     @Autowired
     private ProdutoService produtoService;
     
+    @Autowired
+    private VersaoCatalogo versaoCatalogo;
+    
+    @Autowired
+    private FormatoNegociado formatoNegociado;
+    
+    @Value("${app.catalogo.cache.produto-max-age:60s}")
+    private Duration maxAgeProduto;
+    
+    @Value("${app.catalogo.cache.listas-max-age:15s}")
+    private Duration maxAgeListas;
+    
+    // desligado no perfil replica: a leitura pode vir de uma replica atrasada em relacao a versao
+    @Value("${app.catalogo.etag.habilitado:true}")
+    private boolean etagHabilitado;
+    
     // cria novo produto
     @PostMapping
     public ResponseEntity<?> criarProduto(@RequestBody Produto produto) {
@@ -30,19 +55,64 @@ public class ProdutoController {
         }
     }
     
-    // busca todos os produtos
+    // busca todos os produtos (paginado)
     @GetMapping
-    public ResponseEntity<List<Produto>> buscarTodosProdutos() {
-        List<Produto> produtos = produtoService.buscarTodos();
-        return ResponseEntity.ok(produtos);
+    public ResponseEntity<?> buscarTodosProdutos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<Produto> produtos = produtoService.buscarTodos(cursor, tamanho);
+            return ResponseEntity.ok(produtos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar produtos: " + e.getMessage());
+        }
+    }
+    
+    // listagem enxuta de produtos (id, nome, preco, categoria e ativo), opcionalmente por categoria
+    @GetMapping("/listagem")
+    public ResponseEntity<?> buscarListagemProdutos(
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<ProdutoListagem> produtos = produtoService.buscarListagem(categoria, cursor, tamanho);
+            return ResponseEntity.ok(produtos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar produtos: " + e.getMessage());
+        }
     }
     
-    // busca produto por id
+    // busca produtos por termo (nome, descricao ou categoria), ordenados por relevancia.
+    // 503 com Retry-After enquanto o indice de busca carrega
+    @GetMapping("/busca")
+    public ResponseEntity<?> buscarProdutosPorTermo(
+            @RequestParam String termo,
+            @RequestParam(required = false) Integer limite) {
+        try {
+            List<Produto> produtos = produtoService.buscarPorTermo(termo, limite);
+            return ResponseEntity.ok(produtos);
+        } catch (IndiceIndisponivelException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+        }
+    }
+    
+    // busca produto por id (ETag por versao do produto; If-None-Match igual responde 304 sem ir ao banco)
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarProdutoPorId(@PathVariable Long id) {
+    public ResponseEntity<?> buscarProdutoPorId(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            NativeWebRequest requisicao) {
+        String etag = etagHabilitado
+            ? formatoNegociado.etagPorFormato(versaoCatalogo.etagProduto(id), requisicao, Produto.class) : null;
+        CacheControl cacheControl = CacheControl.maxAge(maxAgeProduto).cachePublic();
+        if (etag != null && VersaoCatalogo.corresponde(ifNoneMatch, etag)) {
+            return naoModificado(etag, cacheControl);
+        }
+        
         Optional<Produto> produto = produtoService.buscarPorId(id);
         if (produto.isPresent()) {
-            return ResponseEntity.ok(produto.get());
+            return respostaOk(etag, cacheControl).body(produto.get());
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -70,27 +140,62 @@ public class ProdutoController {
         }
     }
     
-    // busca produtos ativos
+    // busca produtos ativos (paginado, ETag pela versao da lista de ativos)
     @GetMapping("/ativos")
-    public ResponseEntity<List<Produto>> buscarProdutosAtivos() {
-        List<Produto> produtos = produtoService.buscarProdutosAtivos();
-        return ResponseEntity.ok(produtos);
+    public ResponseEntity<?> buscarProdutosAtivos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            NativeWebRequest requisicao) {
+        String etag = etagHabilitado
+            ? formatoNegociado.etagPorFormato(versaoCatalogo.etagAtivos(), requisicao, Pagina.class) : null;
+        CacheControl cacheControl = CacheControl.maxAge(maxAgeListas).cachePublic().mustRevalidate();
+        if (etag != null && VersaoCatalogo.corresponde(ifNoneMatch, etag)) {
+            return naoModificado(etag, cacheControl);
+        }
+        try {
+            Pagina<Produto> produtos = produtoService.buscarProdutosAtivos(cursor, tamanho);
+            return respostaOk(etag, cacheControl).body(produtos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar produtos: " + e.getMessage());
+        }
     }
     
-    // busca produtos por categoria
+    // busca produtos por categoria (paginado, ETag pela versao da categoria)
     @GetMapping("/categoria/{categoria}")
-    public ResponseEntity<List<Produto>> buscarProdutosPorCategoria(@PathVariable String categoria) {
-        List<Produto> produtos = produtoService.buscarPorCategoria(categoria);
-        return ResponseEntity.ok(produtos);
+    public ResponseEntity<?> buscarProdutosPorCategoria(
+            @PathVariable String categoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            NativeWebRequest requisicao) {
+        String etag = etagHabilitado
+            ? formatoNegociado.etagPorFormato(versaoCatalogo.etagCategoria(categoria), requisicao, Pagina.class) : null;
+        CacheControl cacheControl = CacheControl.maxAge(maxAgeListas).cachePublic().mustRevalidate();
+        if (etag != null && VersaoCatalogo.corresponde(ifNoneMatch, etag)) {
+            return naoModificado(etag, cacheControl);
+        }
+        try {
+            Pagina<Produto> produtos = produtoService.buscarPorCategoria(categoria, cursor, tamanho);
+            return respostaOk(etag, cacheControl).body(produtos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar produtos: " + e.getMessage());
+        }
     }
     
-    // busca produtos por faixa de preco
+    // busca produtos por faixa de preco (paginado)
     @GetMapping("/preco")
-    public ResponseEntity<List<Produto>> buscarProdutosPorPreco(
+    public ResponseEntity<?> buscarProdutosPorPreco(
             @RequestParam BigDecimal precoMin, 
-            @RequestParam BigDecimal precoMax) {
-        List<Produto> produtos = produtoService.buscarPorFaixaPreco(precoMin, precoMax);
-        return ResponseEntity.ok(produtos);
+            @RequestParam BigDecimal precoMax,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<Produto> produtos = produtoService.buscarPorFaixaPreco(precoMin, precoMax, cursor, tamanho);
+            return ResponseEntity.ok(produtos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar produtos: " + e.getMessage());
+        }
     }
     
     // atualiza estoque
@@ -104,10 +209,71 @@ public class ProdutoController {
         }
     }
     
-    // busca produtos com estoque baixo
+    // reserva estoque de forma atomica (nunca deixa o estoque negativo)
+    @PostMapping("/{id}/reservar")
+    public ResponseEntity<?> reservarEstoque(@PathVariable Long id, @RequestParam Integer quantidade) {
+        try {
+            produtoService.reservarEstoque(id, quantidade);
+            return ResponseEntity.ok().body("Estoque reservado com sucesso");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao reservar estoque: " + e.getMessage());
+        }
+    }
+    
+    // libera estoque reservado
+    @PostMapping("/{id}/liberar")
+    public ResponseEntity<?> liberarEstoque(@PathVariable Long id, @RequestParam Integer quantidade) {
+        try {
+            produtoService.liberarEstoque(id, quantidade);
+            return ResponseEntity.ok().body("Estoque liberado com sucesso");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao liberar estoque: " + e.getMessage());
+        }
+    }
+    
+    // ativa reserva em memoria para produto em promocao relampago
+    @PostMapping("/{id}/flash-sale")
+    public ResponseEntity<?> ativarFlashSale(@PathVariable Long id, @RequestParam(defaultValue = "100") Integer lote) {
+        try {
+            int emMemoria = produtoService.ativarFlashSale(id, lote);
+            return ResponseEntity.ok().body("Flash sale ativada com " + emMemoria + " unidades em memória");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao ativar flash sale: " + e.getMessage());
+        }
+    }
+    
+    // desativa a reserva em memoria e devolve o saldo ao estoque
+    @DeleteMapping("/{id}/flash-sale")
+    public ResponseEntity<?> desativarFlashSale(@PathVariable Long id) {
+        try {
+            int devolvido = produtoService.desativarFlashSale(id);
+            return ResponseEntity.ok().body("Flash sale desativada, " + devolvido + " unidades devolvidas ao estoque");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao desativar flash sale: " + e.getMessage());
+        }
+    }
+    
+    // busca produtos com estoque baixo (paginado)
     @GetMapping("/estoque-baixo")
-    public ResponseEntity<List<Produto>> buscarProdutosComEstoqueBaixo(@RequestParam(defaultValue = "10") Integer limite) {
-        List<Produto> produtos = produtoService.buscarProdutosComEstoqueBaixo(limite);
-        return ResponseEntity.ok(produtos);
+    public ResponseEntity<?> buscarProdutosComEstoqueBaixo(
+            @RequestParam(defaultValue = "10") Integer limite,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<Produto> produtos = produtoService.buscarProdutosComEstoqueBaixo(limite, cursor, tamanho);
+            return ResponseEntity.ok(produtos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar produtos: " + e.getMessage());
+        }
+    }
+    
+    private static ResponseEntity.BodyBuilder respostaOk(String etag, CacheControl cacheControl) {
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok().cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT);
+        return etag != null ? resposta.eTag(etag) : resposta;
+    }
+    
+    private ResponseEntity<?> naoModificado(String etag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl)
+            .varyBy(HttpHeaders.ACCEPT).build();
     }
 }
@@ -1,5 +1,7 @@
 package com.catevildev.atividade.controller;
 
+import com.catevildev.atividade.dto.Pagina;
+import com.catevildev.atividade.dto.UsuarioListagem;
 import com.catevildev.atividade.entity.Usuario;
 import com.catevildev.atividade.service.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,7 +9,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -29,11 +30,30 @@ public class UsuarioController {
         }
     }
     
-    // busca todos os usuários
+    // busca todos os usuários (paginado)
     @GetMapping
-    public ResponseEntity<List<Usuario>> buscarTodosUsuarios() {
-        List<Usuario> usuarios = usuarioService.buscarTodos();
-        return ResponseEntity.ok(usuarios);
+    public ResponseEntity<?> buscarTodosUsuarios(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<Usuario> usuarios = usuarioService.buscarTodos(cursor, tamanho);
+            return ResponseEntity.ok(usuarios);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar usuários: " + e.getMessage());
+        }
+    }
+    
+    // listagem enxuta de usuários (id, nome, email e ativo)
+    @GetMapping("/listagem")
+    public ResponseEntity<?> buscarListagemUsuarios(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<UsuarioListagem> usuarios = usuarioService.buscarListagem(cursor, tamanho);
+            return ResponseEntity.ok(usuarios);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar usuários: " + e.getMessage());
+        }
     }
     
     // busca usuário por id
@@ -69,18 +89,31 @@ public class UsuarioController {
         }
     }
     
-    // busca usuários ativos
+    // busca usuários ativos (paginado)
     @GetMapping("/ativos")
-    public ResponseEntity<List<Usuario>> buscarUsuariosAtivos() {
-        List<Usuario> usuarios = usuarioService.buscarUsuariosAtivos();
-        return ResponseEntity.ok(usuarios);
+    public ResponseEntity<?> buscarUsuariosAtivos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<Usuario> usuarios = usuarioService.buscarUsuariosAtivos(cursor, tamanho);
+            return ResponseEntity.ok(usuarios);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar usuários: " + e.getMessage());
+        }
     }
     
-    // busca usuários por nome
+    // busca usuários por nome (paginado)
     @GetMapping("/buscar")
-    public ResponseEntity<List<Usuario>> buscarUsuariosPorNome(@RequestParam String nome) {
-        List<Usuario> usuarios = usuarioService.buscarPorNome(nome);
-        return ResponseEntity.ok(usuarios);
+    public ResponseEntity<?> buscarUsuariosPorNome(
+            @RequestParam String nome,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        try {
+            Pagina<Usuario> usuarios = usuarioService.buscarPorNome(nome, cursor, tamanho);
+            return ResponseEntity.ok(usuarios);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar usuários: " + e.getMessage());
+        }
     }
     
     // desativa usuário
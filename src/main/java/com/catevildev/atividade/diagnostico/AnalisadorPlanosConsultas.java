@@ -0,0 +1,237 @@
+package com.catevildev.atividade.diagnostico;
+
+import com.catevildev.atividade.dto.PlanoConsulta;
+import com.catevildev.atividade.entity.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// roda cada metodo de consulta declarado nos repositorios do contexto com argumentos de exemplo, captura o SQL gerado e
+// executa EXPLAIN, numa transacao com rollback. Metodos que alteram dados (@Modifying, delete derivado, SQL
+// nativo que nao e SELECT) ou travam linhas (@Lock) ficam de fora: nao sao executados nem aparecem no resultado.
+// a deteccao de varredura le o plano do H2 ("/* PUBLIC.TABELA.tableScan */").
+@Component
+public class AnalisadorPlanosConsultas {
+    
+    private static final Logger log = LoggerFactory.getLogger(AnalisadorPlanosConsultas.class);
+    
+    private static final Pattern VARREDURA = Pattern.compile("/\\*\\s*([\\w.\"]+)\\.tableScan");
+    
+    private final ApplicationContext contexto;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacao;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${app.consultas.analise-planos.na-inicializacao:false}")
+    private boolean analisarNaInicializacao;
+    
+    public AnalisadorPlanosConsultas(ApplicationContext contexto, JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager) {
+        this.contexto = contexto;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void analisarNaInicializacao() {
+        if (!analisarNaInicializacao) {
+            return;
+        }
+        List<PlanoConsulta> planos = analisar();
+        long varreduras = 0;
+        for (PlanoConsulta plano : planos) {
+            if (plano.isVarreduraCompleta()) {
+                varreduras++;
+                log.warn("Varredura completa em {}.{} ({}): {}", plano.getRepositorio(), plano.getMetodo(),
+                    String.join(", ", plano.getTabelasVarridas()), plano.getSql());
+            } else if (plano.getErro() != null) {
+                log.warn("Não foi possível analisar {}.{}: {}", plano.getRepositorio(), plano.getMetodo(), plano.getErro());
+            }
+        }
+        log.info("Planos de consulta analisados: {} SQLs, {} com varredura completa", planos.size(), varreduras);
+    }
+    
+    public List<PlanoConsulta> analisar() {
+        // repositorios Spring Data registrados no contexto, em ordem de nome para o resultado ser estavel
+        Repositories repositorios = new Repositories(contexto);
+        List<Class<?>> dominios = new ArrayList<>();
+        repositorios.forEach(dominios::add);
+        dominios.sort(Comparator.comparing(d -> repositorios.getRequiredRepositoryInformation(d)
+            .getRepositoryInterface().getSimpleName()));
+        
+        List<PlanoConsulta> planos = new ArrayList<>();
+        for (Class<?> dominio : dominios) {
+            RepositoryInformation informacao = repositorios.getRequiredRepositoryInformation(dominio);
+            Class<?> repositorio = informacao.getRepositoryInterface();
+            Object bean = repositorios.getRepositoryFor(dominio).orElseThrow();
+            Arrays.stream(repositorio.getDeclaredMethods())
+                .filter(m -> !m.isSynthetic() && !m.isDefault() && !Modifier.isStatic(m.getModifiers()))
+                .filter(m -> !alteraOuTrava(m))
+                .sorted(Comparator.comparing(Method::getName))
+                .forEach(m -> planos.addAll(analisar(repositorio, bean, m)));
+        }
+        return planos;
+    }
+    
+    private List<PlanoConsulta> analisar(Class<?> repositorio, Object bean, Method metodo) {
+        String nomeRepositorio = repositorio.getSimpleName();
+        return transacao.execute(status -> {
+            status.setRollbackOnly();
+            // sem cache de segundo nivel/consultas: o SQL tem que chegar ao banco para ser capturado
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+            
+            String erro = null;
+            List<String> sqls;
+            CapturadorSql.iniciar();
+            try {
+                Object resultado = metodo.invoke(bean, argumentosDeExemplo(metodo));
+                if (resultado instanceof Stream<?> stream) {
+                    stream.close();
+                }
+            } catch (InvocationTargetException e) {
+                erro = e.getTargetException().getMessage();
+            } catch (IllegalAccessException | IllegalArgumentException e) {
+                erro = e.getMessage();
+            } finally {
+                sqls = CapturadorSql.parar();
+            }
+            
+            List<PlanoConsulta> planos = new ArrayList<>();
+            if (sqls.isEmpty()) {
+                planos.add(new PlanoConsulta(nomeRepositorio, metodo.getName(), null, null, List.of(),
+                    erro != null ? erro : "Nenhum SQL gerado"));
+            }
+            for (String sql : sqls) {
+                planos.add(explicar(nomeRepositorio, metodo.getName(), sql));
+            }
+            return planos;
+        });
+    }
+    
+    private static boolean alteraOuTrava(Method metodo) {
+        if (metodo.isAnnotationPresent(Modifying.class) || metodo.isAnnotationPresent(Lock.class)) {
+            return true;
+        }
+        if (metodo.getName().startsWith("delete") || metodo.getName().startsWith("remove")) {
+            return true;
+        }
+        Query query = metodo.getAnnotation(Query.class);
+        if (query != null && query.nativeQuery()) {
+            String sql = query.value().stripLeading().toUpperCase(Locale.ROOT);
+            return !sql.startsWith("SELECT") && !sql.startsWith("WITH");
+        }
+        return false;
+    }
+    
+    private PlanoConsulta explicar(String repositorio, String metodo, String sql) {
+        try {
+            // parametros ficam como ?: o EXPLAIN do H2 (sem ANALYZE) nao exige valores
+            String plano = jdbcTemplate.query(con -> con.prepareStatement("EXPLAIN " + sql), rs -> {
+                StringBuilder sb = new StringBuilder();
+                while (rs.next()) {
+                    sb.append(rs.getString(1)).append('\n');
+                }
+                return sb.toString().trim();
+            });
+            List<String> tabelas = new ArrayList<>();
+            Matcher matcher = VARREDURA.matcher(plano);
+            while (matcher.find()) {
+                tabelas.add(matcher.group(1));
+            }
+            return new PlanoConsulta(repositorio, metodo, sql, plano, tabelas, null);
+        } catch (RuntimeException e) {
+            return new PlanoConsulta(repositorio, metodo, sql, null, List.of(), e.getMessage());
+        }
+    }
+    
+    private static Object[] argumentosDeExemplo(Method metodo) {
+        Type[] tipos = metodo.getGenericParameterTypes();
+        Object[] argumentos = new Object[tipos.length];
+        for (int i = 0; i < tipos.length; i++) {
+            argumentos[i] = exemplo(tipos[i]);
+        }
+        return argumentos;
+    }
+    
+    // colecoes recebem um elemento de exemplo do tipo declarado (ex.: Collection<StatusPedido>)
+    private static Object exemplo(Type tipo) {
+        if (tipo instanceof ParameterizedType parametrizado && parametrizado.getRawType() instanceof Class<?> bruto
+                && Collection.class.isAssignableFrom(bruto)
+                && parametrizado.getActualTypeArguments()[0] instanceof Class<?> elemento) {
+            return List.of(exemplo(elemento));
+        }
+        return exemplo((Class<?>) tipo);
+    }
+    
+    private static Object exemplo(Class<?> tipo) {
+        if (tipo == Long.class || tipo == long.class) {
+            return 1L;
+        }
+        if (tipo == Integer.class || tipo == int.class) {
+            return 1;
+        }
+        if (tipo == Boolean.class || tipo == boolean.class) {
+            return true;
+        }
+        if (tipo == String.class) {
+            return "a";
+        }
+        if (tipo == BigDecimal.class) {
+            return BigDecimal.ONE;
+        }
+        if (tipo == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (tipo.isEnum()) {
+            return tipo.getEnumConstants()[0];
+        }
+        if (tipo == Limit.class) {
+            return Limit.of(10);
+        }
+        if (Collection.class.isAssignableFrom(tipo)) {
+            return List.of(1L);
+        }
+        if (tipo == Usuario.class) {
+            Usuario usuario = new Usuario();
+            usuario.setId(1L);
+            return usuario;
+        }
+        throw new IllegalArgumentException("Sem valor de exemplo para o tipo " + tipo.getName());
+    }
+}
@@ -0,0 +1,33 @@
+package com.catevildev.atividade.diagnostico;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// guarda os SQLs gerados pelo Hibernate na thread atual, entre iniciar() e parar().
+// registrado em hibernate.session_factory.statement_inspector; fora de uma captura so devolve o SQL.
+public class CapturadorSql implements StatementInspector {
+    
+    private static final ThreadLocal<List<String>> CAPTURADOS = new ThreadLocal<>();
+    
+    public static void iniciar() {
+        CAPTURADOS.set(new ArrayList<>());
+    }
+    
+    // encerra a captura da thread e devolve os SQLs na ordem em que foram preparados
+    public static List<String> parar() {
+        List<String> capturados = CAPTURADOS.get();
+        CAPTURADOS.remove();
+        return capturados == null ? List.of() : capturados;
+    }
+    
+    @Override
+    public String inspect(String sql) {
+        List<String> capturados = CAPTURADOS.get();
+        if (capturados != null) {
+            capturados.add(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,55 @@
+package com.catevildev.atividade.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// cursor opaco usado na paginacao keyset (ultimo id e, quando preciso, ultima data)
+public final class Cursor {
+    
+    private static final String VERSAO = "v1";
+    
+    private final LocalDateTime data;
+    private final Long id;
+    
+    private Cursor(LocalDateTime data, Long id) {
+        this.data = data;
+        this.id = id;
+    }
+    
+    public static String codificar(Long id) {
+        return codificar(null, id);
+    }
+    
+    public static String codificar(LocalDateTime data, Long id) {
+        String valor = VERSAO + "|" + (data != null ? data.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // cursor nulo ou vazio significa primeira pagina
+    public static Cursor decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new Cursor(null, 0L);
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|", -1);
+            if (partes.length != 3 || !VERSAO.equals(partes[0])) {
+                throw new IllegalArgumentException();
+            }
+            LocalDateTime data = partes[1].isEmpty() ? null : LocalDateTime.parse(partes[1]);
+            return new Cursor(data, Long.parseLong(partes[2]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Cursor inválido: " + cursor);
+        }
+    }
+    
+    // get
+    public LocalDateTime getData() {
+        return data;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+}
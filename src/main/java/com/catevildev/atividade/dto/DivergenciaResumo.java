@@ -0,0 +1,57 @@
+package com.catevildev.atividade.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// diferenca entre o resumo gravado de um usuario e o valor calculado a partir dos pedidos
+public class DivergenciaResumo {
+    
+    private final Long usuarioId;
+    private final BigDecimal valorResumo;
+    private final Long quantidadeResumo;
+    private final LocalDateTime dataUltimoPedidoResumo;
+    private final BigDecimal valorCalculado;
+    private final Long quantidadeCalculada;
+    private final LocalDateTime dataUltimoPedidoCalculada;
+    
+    public DivergenciaResumo(Long usuarioId, BigDecimal valorResumo, Long quantidadeResumo,
+                             LocalDateTime dataUltimoPedidoResumo, BigDecimal valorCalculado,
+                             Long quantidadeCalculada, LocalDateTime dataUltimoPedidoCalculada) {
+        this.usuarioId = usuarioId;
+        this.valorResumo = valorResumo;
+        this.quantidadeResumo = quantidadeResumo;
+        this.dataUltimoPedidoResumo = dataUltimoPedidoResumo;
+        this.valorCalculado = valorCalculado;
+        this.quantidadeCalculada = quantidadeCalculada;
+        this.dataUltimoPedidoCalculada = dataUltimoPedidoCalculada;
+    }
+    
+    // get
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+    
+    public BigDecimal getValorResumo() {
+        return valorResumo;
+    }
+    
+    public Long getQuantidadeResumo() {
+        return quantidadeResumo;
+    }
+    
+    public LocalDateTime getDataUltimoPedidoResumo() {
+        return dataUltimoPedidoResumo;
+    }
+    
+    public BigDecimal getValorCalculado() {
+        return valorCalculado;
+    }
+    
+    public Long getQuantidadeCalculada() {
+        return quantidadeCalculada;
+    }
+    
+    public LocalDateTime getDataUltimoPedidoCalculada() {
+        return dataUltimoPedidoCalculada;
+    }
+}
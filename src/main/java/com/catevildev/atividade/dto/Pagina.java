@@ -0,0 +1,51 @@
+package com.catevildev.atividade.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// pagina de resultados com cursor opaco para a proxima pagina (keyset)
+public class Pagina<T> {
+    
+    public static final int TAMANHO_PADRAO = 20;
+    public static final int TAMANHO_MAXIMO = 100;
+    
+    private final List<T> itens;
+    private final String proximoCursor;
+    private final boolean temMais;
+    
+    public Pagina(List<T> itens, String proximoCursor) {
+        this.itens = itens;
+        this.proximoCursor = proximoCursor;
+        this.temMais = proximoCursor != null;
+    }
+    
+    // monta a pagina a partir de uma consulta que buscou tamanho + 1 registros
+    public static <T> Pagina<T> de(List<T> resultado, int tamanho, Function<T, String> cursorDe) {
+        if (resultado.size() <= tamanho) {
+            return new Pagina<>(resultado, null);
+        }
+        List<T> itens = resultado.subList(0, tamanho);
+        return new Pagina<>(itens, cursorDe.apply(itens.get(tamanho - 1)));
+    }
+    
+    // limita o tamanho pedido pelo cliente
+    public static int limitarTamanho(Integer tamanho) {
+        if (tamanho == null || tamanho <= 0) {
+            return TAMANHO_PADRAO;
+        }
+        return Math.min(tamanho, TAMANHO_MAXIMO);
+    }
+    
+    // get
+    public List<T> getItens() {
+        return itens;
+    }
+    
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+    
+    public boolean isTemMais() {
+        return temMais;
+    }
+}
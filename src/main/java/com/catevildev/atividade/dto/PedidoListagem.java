@@ -0,0 +1,57 @@
+package com.catevildev.atividade.dto;
+
+import com.catevildev.atividade.entity.Pedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// linha de listagem de pedido: colunas da lista e o id do usuario (chave estrangeira, sem join)
+public class PedidoListagem {
+    
+    private final Long id;
+    private final String numeroPedido;
+    private final Long usuarioId;
+    private final BigDecimal valorTotal;
+    private final Pedido.StatusPedido status;
+    private final LocalDateTime dataPedido;
+    
+    public PedidoListagem(Long id, String numeroPedido, Long usuarioId, BigDecimal valorTotal,
+                          Pedido.StatusPedido status, LocalDateTime dataPedido) {
+        this.id = id;
+        this.numeroPedido = numeroPedido;
+        this.usuarioId = usuarioId;
+        this.valorTotal = valorTotal;
+        this.status = status;
+        this.dataPedido = dataPedido;
+    }
+    
+    // mesma linha com outro status (mudanca aceita e ainda nao gravada)
+    public PedidoListagem comStatus(Pedido.StatusPedido novoStatus) {
+        return new PedidoListagem(id, numeroPedido, usuarioId, valorTotal, novoStatus, dataPedido);
+    }
+    
+    // get
+    public Long getId() {
+        return id;
+    }
+    
+    public String getNumeroPedido() {
+        return numeroPedido;
+    }
+    
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+    
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+    
+    public Pedido.StatusPedido getStatus() {
+        return status;
+    }
+    
+    public LocalDateTime getDataPedido() {
+        return dataPedido;
+    }
+}
@@ -0,0 +1,54 @@
+package com.catevildev.atividade.dto;
+
+import java.util.List;
+
+// plano de execucao (EXPLAIN) de um SQL gerado por um metodo de repositorio
+public class PlanoConsulta {
+    
+    private final String repositorio;
+    private final String metodo;
+    private final String sql;
+    private final String plano;
+    private final List<String> tabelasVarridas;
+    private final String erro;
+    
+    public PlanoConsulta(String repositorio, String metodo, String sql, String plano,
+                         List<String> tabelasVarridas, String erro) {
+        this.repositorio = repositorio;
+        this.metodo = metodo;
+        this.sql = sql;
+        this.plano = plano;
+        this.tabelasVarridas = tabelasVarridas;
+        this.erro = erro;
+    }
+    
+    // get
+    public String getRepositorio() {
+        return repositorio;
+    }
+    
+    public String getMetodo() {
+        return metodo;
+    }
+    
+    public String getSql() {
+        return sql;
+    }
+    
+    public String getPlano() {
+        return plano;
+    }
+    
+    public List<String> getTabelasVarridas() {
+        return tabelasVarridas;
+    }
+    
+    public String getErro() {
+        return erro;
+    }
+    
+    // true se alguma tabela e lida inteira (sem indice)
+    public boolean isVarreduraCompleta() {
+        return !tabelasVarridas.isEmpty();
+    }
+}
@@ -0,0 +1,42 @@
+package com.catevildev.atividade.dto;
+
+import java.math.BigDecimal;
+
+// linha de listagem de produto: so as colunas da lista, lidas direto do SELECT (sem entidade gerenciada)
+public class ProdutoListagem {
+    
+    private final Long id;
+    private final String nome;
+    private final BigDecimal preco;
+    private final String categoria;
+    private final Boolean ativo;
+    
+    public ProdutoListagem(Long id, String nome, BigDecimal preco, String categoria, Boolean ativo) {
+        this.id = id;
+        this.nome = nome;
+        this.preco = preco;
+        this.categoria = categoria;
+        this.ativo = ativo;
+    }
+    
+    // get
+    public Long getId() {
+        return id;
+    }
+    
+    public String getNome() {
+        return nome;
+    }
+    
+    public BigDecimal getPreco() {
+        return preco;
+    }
+    
+    public String getCategoria() {
+        return categoria;
+    }
+    
+    public Boolean getAtivo() {
+        return ativo;
+    }
+}
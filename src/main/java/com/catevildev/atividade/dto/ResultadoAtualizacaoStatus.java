@@ -0,0 +1,44 @@
+package com.catevildev.atividade.dto;
+
+import com.catevildev.atividade.entity.Pedido;
+
+// resultado de uma mudanca de status: aplicada na hora (com o pedido gravado) ou so enfileirada
+// para a gravacao em lote
+public class ResultadoAtualizacaoStatus {
+    
+    private final Long id;
+    private final Pedido.StatusPedido status;
+    private final Pedido pedido;
+    
+    private ResultadoAtualizacaoStatus(Long id, Pedido.StatusPedido status, Pedido pedido) {
+        this.id = id;
+        this.status = status;
+        this.pedido = pedido;
+    }
+    
+    public static ResultadoAtualizacaoStatus aplicada(Pedido pedido) {
+        return new ResultadoAtualizacaoStatus(pedido.getId(), pedido.getStatus(), pedido);
+    }
+    
+    public static ResultadoAtualizacaoStatus enfileirada(Long id, Pedido.StatusPedido status) {
+        return new ResultadoAtualizacaoStatus(id, status, null);
+    }
+    
+    public boolean isEnfileirada() {
+        return pedido == null;
+    }
+    
+    // get
+    public Long getId() {
+        return id;
+    }
+    
+    public Pedido.StatusPedido getStatus() {
+        return status;
+    }
+    
+    // null quando a mudanca foi so enfileirada
+    public Pedido getPedido() {
+        return pedido;
+    }
+}
@@ -0,0 +1,53 @@
+package com.catevildev.atividade.dto;
+
+// resultado de um item na importacao de pedidos em lote
+public class ResultadoItemLote {
+    
+    public enum Situacao {
+        CRIADO,
+        ERRO
+    }
+    
+    private final int indice;
+    private final Situacao situacao;
+    private final Long id;
+    private final String numeroPedido;
+    private final String mensagem;
+    
+    private ResultadoItemLote(int indice, Situacao situacao, Long id, String numeroPedido, String mensagem) {
+        this.indice = indice;
+        this.situacao = situacao;
+        this.id = id;
+        this.numeroPedido = numeroPedido;
+        this.mensagem = mensagem;
+    }
+    
+    public static ResultadoItemLote criado(int indice, Long id, String numeroPedido) {
+        return new ResultadoItemLote(indice, Situacao.CRIADO, id, numeroPedido, null);
+    }
+    
+    public static ResultadoItemLote erro(int indice, String mensagem) {
+        return new ResultadoItemLote(indice, Situacao.ERRO, null, null, mensagem);
+    }
+    
+    // get
+    public int getIndice() {
+        return indice;
+    }
+    
+    public Situacao getSituacao() {
+        return situacao;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getNumeroPedido() {
+        return numeroPedido;
+    }
+    
+    public String getMensagem() {
+        return mensagem;
+    }
+}
@@ -0,0 +1,34 @@
+package com.catevildev.atividade.dto;
+
+// linha de listagem de usuario: so as colunas da lista, lidas direto do SELECT (sem entidade gerenciada)
+public class UsuarioListagem {
+    
+    private final Long id;
+    private final String nome;
+    private final String email;
+    private final Boolean ativo;
+    
+    public UsuarioListagem(Long id, String nome, String email, Boolean ativo) {
+        this.id = id;
+        this.nome = nome;
+        this.email = email;
+        this.ativo = ativo;
+    }
+    
+    // get
+    public Long getId() {
+        return id;
+    }
+    
+    public String getNome() {
+        return nome;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public Boolean getAtivo() {
+        return ativo;
+    }
+}
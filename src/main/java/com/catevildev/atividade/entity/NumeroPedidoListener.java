@@ -0,0 +1,19 @@
+package com.catevildev.atividade.entity;
+
+import com.catevildev.atividade.service.GeradorNumeroPedido;
+import jakarta.persistence.PrePersist;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// atribui o numero do pedido antes do insert, quando o cliente nao mandou um
+public class NumeroPedidoListener {
+    
+    @Autowired
+    private GeradorNumeroPedido geradorNumeroPedido;
+    
+    @PrePersist
+    public void atribuirNumero(Pedido pedido) {
+        if (pedido.getNumeroPedido() == null) {
+            pedido.setNumeroPedido(geradorNumeroPedido.proximoNumero());
+        }
+    }
+}
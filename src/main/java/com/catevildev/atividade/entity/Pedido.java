@@ -5,15 +5,25 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "pedidos")
+// indices para as consultas por status/data, por periodo e por usuario (keyset por id)
+@Table(name = "pedidos", indexes = {
+    @Index(name = "idx_pedidos_status_data", columnList = "status, data_pedido"),
+    @Index(name = "idx_pedidos_data", columnList = "data_pedido"),
+    @Index(name = "idx_pedidos_usuario_id", columnList = "usuario_id, id")
+})
+@EntityListeners(NumeroPedidoListener.class)
 public class Pedido {
     
+    public static final String RESTRICAO_USUARIO = "fk_pedidos_usuario";
+    
+    // sequence com otimizador pooled: reserva ids em blocos e permite insert em batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedidos_seq")
+    @SequenceGenerator(name = "pedidos_seq", sequenceName = "pedidos_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "usuario_id", nullable = false)
+    @JoinColumn(name = "usuario_id", nullable = false, foreignKey = @ForeignKey(name = RESTRICAO_USUARIO))
     private Usuario usuario;
     
     @Column(name = "numero_pedido", unique = true, length = 50)
@@ -35,7 +45,6 @@ public class Pedido {
     // construtores
     public Pedido() {
         this.dataPedido = LocalDateTime.now();
-        this.numeroPedido = gerarNumeroPedido();
     }
     
     public Pedido(Usuario usuario, BigDecimal valorTotal, String observacoes) {
@@ -45,8 +54,14 @@ public class Pedido {
         this.observacoes = observacoes;
     }
     
-    private String gerarNumeroPedido() {
-        return "PED" + System.currentTimeMillis();
+    // copia fora do contexto de persistencia com outro status (leitura de uma mudanca aceita e ainda nao gravada)
+    public Pedido copiaComStatus(StatusPedido novoStatus) {
+        Pedido copia = new Pedido(usuario, valorTotal, observacoes);
+        copia.id = id;
+        copia.numeroPedido = numeroPedido;
+        copia.dataPedido = dataPedido;
+        copia.status = novoStatus;
+        return copia;
     }
     
     // get e set
@@ -0,0 +1,92 @@
+package com.catevildev.atividade.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+// tabela fria: pedidos ENTREGUE/CANCELADO antigos movidos pelo arquivamento (mesmo id e mesmas colunas de pedidos)
+@Table(name = "pedidos_arquivados", indexes = {
+    @Index(name = "idx_pedidos_arquivados_data", columnList = "data_pedido"),
+    @Index(name = "idx_pedidos_arquivados_usuario_id", columnList = "usuario_id, id"),
+    @Index(name = "idx_pedidos_arquivados_status", columnList = "status, id")
+})
+public class PedidoArquivado {
+    
+    // id original do pedido (nao e gerado aqui)
+    @Id
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+    
+    @Column(name = "numero_pedido", unique = true, length = 50)
+    private String numeroPedido;
+    
+    @Column(name = "valor_total", precision = 10, scale = 2)
+    private BigDecimal valorTotal;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Pedido.StatusPedido status;
+    
+    @Column(name = "data_pedido")
+    private LocalDateTime dataPedido;
+    
+    @Column(name = "observacoes", length = 500)
+    private String observacoes;
+    
+    @Column(name = "data_arquivamento")
+    private LocalDateTime dataArquivamento;
+    
+    // construtores
+    public PedidoArquivado() {
+    }
+    
+    // devolve o pedido arquivado no mesmo formato dos pedidos da tabela quente (somente leitura)
+    public Pedido paraPedido() {
+        Pedido pedido = new Pedido();
+        pedido.setId(id);
+        pedido.setUsuario(usuario);
+        pedido.setNumeroPedido(numeroPedido);
+        pedido.setValorTotal(valorTotal);
+        pedido.setStatus(status);
+        pedido.setDataPedido(dataPedido);
+        pedido.setObservacoes(observacoes);
+        return pedido;
+    }
+    
+    // get
+    public Long getId() {
+        return id;
+    }
+    
+    public Usuario getUsuario() {
+        return usuario;
+    }
+    
+    public String getNumeroPedido() {
+        return numeroPedido;
+    }
+    
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+    
+    public Pedido.StatusPedido getStatus() {
+        return status;
+    }
+    
+    public LocalDateTime getDataPedido() {
+        return dataPedido;
+    }
+    
+    public String getObservacoes() {
+        return observacoes;
+    }
+    
+    public LocalDateTime getDataArquivamento() {
+        return dataArquivamento;
+    }
+}
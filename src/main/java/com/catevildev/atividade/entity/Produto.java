@@ -1,11 +1,22 @@
 package com.catevildev.atividade.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "produtos")
+// indices para as consultas por categoria, ativos (por preco e por estoque) e faixa de preco
+@Table(name = "produtos", indexes = {
+    @Index(name = "idx_produtos_categoria_ativo_preco", columnList = "categoria, ativo, preco"),
+    @Index(name = "idx_produtos_ativo_preco", columnList = "ativo, preco"),
+    @Index(name = "idx_produtos_ativo_estoque", columnList = "ativo, quantidade_estoque"),
+    @Index(name = "idx_produtos_preco", columnList = "preco")
+})
+// cache de segundo nivel (read-write): findById e carga de associacoes saem da memoria
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "produto")
 public class Produto {
     
     @Id
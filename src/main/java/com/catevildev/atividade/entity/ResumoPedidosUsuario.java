@@ -0,0 +1,62 @@
+package com.catevildev.atividade.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// totais de pedidos por usuario, mantidos a cada escrita em pedidos
+// (valor e quantidade nao contam pedidos cancelados; a data considera todos)
+@Entity
+@Table(name = "resumo_pedidos_usuario")
+public class ResumoPedidosUsuario {
+    
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+    
+    @Column(name = "valor_total", precision = 14, scale = 2, nullable = false)
+    private BigDecimal valorTotal = BigDecimal.ZERO;
+    
+    @Column(name = "quantidade_pedidos", nullable = false)
+    private Long quantidadePedidos = 0L;
+    
+    @Column(name = "data_ultimo_pedido")
+    private LocalDateTime dataUltimoPedido;
+    
+    // construtores
+    public ResumoPedidosUsuario() {
+    }
+    
+    // get e set
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+    
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+    
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+    
+    public void setValorTotal(BigDecimal valorTotal) {
+        this.valorTotal = valorTotal;
+    }
+    
+    public Long getQuantidadePedidos() {
+        return quantidadePedidos;
+    }
+    
+    public void setQuantidadePedidos(Long quantidadePedidos) {
+        this.quantidadePedidos = quantidadePedidos;
+    }
+    
+    public LocalDateTime getDataUltimoPedido() {
+        return dataUltimoPedido;
+    }
+    
+    public void setDataUltimoPedido(LocalDateTime dataUltimoPedido) {
+        this.dataUltimoPedido = dataUltimoPedido;
+    }
+}
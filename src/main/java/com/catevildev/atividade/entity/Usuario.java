@@ -1,12 +1,26 @@
 package com.catevildev.atividade.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "usuarios")
+// indices para as consultas por ativos e por telefone; email unico por restricao com nome
+// (o cadastro confia nela em vez de consultar antes se o email existe)
+@Table(name = "usuarios", uniqueConstraints = {
+    @UniqueConstraint(name = Usuario.RESTRICAO_EMAIL, columnNames = "email")
+}, indexes = {
+    @Index(name = "idx_usuarios_ativo", columnList = "ativo, id"),
+    @Index(name = "idx_usuarios_telefone", columnList = "telefone")
+})
+// cache de segundo nivel (read-write): findById e carga de associacoes saem da memoria
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "usuario")
 public class Usuario {
     
+    public static final String RESTRICAO_EMAIL = "uk_usuarios_email";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -14,7 +28,7 @@ public class Usuario {
     @Column(nullable = false, length = 100)
     private String nome;
     
-    @Column(nullable = false, unique = true, length = 100)
+    @Column(nullable = false, length = 100)
     private String email;
     
     @Column(length = 20)
@@ -0,0 +1,64 @@
+package com.catevildev.atividade.metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// tempo de cada metodo publico dos @Service (metrica app.servico, tags classe/metodo/resultado).
+// os timers sao criados uma vez por metodo e guardados aqui: a chamada nao monta tags nem consulta o registry.
+// controllers ja sao medidos pelo http.server.requests e repositorios pelo spring.data.repository.invocations.
+@Aspect
+@Component
+public class MetricasServicoAspect {
+    
+    static final String METRICA = "app.servico";
+    
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<Method, Timer[]> timers = new ConcurrentHashMap<>();
+    
+    public MetricasServicoAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+    
+    @Around("within(@org.springframework.stereotype.Service *) && execution(public * *(..))")
+    public Object medir(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method metodo = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer[] par = timers.get(metodo);
+        if (par == null) {
+            par = timers.computeIfAbsent(metodo, this::criarTimers);
+        }
+        
+        long inicio = System.nanoTime();
+        try {
+            Object resultado = joinPoint.proceed();
+            par[0].record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            return resultado;
+        } catch (Throwable e) {
+            par[1].record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+    
+    // [0] sucesso, [1] erro
+    private Timer[] criarTimers(Method metodo) {
+        return new Timer[] {criarTimer(metodo, "sucesso"), criarTimer(metodo, "erro")};
+    }
+    
+    private Timer criarTimer(Method metodo, String resultado) {
+        return Timer.builder(METRICA)
+            .description("Tempo de execução dos métodos de serviço")
+            .tag("classe", metodo.getDeclaringClass().getSimpleName())
+            .tag("metodo", metodo.getName())
+            .tag("resultado", resultado)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+}
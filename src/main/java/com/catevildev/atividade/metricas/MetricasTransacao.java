@@ -0,0 +1,91 @@
+package com.catevildev.atividade.metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// duracao das transacoes (metrica app.transacao, tags resultado=commit|rollback e tipo=leitura|escrita).
+// o Spring Boot registra este listener no transaction manager; ele so e chamado para transacoes novas
+// (quem participa de uma transacao existente nao passa por aqui). As transacoes de uma thread sao
+// aninhadas (REQUIRES_NEW suspende a externa), entao os inicios ficam numa pilha por thread.
+@Component
+public class MetricasTransacao implements TransactionExecutionListener {
+    
+    static final String METRICA = "app.transacao";
+    
+    private final Timer commitLeitura;
+    private final Timer commitEscrita;
+    private final Timer rollbackLeitura;
+    private final Timer rollbackEscrita;
+    
+    private final ThreadLocal<Pilha> inicios = ThreadLocal.withInitial(Pilha::new);
+    
+    public MetricasTransacao(MeterRegistry registry) {
+        this.commitLeitura = criarTimer(registry, "commit", "leitura");
+        this.commitEscrita = criarTimer(registry, "commit", "escrita");
+        this.rollbackLeitura = criarTimer(registry, "rollback", "leitura");
+        this.rollbackEscrita = criarTimer(registry, "rollback", "escrita");
+    }
+    
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure == null) {
+            inicios.get().empilhar(System.nanoTime());
+        }
+    }
+    
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        registrar(commitFailure == null
+            ? (transaction.isReadOnly() ? commitLeitura : commitEscrita)
+            : (transaction.isReadOnly() ? rollbackLeitura : rollbackEscrita));
+    }
+    
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        registrar(transaction.isReadOnly() ? rollbackLeitura : rollbackEscrita);
+    }
+    
+    private void registrar(Timer timer) {
+        Pilha pilha = inicios.get();
+        if (!pilha.vazia()) {
+            timer.record(System.nanoTime() - pilha.desempilhar(), TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private static Timer criarTimer(MeterRegistry registry, String resultado, String tipo) {
+        return Timer.builder(METRICA)
+            .description("Duração das transações")
+            .tag("resultado", resultado)
+            .tag("tipo", tipo)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+    
+    // pilha de longs sem boxing; cresce so se houver mais de 8 transacoes aninhadas na mesma thread
+    private static final class Pilha {
+        
+        private long[] valores = new long[8];
+        private int topo;
+        
+        void empilhar(long valor) {
+            if (topo == valores.length) {
+                valores = Arrays.copyOf(valores, topo * 2);
+            }
+            valores[topo++] = valor;
+        }
+        
+        long desempilhar() {
+            return valores[--topo];
+        }
+        
+        boolean vazia() {
+            return topo == 0;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.catevildev.atividade.replicacao;
+
+// estado do roteamento na requisicao atual: depois de uma transacao de escrita, as leituras
+// da mesma requisicao vao para o banco principal (a replica pode ainda nao ter a escrita).
+// Uma escrita recente em outra requisicao do mesmo cliente (cookie do LeituraAposEscritaFiltro) tem o mesmo efeito
+public final class ContextoRoteamento {
+    
+    // null fora de requisicao (jobs agendados, inicializacao): nada e lembrado entre execucoes
+    private static final ThreadLocal<Requisicao> REQUISICAO = new ThreadLocal<>();
+    
+    private ContextoRoteamento() {
+    }
+    
+    public static void iniciarRequisicao() {
+        iniciarRequisicao(false, null);
+    }
+    
+    // escritaRecente: o cliente escreveu ha pouco em outra requisicao; aoEscrever roda na primeira escrita desta
+    public static void iniciarRequisicao(boolean escritaRecente, Runnable aoEscrever) {
+        REQUISICAO.set(new Requisicao(escritaRecente, aoEscrever));
+    }
+    
+    public static void encerrarRequisicao() {
+        REQUISICAO.remove();
+    }
+    
+    static void registrarEscrita() {
+        Requisicao requisicao = REQUISICAO.get();
+        if (requisicao != null && !requisicao.escreveu) {
+            requisicao.escreveu = true;
+            if (requisicao.aoEscrever != null) {
+                requisicao.aoEscrever.run();
+            }
+        }
+    }
+    
+    static boolean escreveuNaRequisicao() {
+        Requisicao requisicao = REQUISICAO.get();
+        return requisicao != null && (requisicao.escreveu || requisicao.escritaRecente);
+    }
+    
+    private static final class Requisicao {
+        
+        private final boolean escritaRecente;
+        private final Runnable aoEscrever;
+        private boolean escreveu;
+        
+        private Requisicao(boolean escritaRecente, Runnable aoEscrever) {
+            this.escritaRecente = escritaRecente;
+            this.aoEscrever = aoEscrever;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.catevildev.atividade.replicacao;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// delimita a requisicao para o roteamento: uma escrita feita nela manda as leituras seguintes para o principal.
+// A escrita tambem grava um cookie que vale pelo atraso maximo aceito das replicas; enquanto ele vale, as
+// leituras das proximas requisicoes do mesmo cliente tambem vao para o principal (ler o que escreveu)
+public class LeituraAposEscritaFiltro extends OncePerRequestFilter {
+    
+    public static final String COOKIE = "leitura-principal";
+    
+    private final Duration janela;
+    
+    public LeituraAposEscritaFiltro(Duration janela) {
+        this.janela = janela;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContextoRoteamento.iniciarRequisicao(escritaRecente(request), () -> marcarEscrita(response));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ContextoRoteamento.encerrarRequisicao();
+        }
+    }
+    
+    // o valor e o instante (relogio do servidor) em que a janela acaba, conferido aqui mesmo
+    private boolean escritaRecente(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+    
+    // a escrita acontece antes do corpo da resposta ser escrito, entao o cabecalho ainda pode ser enviado
+    private void marcarEscrita(HttpServletResponse response) {
+        if (response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + janela.toMillis()));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, (janela.toMillis() + 999) / 1000));
+        cookie.setAttribute("SameSite", "Lax");
+        response.addCookie(cookie);
+    }
+}
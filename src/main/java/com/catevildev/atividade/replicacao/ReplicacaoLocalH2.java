@@ -0,0 +1,103 @@
+package com.catevildev.atividade.replicacao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// replicacao de mentira para rodar o roteamento localmente: copia o H2 principal para as replicas H2
+// em memoria a cada intervalo (o atraso das replicas fica entre zero e o intervalo).
+// a estrutura e copiada uma vez com SCRIPT NODATA; os dados vem por tabelas ligadas (LINKED TABLE)
+// ao principal, trocados numa transacao por replica, entao quem le a replica nunca ve tabela pela metade.
+public class ReplicacaoLocalH2 {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReplicacaoLocalH2.class);
+    
+    private static final String PREFIXO_LIGADA = "PRIMARIO_";
+    
+    private final JdbcTemplate primario;
+    
+    // conexoes proprias (sem pool e sem o readOnly dos pools de leitura) para escrever nas replicas
+    private final Map<String, DataSource> replicas = new LinkedHashMap<>();
+    
+    private final String url;
+    
+    private final String usuario;
+    
+    private final String senha;
+    
+    // tabelas copiadas, com o heartbeat primeiro: a replica nunca parece mais nova que os dados que tem
+    private volatile List<String> tabelas;
+    
+    public ReplicacaoLocalH2(DataSource primario, Map<String, String> urlsReplicas,
+                             String url, String usuario, String senha) {
+        this.primario = new JdbcTemplate(primario);
+        urlsReplicas.forEach((nome, urlReplica) ->
+            replicas.put(nome, new DriverManagerDataSource(urlReplica, usuario, senha)));
+        this.url = url;
+        this.usuario = usuario;
+        this.senha = senha;
+    }
+    
+    // depois da subida o esquema do principal ja foi criado pelo Hibernate
+    @EventListener(ApplicationReadyEvent.class)
+    public void criarReplicas() {
+        List<String> estrutura = primario.queryForList("SCRIPT NODATA", String.class).stream()
+            .filter(sql -> !sql.startsWith("--") && !sql.startsWith("CREATE USER"))
+            .toList();
+        List<String> nomes = new ArrayList<>(primario.queryForList(
+            "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+            "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE' ORDER BY TABLE_NAME", String.class));
+        String heartbeat = ReplicasLeitura.TABELA_HEARTBEAT.toUpperCase();
+        nomes.remove(heartbeat);
+        nomes.add(0, heartbeat);
+        
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            JdbcTemplate jdbc = new JdbcTemplate(replica.getValue());
+            jdbc.execute("DROP ALL OBJECTS");
+            estrutura.forEach(jdbc::execute);
+            // as tabelas sao trocadas uma a uma dentro da transacao; as chaves estrangeiras ja valem no principal
+            jdbc.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            for (String tabela : nomes) {
+                jdbc.execute("CREATE LINKED TABLE \"" + PREFIXO_LIGADA + tabela + "\"('org.h2.Driver', "
+                    + literal(url) + ", " + literal(usuario) + ", " + literal(senha) + ", 'PUBLIC', "
+                    + literal(tabela) + ") READONLY");
+            }
+            log.info("Réplica local {} criada com {} tabelas", replica.getKey(), nomes.size());
+        }
+        tabelas = List.copyOf(nomes);
+        copiar();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.datasource.replica-local.intervalo-ms:2000}")
+    public void copiar() {
+        List<String> copiar = tabelas;
+        if (copiar == null) {
+            return;
+        }
+        for (DataSource replica : replicas.values()) {
+            JdbcTemplate jdbc = new JdbcTemplate(replica);
+            new TransactionTemplate(new DataSourceTransactionManager(replica)).executeWithoutResult(status -> {
+                for (String tabela : copiar) {
+                    jdbc.update("DELETE FROM \"" + tabela + "\"");
+                    jdbc.update("INSERT INTO \"" + tabela + "\" SELECT * FROM \"" + PREFIXO_LIGADA + tabela + "\"");
+                }
+            });
+        }
+    }
+    
+    private static String literal(String valor) {
+        return "'" + (valor == null ? "" : valor.replace("'", "''")) + "'";
+    }
+}
@@ -0,0 +1,147 @@
+package com.catevildev.atividade.replicacao;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// pools das replicas de leitura e medicao do atraso de cada uma por heartbeat: o principal grava o horario
+// atual numa tabela de uma linha e cada replica e consultada pelo horario que ja recebeu. Replica que nao
+// responde ou esta mais atrasada que o limite sai do rodizio ate alcancar o principal.
+public class ReplicasLeitura implements AutoCloseable {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReplicasLeitura.class);
+    
+    static final String TABELA_HEARTBEAT = "replicacao_heartbeat";
+    
+    private final JdbcTemplate primario;
+    
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+    
+    private final Map<String, JdbcTemplate> consultas = new LinkedHashMap<>();
+    
+    // horario do heartbeat visto em cada replica (ausente enquanto a replica nao responde)
+    private final Map<String, Instant> heartbeatReplicado = new ConcurrentHashMap<>();
+    
+    private final Duration atrasoMaximo;
+    
+    private volatile List<String> elegiveis = List.of();
+    
+    public ReplicasLeitura(HikariDataSource primario, List<String> urls, Duration atrasoMaximo, MeterRegistry registry) {
+        this.primario = new JdbcTemplate(primario);
+        this.atrasoMaximo = atrasoMaximo;
+        
+        for (int i = 0; i < urls.size(); i++) {
+            String nome = "replica-" + (i + 1);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(nome);
+            pool.setJdbcUrl(urls.get(i).trim());
+            pool.setUsername(primario.getUsername());
+            pool.setPassword(primario.getPassword());
+            pool.setMaximumPoolSize(primario.getMaximumPoolSize());
+            pool.setConnectionTimeout(primario.getConnectionTimeout());
+            pool.setReadOnly(true);
+            pools.put(nome, pool);
+            
+            JdbcTemplate consulta = new JdbcTemplate(pool);
+            consulta.setQueryTimeout(1);
+            consultas.put(nome, consulta);
+            
+            Gauge.builder("app.replicacao.atraso", this, r -> r.atrasoSegundos(nome))
+                .description("Atraso da réplica em relação ao banco principal (heartbeat)")
+                .tag("replica", nome)
+                .baseUnit("seconds")
+                .register(registry);
+        }
+        
+        criarHeartbeat();
+    }
+    
+    // tabela de uma linha no principal; numa replicacao de verdade ela chega as replicas como qualquer tabela
+    private void criarHeartbeat() {
+        primario.execute("CREATE TABLE IF NOT EXISTS " + TABELA_HEARTBEAT
+            + " (id INT PRIMARY KEY, instante TIMESTAMP NOT NULL)");
+        Timestamp agora = Timestamp.from(Instant.now());
+        if (primario.update("UPDATE " + TABELA_HEARTBEAT + " SET instante = ? WHERE id = 1", agora) == 0) {
+            primario.update("INSERT INTO " + TABELA_HEARTBEAT + " (id, instante) VALUES (1, ?)", agora);
+        }
+    }
+    
+    // grava o heartbeat no principal e mede o atraso de cada replica
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.heartbeat-ms:1000}")
+    public void medirAtraso() {
+        Instant agora = Instant.now();
+        primario.update("UPDATE " + TABELA_HEARTBEAT + " SET instante = ? WHERE id = 1", Timestamp.from(agora));
+        
+        List<String> emDia = new ArrayList<>();
+        for (Map.Entry<String, JdbcTemplate> e : consultas.entrySet()) {
+            String nome = e.getKey();
+            Timestamp instante;
+            try {
+                instante = e.getValue().queryForObject(
+                    "SELECT instante FROM " + TABELA_HEARTBEAT + " WHERE id = 1", Timestamp.class);
+            } catch (DataAccessException ex) {
+                log.debug("Réplica {} sem heartbeat: {}", nome, ex.getMessage());
+                instante = null;
+            }
+            if (instante == null) {
+                heartbeatReplicado.remove(nome);
+                continue;
+            }
+            heartbeatReplicado.put(nome, instante.toInstant());
+            if (Duration.between(instante.toInstant(), agora).compareTo(atrasoMaximo) <= 0) {
+                emDia.add(nome);
+            }
+        }
+        
+        if (emDia.size() != elegiveis.size()) {
+            log.info("Réplicas de leitura em dia: {} de {}", emDia.size(), consultas.size());
+        }
+        elegiveis = Collections.unmodifiableList(emDia);
+    }
+    
+    // replicas que podem receber leituras agora (em dia no ultimo heartbeat)
+    public List<String> elegiveis() {
+        return elegiveis;
+    }
+    
+    public Map<String, DataSource> getDataSources() {
+        return Collections.unmodifiableMap(pools);
+    }
+    
+    // url de cada replica pelo nome
+    public Map<String, String> getUrls() {
+        Map<String, String> urls = new LinkedHashMap<>();
+        pools.forEach((nome, pool) -> urls.put(nome, pool.getJdbcUrl()));
+        return urls;
+    }
+    
+    // atraso em segundos; NaN quando a replica nao respondeu
+    public double atrasoSegundos(String replica) {
+        Instant instante = heartbeatReplicado.get(replica);
+        if (instante == null) {
+            return Double.NaN;
+        }
+        return Duration.between(instante, Instant.now()).toMillis() / 1000.0;
+    }
+    
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
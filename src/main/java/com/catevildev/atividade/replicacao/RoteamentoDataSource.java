@@ -0,0 +1,68 @@
+package com.catevildev.atividade.replicacao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// escolhe o banco de cada conexao: transacao readOnly vai para uma replica em dia (rodizio entre elas),
+// o resto vai para o principal. Precisa ficar atras de um LazyConnectionDataSourceProxy: o flag readOnly
+// da transacao so e marcado depois que o gerenciador de transacao pede a conexao.
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+    
+    public static final String PRIMARIO = "primario";
+    
+    private final ReplicasLeitura replicas;
+    
+    private final AtomicInteger proxima = new AtomicInteger();
+    
+    private final Map<String, Counter> conexoes = new HashMap<>();
+    
+    public RoteamentoDataSource(DataSource primario, ReplicasLeitura replicas, MeterRegistry registry) {
+        this.replicas = replicas;
+        
+        Map<Object, Object> destinos = new HashMap<>(replicas.getDataSources());
+        destinos.put(PRIMARIO, primario);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        setLenientFallback(false);
+        
+        for (Object destino : destinos.keySet()) {
+            conexoes.put((String) destino, Counter.builder("app.datasource.roteamento")
+                .description("Conexões entregues por banco (principal ou réplica)")
+                .tag("destino", (String) destino)
+                .register(registry));
+        }
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String destino = escolher();
+        conexoes.get(destino).increment();
+        return destino;
+    }
+    
+    private String escolher() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ContextoRoteamento.registrarEscrita();
+            }
+            return PRIMARIO;
+        }
+        // leitura depois de escrita na mesma requisicao
+        if (ContextoRoteamento.escreveuNaRequisicao()) {
+            return PRIMARIO;
+        }
+        List<String> elegiveis = replicas.elegiveis();
+        if (elegiveis.isEmpty()) {
+            return PRIMARIO;
+        }
+        return elegiveis.get(Math.floorMod(proxima.getAndIncrement(), elegiveis.size()));
+    }
+}
@@ -0,0 +1,114 @@
+package com.catevildev.atividade.repository;
+
+import com.catevildev.atividade.dto.PedidoListagem;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.PedidoArquivado;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface PedidoArquivadoRepository extends JpaRepository<PedidoArquivado, Long> {
+    
+    // copia os pedidos do lote para a tabela fria numa unica instrucao. NATIVE_SPACES diz ao Hibernate qual tabela
+    // a instrucao altera: sem ele, SQL nativo invalida todo o cache de segundo nivel e o de consultas
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pedidos_arquivados"))
+    @Query(value = "INSERT INTO pedidos_arquivados " +
+                   "(id, usuario_id, numero_pedido, valor_total, status, data_pedido, observacoes, data_arquivamento) " +
+                   "SELECT p.id, p.usuario_id, p.numero_pedido, p.valor_total, p.status, p.data_pedido, p.observacoes, " +
+                   "CURRENT_TIMESTAMP FROM pedidos p WHERE p.id IN (:ids)", nativeQuery = true)
+    int copiarDaTabelaQuente(@Param("ids") List<Long> ids);
+    
+    // pedido arquivado por id, com o usuario no mesmo SELECT
+    @Override
+    @EntityGraph(attributePaths = "usuario")
+    Optional<PedidoArquivado> findById(Long id);
+    
+    // pedido arquivado por numero
+    @EntityGraph(attributePaths = "usuario")
+    Optional<PedidoArquivado> findByNumeroPedido(String numeroPedido);
+    
+    // data do pedido arquivado mais novo (ate onde a tabela fria cobre)
+    @Query("SELECT MAX(p.dataPedido) FROM PedidoArquivado p")
+    LocalDateTime buscarDataMaisRecente();
+    
+    // conta pedidos arquivados de todos os status numa consulta so
+    @Query("SELECT p.status, COUNT(p) FROM PedidoArquivado p GROUP BY p.status")
+    List<Object[]> contarAgrupadoPorStatus();
+    
+    // paginacao keyset: todos os pedidos arquivados a partir do ultimo id, mesma ordem da tabela quente
+    @EntityGraph(attributePaths = "usuario")
+    List<PedidoArquivado> findByIdGreaterThanOrderByIdAsc(Long ultimoId, Limit limit);
+    
+    // paginacao keyset: pedidos arquivados por status
+    @EntityGraph(attributePaths = "usuario")
+    List<PedidoArquivado> findByStatusAndIdGreaterThanOrderByIdAsc(Pedido.StatusPedido status, Long ultimoId,
+                                                                   Limit limit);
+    
+    // paginacao keyset: pedidos arquivados por usuario
+    @EntityGraph(attributePaths = "usuario")
+    List<PedidoArquivado> findByUsuario_IdAndIdGreaterThanOrderByIdAsc(Long usuarioId, Long ultimoId, Limit limit);
+    
+    // pedidos arquivados por faixa de valor
+    @EntityGraph(attributePaths = "usuario")
+    List<PedidoArquivado> findByValorTotalBetween(BigDecimal valorMin, BigDecimal valorMax);
+    
+    // listagem enxuta (paginacao keyset), mesmas colunas da tabela quente
+    @Query("SELECT new com.catevildev.atividade.dto.PedidoListagem(" +
+           "p.id, p.numeroPedido, p.usuario.id, p.valorTotal, p.status, p.dataPedido) " +
+           "FROM PedidoArquivado p WHERE p.id > :ultimoId ORDER BY p.id")
+    List<PedidoListagem> buscarListagem(@Param("ultimoId") Long ultimoId, Limit limit);
+    
+    // listagem enxuta por status
+    @Query("SELECT new com.catevildev.atividade.dto.PedidoListagem(" +
+           "p.id, p.numeroPedido, p.usuario.id, p.valorTotal, p.status, p.dataPedido) " +
+           "FROM PedidoArquivado p WHERE p.status = :status AND p.id > :ultimoId ORDER BY p.id")
+    List<PedidoListagem> buscarListagemPorStatus(@Param("status") Pedido.StatusPedido status,
+                                                 @Param("ultimoId") Long ultimoId,
+                                                 Limit limit);
+    
+    // paginacao keyset por periodo, mesma ordem (data, id) da tabela quente
+    @EntityGraph(attributePaths = "usuario")
+    @Query("SELECT p FROM PedidoArquivado p WHERE p.dataPedido BETWEEN :dataInicio AND :dataFim AND " +
+           "(p.dataPedido > :ultimaData OR (p.dataPedido = :ultimaData AND p.id > :ultimoId)) " +
+           "ORDER BY p.dataPedido, p.id")
+    List<PedidoArquivado> buscarPaginaPorPeriodo(@Param("dataInicio") LocalDateTime dataInicio,
+                                                 @Param("dataFim") LocalDateTime dataFim,
+                                                 @Param("ultimaData") LocalDateTime ultimaData,
+                                                 @Param("ultimoId") Long ultimoId,
+                                                 Limit limit);
+    
+    // pedidos arquivados a partir de uma data
+    @EntityGraph(attributePaths = "usuario")
+    @Query("SELECT p FROM PedidoArquivado p WHERE p.dataPedido >= :dataLimite ORDER BY p.dataPedido DESC")
+    List<PedidoArquivado> findPedidosRecentes(@Param("dataLimite") LocalDateTime dataLimite);
+    
+    // cursor para exportacao, com os mesmos filtros da tabela quente
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + PedidoRepository.TAMANHO_BLOCO_EXPORTACAO),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM PedidoArquivado p WHERE " +
+           "(:status IS NULL OR p.status = :status) AND " +
+           "(:dataInicio IS NULL OR p.dataPedido >= :dataInicio) AND " +
+           "(:dataFim IS NULL OR p.dataPedido <= :dataFim) " +
+           "ORDER BY p.id")
+    Stream<PedidoArquivado> streamParaExportacao(@Param("status") Pedido.StatusPedido status,
+                                                 @Param("dataInicio") LocalDateTime dataInicio,
+                                                 @Param("dataFim") LocalDateTime dataFim);
+}
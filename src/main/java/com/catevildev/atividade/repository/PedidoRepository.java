@@ -1,44 +1,84 @@
 package com.catevildev.atividade.repository;
 
+import com.catevildev.atividade.dto.PedidoListagem;
 import com.catevildev.atividade.entity.Pedido;
 import com.catevildev.atividade.entity.Usuario;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     
+    // quantidade de linhas trazidas do banco por vez na exportacao
+    int TAMANHO_BLOCO_EXPORTACAO = 1000;
+    
+    // valor de jakarta.persistence.lock.timeout que o Hibernate traduz para SKIP LOCKED
+    // (a constante LockOptions.SKIP_LOCKED esta deprecada)
+    String TIMEOUT_SKIP_LOCKED = "-2";
+    
+    // as consultas que devolvem pedidos para a API trazem o usuario no mesmo SELECT (join fetch),
+    // para a serializacao nao disparar um SELECT por pedido nem esbarrar no proxy lazy
+    @Override
+    @EntityGraph(attributePaths = "usuario")
+    Optional<Pedido> findById(Long id);
+    
+    // leitura para alteracao: trava a linha ate o fim da transacao, para nao se cruzar
+    // com outra mudanca de status (manual ou do cancelamento automatico) calculada sobre o estado antigo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @EntityGraph(attributePaths = "usuario")
+    @Query("SELECT p FROM Pedido p WHERE p.id = :id")
+    Optional<Pedido> buscarParaAtualizacao(@Param("id") Long id);
+    
     // busca pedidos por usuario
+    @EntityGraph(attributePaths = "usuario")
     List<Pedido> findByUsuario(Usuario usuario);
     
     // busca pedidos por status
+    @EntityGraph(attributePaths = "usuario")
     List<Pedido> findByStatus(Pedido.StatusPedido status);
     
     // busca pedidos por numero
+    @EntityGraph(attributePaths = "usuario")
     Optional<Pedido> findByNumeroPedido(String numeroPedido);
     
     // busca pedidos por usuario e status
+    @EntityGraph(attributePaths = "usuario")
     List<Pedido> findByUsuarioAndStatus(Usuario usuario, Pedido.StatusPedido status);
     
     // busca pedidos por faixa de valor
+    @EntityGraph(attributePaths = "usuario")
     List<Pedido> findByValorTotalBetween(BigDecimal valorMin, BigDecimal valorMax);
     
     // busca pedidos por periodo
+    @EntityGraph(attributePaths = "usuario")
     List<Pedido> findByDataPedidoBetween(LocalDateTime dataInicio, LocalDateTime dataFim);
     
     // query customizada para buscar pedidos por usuario com valor total
+    @EntityGraph(attributePaths = "usuario")
     @Query("SELECT p FROM Pedido p WHERE p.usuario = :usuario AND p.valorTotal >= :valorMinimo")
     List<Pedido> findPedidosUsuarioComValorMinimo(@Param("usuario") Usuario usuario, 
                                                   @Param("valorMinimo") BigDecimal valorMinimo);
     
     // busca pedidos recentes (ultimos 30 dias)
+    @EntityGraph(attributePaths = "usuario")
     @Query("SELECT p FROM Pedido p WHERE p.dataPedido >= :dataLimite ORDER BY p.dataPedido DESC")
     List<Pedido> findPedidosRecentes(@Param("dataLimite") LocalDateTime dataLimite);
     
@@ -49,7 +89,106 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     // conta pedidos por status
     long countByStatus(Pedido.StatusPedido status);
     
+    // conta pedidos de todos os status numa consulta so
+    @Query("SELECT p.status, COUNT(p) FROM Pedido p GROUP BY p.status")
+    List<Object[]> contarAgrupadoPorStatus();
+    
     // busca pedidos pendentes ha mais de X dias
+    @EntityGraph(attributePaths = "usuario")
     @Query("SELECT p FROM Pedido p WHERE p.status = 'PENDENTE' AND p.dataPedido < :dataLimite")
     List<Pedido> findPedidosPendentesAntigos(@Param("dataLimite") LocalDateTime dataLimite);
+    
+    // paginacao keyset: todos os pedidos a partir do ultimo id
+    @EntityGraph(attributePaths = "usuario")
+    List<Pedido> findByIdGreaterThanOrderByIdAsc(Long ultimoId, Limit limit);
+    
+    // paginacao keyset: pedidos por status
+    @EntityGraph(attributePaths = "usuario")
+    List<Pedido> findByStatusAndIdGreaterThanOrderByIdAsc(Pedido.StatusPedido status, Long ultimoId, Limit limit);
+    
+    // paginacao keyset: pedidos por usuario
+    @EntityGraph(attributePaths = "usuario")
+    List<Pedido> findByUsuario_IdAndIdGreaterThanOrderByIdAsc(Long usuarioId, Long ultimoId, Limit limit);
+    
+    // paginacao keyset: pedidos por periodo, ordenados por data e id
+    @EntityGraph(attributePaths = "usuario")
+    @Query("SELECT p FROM Pedido p WHERE p.dataPedido BETWEEN :dataInicio AND :dataFim AND " +
+           "(p.dataPedido > :ultimaData OR (p.dataPedido = :ultimaData AND p.id > :ultimoId)) " +
+           "ORDER BY p.dataPedido, p.id")
+    List<Pedido> buscarPaginaPorPeriodo(@Param("dataInicio") LocalDateTime dataInicio,
+                                        @Param("dataFim") LocalDateTime dataFim,
+                                        @Param("ultimaData") LocalDateTime ultimaData,
+                                        @Param("ultimoId") Long ultimoId,
+                                        Limit limit);
+    
+    // cursor para exportacao: le os pedidos em blocos do tamanho do fetch size, sem montar lista
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + TAMANHO_BLOCO_EXPORTACAO),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Pedido p WHERE " +
+           "(:status IS NULL OR p.status = :status) AND " +
+           "(:dataInicio IS NULL OR p.dataPedido >= :dataInicio) AND " +
+           "(:dataFim IS NULL OR p.dataPedido <= :dataFim) " +
+           "ORDER BY p.id")
+    Stream<Pedido> streamParaExportacao(@Param("status") Pedido.StatusPedido status,
+                                        @Param("dataInicio") LocalDateTime dataInicio,
+                                        @Param("dataFim") LocalDateTime dataFim);
+    
+    // listagem enxuta (paginacao keyset): colunas da lista e o id do usuario pela chave estrangeira, sem join
+    @Query("SELECT new com.catevildev.atividade.dto.PedidoListagem(" +
+           "p.id, p.numeroPedido, p.usuario.id, p.valorTotal, p.status, p.dataPedido) " +
+           "FROM Pedido p WHERE p.id > :ultimoId ORDER BY p.id")
+    List<PedidoListagem> buscarListagem(@Param("ultimoId") Long ultimoId, Limit limit);
+    
+    // listagem enxuta por status; consulta separada (sem ":status IS NULL OR") para o indice de status valer
+    @Query("SELECT new com.catevildev.atividade.dto.PedidoListagem(" +
+           "p.id, p.numeroPedido, p.usuario.id, p.valorTotal, p.status, p.dataPedido) " +
+           "FROM Pedido p WHERE p.status = :status AND p.id > :ultimoId ORDER BY p.id")
+    List<PedidoListagem> buscarListagemPorStatus(@Param("status") Pedido.StatusPedido status,
+                                                 @Param("ultimoId") Long ultimoId,
+                                                 Limit limit);
+    
+    // proximo lote a arquivar: ids dos pedidos encerrados mais antigos que a data limite,
+    // travados ate o fim da transacao para o status nao mudar entre a copia e a exclusao
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id FROM Pedido p WHERE p.status IN :status AND p.dataPedido < :dataLimite ORDER BY p.id")
+    List<Long> buscarIdsParaArquivar(@Param("status") Collection<Pedido.StatusPedido> status,
+                                     @Param("dataLimite") LocalDateTime dataLimite,
+                                     Limit limit);
+    
+    // remove da tabela quente os pedidos ja copiados para o arquivo
+    @Modifying
+    @Query("DELETE FROM Pedido p WHERE p.id IN :ids")
+    int apagarPorIds(@Param("ids") List<Long> ids);
+    
+    // proximo lote de pedidos de um status criados antes da data limite, depois do ultimo id do lote anterior:
+    // id, id do usuario e valor (para ajustar o resumo). as linhas ficam travadas ate o fim da transacao do
+    // lote; linhas ja travadas por outra transacao sao puladas quando o banco suporta SKIP LOCKED
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = TIMEOUT_SKIP_LOCKED))
+    @Query("SELECT p.id, p.usuario.id, p.valorTotal FROM Pedido p " +
+           "WHERE p.status = :status AND p.dataPedido < :dataLimite AND p.id > :ultimoId ORDER BY p.id")
+    List<Object[]> buscarLoteParaTransicao(@Param("status") Pedido.StatusPedido status,
+                                           @Param("dataLimite") LocalDateTime dataLimite,
+                                           @Param("ultimoId") Long ultimoId,
+                                           Limit limit);
+    
+    // status gravado do pedido, pela chave primaria (sem carregar a entidade)
+    @Query("SELECT p.status FROM Pedido p WHERE p.id = :id")
+    Optional<Pedido.StatusPedido> buscarStatus(@Param("id") Long id);
+    
+    // status atual de varios pedidos, com usuario e valor (para ajustar o resumo), travando as linhas
+    // ate o fim da transacao; ordem por id para lotes concorrentes travarem na mesma ordem
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id, p.usuario.id, p.valorTotal, p.status FROM Pedido p WHERE p.id IN :ids ORDER BY p.id")
+    List<Object[]> buscarEstadoParaAtualizacao(@Param("ids") Collection<Long> ids);
+    
+    // muda o status de varios pedidos numa instrucao; so altera os que ainda estao no status anterior
+    @Modifying
+    @Query("UPDATE Pedido p SET p.status = :novoStatus WHERE p.id IN :ids AND p.status = :statusAnterior")
+    int atualizarStatusEmLote(@Param("ids") List<Long> ids,
+                              @Param("statusAnterior") Pedido.StatusPedido statusAnterior,
+                              @Param("novoStatus") Pedido.StatusPedido novoStatus);
 }
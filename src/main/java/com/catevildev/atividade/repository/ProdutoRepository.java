@@ -1,10 +1,17 @@
 package com.catevildev.atividade.repository;
 
+import com.catevildev.atividade.dto.ProdutoListagem;
 import com.catevildev.atividade.entity.Produto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -13,9 +20,11 @@ import java.util.List;
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
     
     // busca produtos ativos
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Produto> findByAtivoTrue();
     
     // busca produtos por categoria
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Produto> findByCategoria(String categoria);
     
     // busca produtos por nome (case insensitive)
@@ -39,9 +48,61 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
     List<Produto> findByCategoriaAndPrecoLessThanEqualAndAtivoTrue(String categoria, BigDecimal precoMax);
     
     // conta produtos ativos por categoria
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     long countByCategoriaAndAtivoTrue(String categoria);
     
     // busca produto mais caro
     @Query("SELECT p FROM Produto p WHERE p.ativo = true ORDER BY p.preco DESC")
     List<Produto> findProdutoMaisCaro();
+    
+    // paginacao keyset: todos os produtos a partir do ultimo id
+    List<Produto> findByIdGreaterThanOrderByIdAsc(Long ultimoId, Limit limit);
+    
+    // paginacao keyset: produtos ativos
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Produto> findByAtivoTrueAndIdGreaterThanOrderByIdAsc(Long ultimoId, Limit limit);
+    
+    // paginacao keyset: produtos por categoria
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Produto> findByCategoriaAndIdGreaterThanOrderByIdAsc(String categoria, Long ultimoId, Limit limit);
+    
+    // paginacao keyset: produtos por faixa de preço
+    List<Produto> findByPrecoBetweenAndIdGreaterThanOrderByIdAsc(BigDecimal precoMin, BigDecimal precoMax,
+                                                                 Long ultimoId, Limit limit);
+    
+    // paginacao keyset: produtos com estoque baixo
+    @Query("SELECT p FROM Produto p WHERE p.quantidadeEstoque <= :quantidadeLimite AND p.ativo = true " +
+           "AND p.id > :ultimoId ORDER BY p.id")
+    List<Produto> buscarPaginaComEstoqueBaixo(@Param("quantidadeLimite") Integer quantidadeLimite,
+                                              @Param("ultimoId") Long ultimoId,
+                                              Limit limit);
+    
+    // baixa o estoque de forma atomica, so se houver quantidade suficiente (retorna linhas alteradas)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Produto p SET p.quantidadeEstoque = p.quantidadeEstoque - :quantidade " +
+           "WHERE p.id = :id AND p.quantidadeEstoque >= :quantidade")
+    int reservarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+    
+    // devolve quantidade ao estoque de forma atomica
+    @Transactional
+    @Modifying
+    @Query("UPDATE Produto p SET p.quantidadeEstoque = p.quantidadeEstoque + :quantidade WHERE p.id = :id")
+    int liberarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+    
+    // estoque atual sem carregar a entidade
+    @Query("SELECT p.quantidadeEstoque FROM Produto p WHERE p.id = :id")
+    Integer buscarQuantidadeEstoque(@Param("id") Long id);
+    
+    // listagem enxuta (paginacao keyset): so as colunas da lista, sem entidade gerenciada
+    @Query("SELECT new com.catevildev.atividade.dto.ProdutoListagem(p.id, p.nome, p.preco, p.categoria, p.ativo) " +
+           "FROM Produto p WHERE p.id > :ultimoId ORDER BY p.id")
+    List<ProdutoListagem> buscarListagem(@Param("ultimoId") Long ultimoId, Limit limit);
+    
+    // listagem enxuta por categoria; consulta separada (sem ":categoria IS NULL OR") para o indice de categoria valer
+    @Query("SELECT new com.catevildev.atividade.dto.ProdutoListagem(p.id, p.nome, p.preco, p.categoria, p.ativo) " +
+           "FROM Produto p WHERE p.categoria = :categoria AND p.id > :ultimoId ORDER BY p.id")
+    List<ProdutoListagem> buscarListagemPorCategoria(@Param("categoria") String categoria,
+                                                     @Param("ultimoId") Long ultimoId,
+                                                     Limit limit);
 }
@@ -0,0 +1,114 @@
+package com.catevildev.atividade.repository;
+
+import com.catevildev.atividade.entity.ResumoPedidosUsuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ResumoPedidosUsuarioRepository extends JpaRepository<ResumoPedidosUsuario, Long> {
+    
+    // pedidos da tabela quente mais os arquivados: o arquivamento move pedidos, os totais nao mudam
+    String PEDIDOS_COM_ARQUIVO =
+        "SELECT usuario_id, status, valor_total, data_pedido FROM pedidos " +
+        "UNION ALL SELECT usuario_id, status, valor_total, data_pedido FROM pedidos_arquivados";
+    
+    // resumo de cada usuario calculado a partir dos pedidos: id, valor, quantidade, data do ultimo pedido
+    String RESUMO_CALCULADO =
+        "SELECT u.id, " +
+        "COALESCE(SUM(CASE WHEN p.status <> 'CANCELADO' THEN p.valor_total ELSE 0 END), 0), " +
+        "COUNT(CASE WHEN p.status <> 'CANCELADO' THEN 1 END), " +
+        "MAX(p.data_pedido) " +
+        "FROM usuarios u LEFT JOIN (" + PEDIDOS_COM_ARQUIVO + ") p ON p.usuario_id = u.id ";
+    
+    // tabela alterada pelas instrucoes nativas: sem isso o Hibernate invalida todo o cache de segundo nivel
+    // e o de consultas a cada escrita no resumo
+    String TABELA = "resumo_pedidos_usuario";
+    
+    // cria o resumo zerado de um usuario novo
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TABELA))
+    @Query(value = "INSERT INTO resumo_pedidos_usuario (usuario_id, valor_total, quantidade_pedidos, data_ultimo_pedido) " +
+                   "VALUES (:usuarioId, 0, 0, NULL)", nativeQuery = true)
+    int criar(@Param("usuarioId") Long usuarioId);
+    
+    // remove o resumo do usuario
+    @Modifying
+    @Query("DELETE FROM ResumoPedidosUsuario r WHERE r.usuarioId = :usuarioId")
+    int apagar(@Param("usuarioId") Long usuarioId);
+    
+    // soma as diferencas de forma atomica e avanca a data do ultimo pedido se for mais nova
+    @Modifying
+    @Query("UPDATE ResumoPedidosUsuario r SET " +
+           "r.valorTotal = r.valorTotal + :deltaValor, " +
+           "r.quantidadePedidos = r.quantidadePedidos + :deltaQuantidade, " +
+           "r.dataUltimoPedido = CASE WHEN r.dataUltimoPedido IS NULL OR r.dataUltimoPedido < :dataPedido " +
+           "THEN :dataPedido ELSE r.dataUltimoPedido END " +
+           "WHERE r.usuarioId = :usuarioId")
+    int somar(@Param("usuarioId") Long usuarioId,
+              @Param("deltaValor") BigDecimal deltaValor,
+              @Param("deltaQuantidade") long deltaQuantidade,
+              @Param("dataPedido") LocalDateTime dataPedido);
+    
+    // subtrai um pedido removido e recalcula a data do ultimo pedido (tabela quente e arquivo)
+    @Modifying
+    @Query("UPDATE ResumoPedidosUsuario r SET " +
+           "r.valorTotal = r.valorTotal + :deltaValor, " +
+           "r.quantidadePedidos = r.quantidadePedidos + :deltaQuantidade, " +
+           "r.dataUltimoPedido = CASE " +
+           "WHEN (SELECT MAX(a.dataPedido) FROM PedidoArquivado a WHERE a.usuario.id = :usuarioId) IS NULL " +
+           "OR (SELECT MAX(p.dataPedido) FROM Pedido p WHERE p.usuario.id = :usuarioId) > " +
+           "(SELECT MAX(a.dataPedido) FROM PedidoArquivado a WHERE a.usuario.id = :usuarioId) " +
+           "THEN (SELECT MAX(p.dataPedido) FROM Pedido p WHERE p.usuario.id = :usuarioId) " +
+           "ELSE (SELECT MAX(a.dataPedido) FROM PedidoArquivado a WHERE a.usuario.id = :usuarioId) END " +
+           "WHERE r.usuarioId = :usuarioId")
+    int subtrairRemovido(@Param("usuarioId") Long usuarioId,
+                         @Param("deltaValor") BigDecimal deltaValor,
+                         @Param("deltaQuantidade") long deltaQuantidade);
+    
+    // remove resumos de usuarios que nao existem mais (usado na reconstrucao)
+    @Modifying
+    @Query("DELETE FROM ResumoPedidosUsuario r WHERE r.usuarioId NOT IN (SELECT u.id FROM Usuario u)")
+    int apagarSemUsuario();
+    
+    // recalcula todos os resumos a partir dos pedidos (tabela quente e arquivo) numa unica instrucao;
+    // MERGE substitui cada linha no lugar, sem intervalo em que o resumo de um usuario fique faltando
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TABELA))
+    @Query(value = "MERGE INTO resumo_pedidos_usuario (usuario_id, valor_total, quantidade_pedidos, data_ultimo_pedido) " +
+                   "KEY (usuario_id) " + RESUMO_CALCULADO + "GROUP BY u.id", nativeQuery = true)
+    int reconstruirTodos();
+    
+    // recalcula (ou cria, se faltar) o resumo de um usuario
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TABELA))
+    @Query(value = "MERGE INTO resumo_pedidos_usuario (usuario_id, valor_total, quantidade_pedidos, data_ultimo_pedido) " +
+                   "KEY (usuario_id) " + RESUMO_CALCULADO + "WHERE u.id = :usuarioId GROUP BY u.id", nativeQuery = true)
+    int reconstruir(@Param("usuarioId") Long usuarioId);
+    
+    // usuarios cujo resumo nao bate com os pedidos (tabela quente e arquivo): id, valor, quantidade e data do ultimo
+    // pedido no resumo, depois valor, quantidade e data calculados
+    @Query(value = "SELECT u.id, r.valor_total, r.quantidade_pedidos, r.data_ultimo_pedido, " +
+                   "COALESCE(c.valor, 0), COALESCE(c.quantidade, 0), c.data_ultimo " +
+                   "FROM usuarios u " +
+                   "LEFT JOIN resumo_pedidos_usuario r ON r.usuario_id = u.id " +
+                   "LEFT JOIN (SELECT p.usuario_id, " +
+                   "SUM(CASE WHEN p.status <> 'CANCELADO' THEN p.valor_total ELSE 0 END) AS valor, " +
+                   "COUNT(CASE WHEN p.status <> 'CANCELADO' THEN 1 END) AS quantidade, " +
+                   "MAX(p.data_pedido) AS data_ultimo " +
+                   "FROM (" + PEDIDOS_COM_ARQUIVO + ") p GROUP BY p.usuario_id) c ON c.usuario_id = u.id " +
+                   "WHERE r.usuario_id IS NULL " +
+                   "OR r.valor_total <> COALESCE(c.valor, 0) " +
+                   "OR r.quantidade_pedidos <> COALESCE(c.quantidade, 0) " +
+                   "OR r.data_ultimo_pedido IS DISTINCT FROM c.data_ultimo", nativeQuery = true)
+    List<Object[]> buscarDivergencias();
+}
@@ -1,18 +1,25 @@
 package com.catevildev.atividade.repository;
 
+import com.catevildev.atividade.dto.UsuarioListagem;
 import com.catevildev.atividade.entity.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     
-    // busca usuario por email
+    // busca usuario por email (o UsuarioService guarda email -> id no cache; a consulta so roda na falta)
     Optional<Usuario> findByEmail(String email);
     
     // busca usuarios ativos
@@ -30,9 +37,25 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
            "LOWER(u.email) LIKE LOWER(CONCAT('%', :termo, '%'))")
     List<Usuario> buscarPorNomeOuEmail(@Param("termo") String termo);
     
-    // verifica se email ja existe
-    boolean existsByEmail(String email);
-    
     // conta usuarios ativos
     long countByAtivoTrue();
+    
+    // quais dos ids informados existem (uma consulta so)
+    @Query("SELECT u.id FROM Usuario u WHERE u.id IN :ids")
+    Set<Long> buscarIdsExistentes(@Param("ids") Collection<Long> ids);
+    
+    // paginacao keyset: todos os usuarios a partir do ultimo id
+    List<Usuario> findByIdGreaterThanOrderByIdAsc(Long ultimoId, Limit limit);
+    
+    // paginacao keyset: usuarios ativos
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Usuario> findByAtivoTrueAndIdGreaterThanOrderByIdAsc(Long ultimoId, Limit limit);
+    
+    // paginacao keyset: usuarios por nome
+    List<Usuario> findByNomeContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(String nome, Long ultimoId, Limit limit);
+    
+    // listagem enxuta (paginacao keyset): so as colunas da lista, sem entidade gerenciada
+    @Query("SELECT new com.catevildev.atividade.dto.UsuarioListagem(u.id, u.nome, u.email, u.ativo) " +
+           "FROM Usuario u WHERE u.id > :ultimoId ORDER BY u.id")
+    List<UsuarioListagem> buscarListagem(@Param("ultimoId") Long ultimoId, Limit limit);
 }
@@ -0,0 +1,25 @@
+package com.catevildev.atividade.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// executa uma acao em memoria so depois que a transacao atual for confirmada
+public final class AposCommit {
+    
+    private AposCommit() {
+    }
+    
+    // sem transacao ativa a acao roda na hora
+    public static void executar(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+}
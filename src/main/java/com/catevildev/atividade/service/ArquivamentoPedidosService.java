@@ -0,0 +1,149 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.repository.PedidoArquivadoRepository;
+import com.catevildev.atividade.repository.PedidoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// move pedidos ENTREGUE/CANCELADO antigos da tabela quente (pedidos) para a tabela fria (pedidos_arquivados).
+// cada lote e uma transacao (INSERT ... SELECT + DELETE): se a execucao parar no meio, os lotes ja
+// confirmados ficam arquivados e a proxima execucao continua de onde parou.
+@Service
+public class ArquivamentoPedidosService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ArquivamentoPedidosService.class);
+    
+    // status encerrados: o pedido nao muda mais
+    private static final Set<Pedido.StatusPedido> STATUS_ARQUIVAVEIS =
+        EnumSet.of(Pedido.StatusPedido.ENTREGUE, Pedido.StatusPedido.CANCELADO);
+    
+    private final PedidoRepository pedidoRepository;
+    
+    private final PedidoArquivadoRepository pedidoArquivadoRepository;
+    
+    private final TransactionTemplate transacao;
+    
+    @Value("${app.pedidos.arquivamento.idade-dias:365}")
+    private int idadeDias;
+    
+    @Value("${app.pedidos.arquivamento.tamanho-lote:1000}")
+    private int tamanhoLote;
+    
+    @Value("${app.pedidos.arquivamento.validade-data-mais-recente-ms:1000}")
+    private long validadeDataMaisRecenteMs;
+    
+    // MAX(data_pedido) do arquivo lido do banco, guardado por pouco tempo: outra instancia pode ter arquivado.
+    // a data e o momento da leitura sao trocados juntos, num objeto so
+    private volatile DataMaisRecente dataMaisRecente;
+    
+    // evita duas execucoes ao mesmo tempo (agendada e manual)
+    private final AtomicBoolean executando = new AtomicBoolean();
+    
+    public ArquivamentoPedidosService(PedidoRepository pedidoRepository,
+                                      PedidoArquivadoRepository pedidoArquivadoRepository,
+                                      PlatformTransactionManager transactionManager) {
+        this.pedidoRepository = pedidoRepository;
+        this.pedidoArquivadoRepository = pedidoArquivadoRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+    
+    // arquivamento agendado (por padrao todo dia as 2h)
+    @Scheduled(cron = "${app.pedidos.arquivamento.cron:0 0 2 * * *}")
+    public void arquivarAgendado() {
+        arquivar();
+    }
+    
+    // arquiva em lotes ate nao sobrar pedido elegivel; devolve quantos pedidos foram movidos
+    public long arquivar() {
+        if (!executando.compareAndSet(false, true)) {
+            log.info("Arquivamento de pedidos já em execução");
+            return 0;
+        }
+        try {
+            LocalDateTime dataLimite = LocalDateTime.now().minusDays(idadeDias);
+            long total = 0;
+            int movidos;
+            do {
+                movidos = transacao.execute(status -> arquivarLote(dataLimite));
+                if (movidos > 0) {
+                    // nesta instancia as leituras passam a consultar o arquivo assim que o lote confirma
+                    dataMaisRecente = null;
+                }
+                total += movidos;
+            } while (movidos == tamanhoLote);
+            
+            if (total > 0) {
+                log.info("{} pedidos anteriores a {} arquivados", total, dataLimite);
+            }
+            return total;
+        } finally {
+            executando.set(false);
+        }
+    }
+    
+    // true se algum pedido com data a partir de dataInicio pode estar no arquivo (sem data: se o arquivo tem algum).
+    // datas ate o corte da idade sempre podem estar no arquivo, mesmo que a leitura guardada do MAX seja anterior
+    // a um arquivamento feito por outra instancia; depois do corte so se o arquivo tiver pedido mais novo
+    // (idade-dias menor numa execucao anterior)
+    public boolean arquivoCobre(LocalDateTime dataInicio) {
+        LocalDateTime maisRecente = buscarDataMaisRecente();
+        if (dataInicio == null) {
+            return maisRecente != null;
+        }
+        return !dataInicio.isAfter(LocalDateTime.now().minusDays(idadeDias))
+            || (maisRecente != null && !dataInicio.isAfter(maisRecente));
+    }
+    
+    private LocalDateTime buscarDataMaisRecente() {
+        DataMaisRecente atual = dataMaisRecente;
+        long agora = System.nanoTime();
+        if (atual == null || agora - atual.lidaEm > TimeUnit.MILLISECONDS.toNanos(validadeDataMaisRecenteMs)) {
+            atual = new DataMaisRecente(pedidoArquivadoRepository.buscarDataMaisRecente(), agora);
+            dataMaisRecente = atual;
+        }
+        return atual.data;
+    }
+    
+    // true se pedidos com esse status podem estar no arquivo
+    public static boolean arquivavel(Pedido.StatusPedido status) {
+        return status == null || STATUS_ARQUIVAVEIS.contains(status);
+    }
+    
+    private int arquivarLote(LocalDateTime dataLimite) {
+        List<Long> ids = pedidoRepository.buscarIdsParaArquivar(STATUS_ARQUIVAVEIS, dataLimite, Limit.of(tamanhoLote));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int copiados = pedidoArquivadoRepository.copiarDaTabelaQuente(ids);
+        int apagados = pedidoRepository.apagarPorIds(ids);
+        if (copiados != ids.size() || apagados != ids.size()) {
+            throw new IllegalStateException("Lote de arquivamento inconsistente: " + ids.size() + " selecionados, "
+                + copiados + " copiados, " + apagados + " apagados");
+        }
+        return ids.size();
+    }
+    
+    private static class DataMaisRecente {
+        private final LocalDateTime data;
+        private final long lidaEm;
+        
+        DataMaisRecente(LocalDateTime data, long lidaEm) {
+            this.data = data;
+            this.lidaEm = lidaEm;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.repository.PedidoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// mudancas de status gravadas em segundo plano (write-behind), ligado por app.pedidos.status-em-lote.habilitado.
+// o PATCH confere o status gravado (uma leitura pela chave primaria) e so guarda o status de destino em memoria
+// (varias mudancas do mesmo pedido viram uma so); a descarga periodica aplica tudo em lotes: trava as linhas do
+// lote, confere cada transicao contra o status gravado e faz um UPDATE por par (status anterior, status novo),
+// ajustando resumo e contadores. Lote que falha e refeito pedido a pedido; a mudanca que continua falhando
+// volta para a fila ate max-tentativas descargas e depois e descartada (com log), sem travar a fila.
+// Garantia: mudanca aceita e gravada em ate um intervalo; se o processo cair antes disso ela se perde
+// (a fila nao e persistida). No desligamento normal a fila e descarregada antes de fechar o banco.
+@Service
+public class AtualizacaoStatusPedidosService {
+    
+    private static final Logger log = LoggerFactory.getLogger(AtualizacaoStatusPedidosService.class);
+    
+    private final PedidoRepository pedidoRepository;
+    
+    private final ResumoPedidosService resumoPedidos;
+    
+    private final ContadoresStatusPedido contadoresStatus;
+    
+    private final TransactionTemplate transacao;
+    
+    // status de destino por pedido, ainda nao gravado
+    private final Map<Long, Pedido.StatusPedido> pendentes = new ConcurrentHashMap<>();
+    
+    // descargas que ja falharam para o pedido (so os que falharam desde a ultima gravacao)
+    private final Map<Long, Integer> tentativas = new ConcurrentHashMap<>();
+    
+    // uma descarga por vez (agendada e a do desligamento)
+    private final ReentrantLock descarga = new ReentrantLock();
+    
+    private final Counter enfileiradas;
+    
+    private final Counter coalescidas;
+    
+    private final Counter aplicadas;
+    
+    private final Counter descartadas;
+    
+    private final Counter falhas;
+    
+    private final Timer tempoDescarga;
+    
+    @Value("${app.pedidos.status-em-lote.habilitado:false}")
+    private boolean habilitado;
+    
+    @Value("${app.pedidos.status-em-lote.tamanho-lote:500}")
+    private int tamanhoLote;
+    
+    @Value("${app.pedidos.status-em-lote.max-tentativas:5}")
+    private int maxTentativas;
+    
+    private volatile boolean encerrado;
+    
+    public AtualizacaoStatusPedidosService(PedidoRepository pedidoRepository,
+                                           ResumoPedidosService resumoPedidos,
+                                           ContadoresStatusPedido contadoresStatus,
+                                           PlatformTransactionManager transactionManager,
+                                           MeterRegistry registry) {
+        this.pedidoRepository = pedidoRepository;
+        this.resumoPedidos = resumoPedidos;
+        this.contadoresStatus = contadoresStatus;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.enfileiradas = contador(registry, "enfileirada", "Mudanças de status recebidas para gravação em lote");
+        this.coalescidas = contador(registry, "coalescida", "Mudanças de status substituídas por outra mais nova do mesmo pedido");
+        this.aplicadas = contador(registry, "aplicada", "Mudanças de status gravadas no banco");
+        this.descartadas = contador(registry, "descartada", "Mudanças de status descartadas (pedido inexistente ou transição inválida)");
+        this.falhas = contador(registry, "falha", "Mudanças de status descartadas depois de falhar em todas as tentativas");
+        this.tempoDescarga = Timer.builder("app.pedidos.status.lote.descarga")
+            .description("Tempo de cada lote de mudanças de status gravado")
+            .publishPercentileHistogram()
+            .register(registry);
+        Gauge.builder("app.pedidos.status.lote.pendentes", pendentes, Map::size)
+            .description("Pedidos com mudança de status aguardando gravação")
+            .register(registry);
+    }
+    
+    private static Counter contador(MeterRegistry registry, String resultado, String descricao) {
+        return Counter.builder("app.pedidos.status.lote")
+            .description(descricao)
+            .tag("resultado", resultado)
+            .register(registry);
+    }
+    
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+    
+    // guarda a mudanca para a proxima descarga. Pedido inexistente e recusado aqui; a transicao segue a ordem
+    // a partir da mudanca ainda pendente do pedido (que a nova substitui) ou, sem ela, do status gravado
+    public void enfileirar(Long id, Pedido.StatusPedido novoStatus) {
+        if (encerrado) {
+            throw new IllegalStateException("Aplicação encerrando, mudança de status não aceita");
+        }
+        Pedido.StatusPedido gravado = pedidoRepository.buscarStatus(id)
+            .orElseThrow(() -> new RuntimeException("Pedido não encontrado com ID: " + id));
+        pendentes.compute(id, (chave, pendente) -> {
+            Pedido.StatusPedido atual = pendente != null ? pendente : gravado;
+            if (!transicaoPermitida(atual, novoStatus)) {
+                throw new RuntimeException("Transição de status inválida: " + atual + " -> " + novoStatus);
+            }
+            if (pendente != null) {
+                coalescidas.increment();
+            }
+            return novoStatus;
+        });
+        enfileiradas.increment();
+    }
+    
+    // status ainda nao gravado do pedido (para a leitura devolver o que foi aceito)
+    public Optional<Pedido.StatusPedido> statusPendente(Long id) {
+        return Optional.ofNullable(pendentes.get(id));
+    }
+    
+    public int quantidadePendente() {
+        return pendentes.size();
+    }
+    
+    // transicoes so avancam (PENDENTE -> PROCESSANDO -> ENVIADO -> ENTREGUE, podendo pular etapas);
+    // cancelamento vale de qualquer status menos ENTREGUE; repetir o status atual nao muda nada
+    public static boolean transicaoPermitida(Pedido.StatusPedido atual, Pedido.StatusPedido novo) {
+        if (atual == novo) {
+            return true;
+        }
+        if (atual == Pedido.StatusPedido.ENTREGUE || atual == Pedido.StatusPedido.CANCELADO) {
+            return false;
+        }
+        return novo == Pedido.StatusPedido.CANCELADO || novo.ordinal() > atual.ordinal();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.pedidos.status-em-lote.intervalo-ms:200}")
+    public void descarregarAgendado() {
+        if (habilitado && !pendentes.isEmpty()) {
+            descarregar();
+        }
+    }
+    
+    // grava as mudancas pendentes em lotes de tamanho-lote; devolve quantas foram aplicadas.
+    // so leva o que ja estava na fila no inicio (com escrita constante a descarga nao prende o agendador);
+    // um lote que falha e refeito pedido a pedido e a descarga para ali (o resto fica para a proxima)
+    public long descarregar() {
+        descarga.lock();
+        try {
+            long total = 0;
+            int restantes = pendentes.size();
+            while (restantes > 0 && !pendentes.isEmpty()) {
+                Map<Long, Pedido.StatusPedido> lote = retirarLote();
+                restantes -= lote.size();
+                try {
+                    total += tempoDescarga.record(() -> transacao.execute(status -> aplicarLote(lote)));
+                    if (!tentativas.isEmpty()) {
+                        tentativas.keySet().removeAll(lote.keySet());
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Falha ao gravar lote de {} mudanças de status; gravando uma a uma", lote.size(), e);
+                    total += aplicarUmaAUma(lote);
+                    break;
+                }
+            }
+            return total;
+        } finally {
+            descarga.unlock();
+        }
+    }
+    
+    // fila descarregada depois que o servidor web parou de receber requisicoes e antes de o pool fechar
+    @PreDestroy
+    public void encerrar() {
+        encerrado = true;
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        long aplicadasNoEncerramento = descarregar();
+        if (!pendentes.isEmpty()) {
+            log.error("{} mudanças de status não gravadas no encerramento: {}", pendentes.size(), pendentes);
+        } else {
+            log.info("{} mudanças de status gravadas no encerramento", aplicadasNoEncerramento);
+        }
+    }
+    
+    // isola a mudanca que faz o lote falhar: as outras sao gravadas e so ela volta para a fila
+    private long aplicarUmaAUma(Map<Long, Pedido.StatusPedido> lote) {
+        long total = 0;
+        for (Map.Entry<Long, Pedido.StatusPedido> mudanca : lote.entrySet()) {
+            try {
+                total += transacao.execute(status -> aplicarLote(Map.of(mudanca.getKey(), mudanca.getValue())));
+                tentativas.remove(mudanca.getKey());
+            } catch (RuntimeException e) {
+                registrarFalha(mudanca.getKey(), mudanca.getValue(), e);
+            }
+        }
+        return total;
+    }
+    
+    // volta para a fila (sem passar por cima de mudanca mais nova do mesmo pedido) ate max-tentativas descargas;
+    // depois disso a mudanca e descartada para nao ser tentada para sempre
+    private void registrarFalha(Long id, Pedido.StatusPedido novoStatus, RuntimeException erro) {
+        int tentativa = tentativas.merge(id, 1, Integer::sum);
+        if (tentativa < maxTentativas) {
+            if (pendentes.putIfAbsent(id, novoStatus) != null) {
+                tentativas.remove(id);
+            }
+            log.warn("Mudança de status do pedido {} para {} falhou (tentativa {} de {})",
+                id, novoStatus, tentativa, maxTentativas, erro);
+            return;
+        }
+        tentativas.remove(id);
+        falhas.increment();
+        log.error("Mudança de status do pedido {} para {} descartada depois de {} tentativas",
+            id, novoStatus, tentativa, erro);
+    }
+    
+    // remove da fila ate tamanho-lote pedidos; remove(chave) pega a mudanca mais nova de cada um
+    private Map<Long, Pedido.StatusPedido> retirarLote() {
+        Map<Long, Pedido.StatusPedido> lote = new LinkedHashMap<>();
+        Iterator<Long> ids = pendentes.keySet().iterator();
+        while (ids.hasNext() && lote.size() < tamanhoLote) {
+            Long id = ids.next();
+            Pedido.StatusPedido novoStatus = pendentes.remove(id);
+            if (novoStatus != null) {
+                lote.put(id, novoStatus);
+            }
+        }
+        return lote;
+    }
+    
+    private int aplicarLote(Map<Long, Pedido.StatusPedido> lote) {
+        // linhas travadas ate o commit: nenhuma alteracao manual se cruza com o lote
+        List<Object[]> linhas = pedidoRepository.buscarEstadoParaAtualizacao(lote.keySet());
+        
+        Map<Pedido.StatusPedido, Map<Pedido.StatusPedido, List<Long>>> grupos = new EnumMap<>(Pedido.StatusPedido.class);
+        // resumos em ordem de usuario, como no cancelamento automatico e na importacao (sem deadlock entre eles)
+        Map<Long, BigDecimal> valorPorUsuario = new TreeMap<>();
+        Map<Long, Long> quantidadePorUsuario = new HashMap<>();
+        int invalidas = 0;
+        for (Object[] linha : linhas) {
+            Long id = (Long) linha[0];
+            Long usuarioId = (Long) linha[1];
+            BigDecimal valor = (BigDecimal) linha[2];
+            Pedido.StatusPedido anterior = (Pedido.StatusPedido) linha[3];
+            Pedido.StatusPedido novo = lote.get(id);
+            if (anterior == novo) {
+                continue;
+            }
+            if (anterior == null || !transicaoPermitida(anterior, novo)) {
+                invalidas++;
+                log.debug("Mudança de status do pedido {} descartada: {} -> {}", id, anterior, novo);
+                continue;
+            }
+            grupos.computeIfAbsent(anterior, s -> new EnumMap<>(Pedido.StatusPedido.class))
+                .computeIfAbsent(novo, s -> new ArrayList<>())
+                .add(id);
+            valorPorUsuario.merge(usuarioId, ResumoPedidosService.valorContabilizado(novo, valor)
+                .subtract(ResumoPedidosService.valorContabilizado(anterior, valor)), BigDecimal::add);
+            quantidadePorUsuario.merge(usuarioId, ResumoPedidosService.quantidadeContabilizada(novo)
+                - ResumoPedidosService.quantidadeContabilizada(anterior), Long::sum);
+        }
+        
+        int atualizados = 0;
+        for (Map.Entry<Pedido.StatusPedido, Map<Pedido.StatusPedido, List<Long>>> porAnterior : grupos.entrySet()) {
+            for (Map.Entry<Pedido.StatusPedido, List<Long>> porNovo : porAnterior.getValue().entrySet()) {
+                List<Long> ids = porNovo.getValue();
+                int quantidade = pedidoRepository.atualizarStatusEmLote(ids, porAnterior.getKey(), porNovo.getKey());
+                if (quantidade != ids.size()) {
+                    throw new IllegalStateException("Lote de status inconsistente: " + ids.size() + " travados, "
+                        + quantidade + " atualizados");
+                }
+                contadoresStatus.registrarTransicoesAposCommit(porAnterior.getKey(), porNovo.getKey(), quantidade);
+                atualizados += quantidade;
+            }
+        }
+        
+        for (Map.Entry<Long, BigDecimal> e : valorPorUsuario.entrySet()) {
+            long deltaQuantidade = quantidadePorUsuario.get(e.getKey());
+            if (e.getValue().signum() != 0 || deltaQuantidade != 0) {
+                resumoPedidos.registrarDiferenca(e.getKey(), e.getValue(), deltaQuantidade, null);
+            }
+        }
+        
+        // pedidos apagados ou arquivados antes da descarga nao voltam na consulta
+        int descartadasNoLote = invalidas + (lote.size() - linhas.size());
+        int aplicadasNoLote = atualizados;
+        AposCommit.executar(() -> {
+            aplicadas.increment(aplicadasNoLote);
+            descartadas.increment(descartadasNoLote);
+        });
+        return atualizados;
+    }
+}
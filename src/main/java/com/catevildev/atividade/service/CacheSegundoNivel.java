@@ -0,0 +1,24 @@
+package com.catevildev.atividade.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// eviccao explicita do cache de segundo nivel depois do commit. O read-write do Hibernate ja atualiza a entrada
+// quando a escrita passa pela entidade, mas UPDATE/DELETE direto (estoque, exclusao) so invalida a regiao
+// durante a transacao; tirar a entrada depois do commit garante que a proxima leitura busque a linha nova.
+// As consultas em cache sao invalidadas pelo Hibernate pela tabela alterada (regiao de timestamps)
+@Component
+public class CacheSegundoNivel {
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    public void evictarAposCommit(Class<?> entidade, Long id) {
+        AposCommit.executar(() -> evictar(entidade, id));
+    }
+    
+    public void evictar(Class<?> entidade, Long id) {
+        entityManagerFactory.getCache().evict(entidade, id);
+    }
+}
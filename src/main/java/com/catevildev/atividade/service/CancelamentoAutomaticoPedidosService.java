@@ -0,0 +1,199 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.repository.PedidoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// cancela em segundo plano os pedidos PENDENTE antigos, em lotes de tamanho fixo.
+// cada lote e uma transacao curta: trava as linhas do lote (SELECT ... FOR UPDATE), cancela com um
+// unico UPDATE e ajusta o resumo por usuario; entre os lotes os bloqueios sao liberados.
+// pedidos com mudanca de status aceita na fila de gravacao em lote ficam de fora: o cliente ja mexeu no pedido.
+@Service
+public class CancelamentoAutomaticoPedidosService {
+    
+    private static final Logger log = LoggerFactory.getLogger(CancelamentoAutomaticoPedidosService.class);
+    
+    private final PedidoRepository pedidoRepository;
+    
+    private final ResumoPedidosService resumoPedidos;
+    
+    private final ContadoresStatusPedido contadoresStatus;
+    
+    private final AtualizacaoStatusPedidosService atualizacaoStatus;
+    
+    private final TransactionTemplate transacao;
+    
+    private final Counter cancelados;
+    
+    private final Timer tempoLote;
+    
+    @Value("${app.pedidos.cancelamento-automatico.idade-dias:30}")
+    private int idadeDias;
+    
+    @Value("${app.pedidos.cancelamento-automatico.tamanho-lote:500}")
+    private int tamanhoLote;
+    
+    // folga entre lotes para as transacoes da API nao ficarem na fila dos bloqueios
+    @Value("${app.pedidos.cancelamento-automatico.pausa-entre-lotes:100ms}")
+    private Duration pausaEntreLotes;
+    
+    // evita duas execucoes ao mesmo tempo (agendada e manual)
+    private final AtomicBoolean executando = new AtomicBoolean();
+    
+    public CancelamentoAutomaticoPedidosService(PedidoRepository pedidoRepository,
+                                                ResumoPedidosService resumoPedidos,
+                                                ContadoresStatusPedido contadoresStatus,
+                                                AtualizacaoStatusPedidosService atualizacaoStatus,
+                                                PlatformTransactionManager transactionManager,
+                                                MeterRegistry registry) {
+        this.pedidoRepository = pedidoRepository;
+        this.resumoPedidos = resumoPedidos;
+        this.contadoresStatus = contadoresStatus;
+        this.atualizacaoStatus = atualizacaoStatus;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.cancelados = Counter.builder("app.pedidos.cancelamento.automatico")
+            .description("Pedidos pendentes cancelados automaticamente")
+            .register(registry);
+        this.tempoLote = Timer.builder("app.pedidos.cancelamento.automatico.lote")
+            .description("Tempo de cada lote do cancelamento automático")
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+    
+    // cancelamento agendado (por padrao a cada hora)
+    @Scheduled(cron = "${app.pedidos.cancelamento-automatico.cron:0 30 * * * *}")
+    public void cancelarAgendado() {
+        cancelarPendentesAntigos();
+    }
+    
+    // cancela lote a lote ate nao sobrar pendente antigo; devolve quantos pedidos foram cancelados
+    public long cancelarPendentesAntigos() {
+        if (!executando.compareAndSet(false, true)) {
+            log.info("Cancelamento automático de pedidos já em execução");
+            return 0;
+        }
+        try {
+            // mudancas ja aceitas entram no banco antes: um pedido que saiu de PENDENTE nao e cancelado
+            if (atualizacaoStatus.isHabilitado()) {
+                atualizacaoStatus.descarregar();
+            }
+            LocalDateTime dataLimite = LocalDateTime.now().minusDays(idadeDias);
+            long total = 0;
+            int lotes = 0;
+            Lote lote = new Lote(0, 0L);
+            do {
+                Long ultimoId = lote.ultimoId;
+                lote = tempoLote.record(() -> transacao.execute(status -> cancelarLote(dataLimite, ultimoId)));
+                total += lote.cancelados;
+                lotes++;
+                log.debug("Cancelamento automático: lote {} com {} pedidos ({} no total)", lotes, lote.cancelados, total);
+            } while (lote.selecionados == tamanhoLote && pausar());
+            
+            if (total > 0) {
+                log.info("{} pedidos pendentes anteriores a {} cancelados em {} lotes", total, dataLimite, lotes);
+            }
+            return total;
+        } finally {
+            executando.set(false);
+        }
+    }
+    
+    private Lote cancelarLote(LocalDateTime dataLimite, Long ultimoId) {
+        List<Object[]> linhas = pedidoRepository.buscarLoteParaTransicao(
+            Pedido.StatusPedido.PENDENTE, dataLimite, ultimoId, Limit.of(tamanhoLote));
+        if (linhas.isEmpty()) {
+            return new Lote(0, ultimoId);
+        }
+        Long ultimoIdDoLote = (Long) linhas.get(linhas.size() - 1)[0];
+        
+        List<Long> ids = new ArrayList<>(linhas.size());
+        // TreeMap: os resumos sao atualizados em ordem de usuario, a mesma da gravacao de status em lote e da
+        // importacao; em ordem de hash, duas transacoes podem travar os mesmos resumos em ordens opostas
+        Map<Long, BigDecimal> valorPorUsuario = new TreeMap<>();
+        Map<Long, Long> quantidadePorUsuario = new HashMap<>();
+        for (Object[] linha : linhas) {
+            Long id = (Long) linha[0];
+            // a mudanca aceita e gravada pela fila (o pedido continua travado por este lote ate o commit);
+            // o proximo lote segue depois do ultimo id, entao o pedido nao volta nesta execucao
+            if (atualizacaoStatus.statusPendente(id).isPresent()) {
+                continue;
+            }
+            ids.add(id);
+            Long usuarioId = (Long) linha[1];
+            valorPorUsuario.merge(usuarioId,
+                ResumoPedidosService.valorContabilizado(Pedido.StatusPedido.PENDENTE, (BigDecimal) linha[2]), BigDecimal::add);
+            quantidadePorUsuario.merge(usuarioId, 1L, Long::sum);
+        }
+        if (ids.isEmpty()) {
+            return new Lote(linhas.size(), ultimoIdDoLote);
+        }
+        
+        // as linhas estao travadas por esta transacao, entao o UPDATE alcanca todas
+        int atualizados = pedidoRepository.atualizarStatusEmLote(
+            ids, Pedido.StatusPedido.PENDENTE, Pedido.StatusPedido.CANCELADO);
+        if (atualizados != ids.size()) {
+            throw new IllegalStateException("Lote de cancelamento inconsistente: " + ids.size() + " selecionados, "
+                + atualizados + " cancelados");
+        }
+        
+        // pedido cancelado sai do valor total e da quantidade do usuario
+        for (Map.Entry<Long, BigDecimal> e : valorPorUsuario.entrySet()) {
+            resumoPedidos.registrarDiferenca(e.getKey(), e.getValue().negate(),
+                -quantidadePorUsuario.get(e.getKey()), null);
+        }
+        contadoresStatus.registrarTransicoesAposCommit(Pedido.StatusPedido.PENDENTE, Pedido.StatusPedido.CANCELADO, atualizados);
+        AposCommit.executar(() -> cancelados.increment(atualizados));
+        return new Lote(linhas.size(), ultimoIdDoLote, atualizados);
+    }
+    
+    // false se a thread foi interrompida (desligamento): para no lote atual, o resto fica para a proxima execucao
+    private boolean pausar() {
+        if (pausaEntreLotes.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaEntreLotes.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    // resultado de um lote: linhas travadas, ultimo id travado (inicio do proximo lote) e pedidos cancelados
+    private static class Lote {
+        private final int selecionados;
+        private final Long ultimoId;
+        private final int cancelados;
+        
+        Lote(int selecionados, Long ultimoId) {
+            this(selecionados, ultimoId, 0);
+        }
+        
+        Lote(int selecionados, Long ultimoId, int cancelados) {
+            this.selecionados = selecionados;
+            this.ultimoId = ultimoId;
+            this.cancelados = cancelados;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.repository.PedidoArquivadoRepository;
+import com.catevildev.atividade.repository.PedidoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// quantidade de pedidos por status em memoria, atualizada depois do commit de cada escrita.
+// a reconciliacao periodica corrige desvios (ex.: uma escrita que confirmou entre a contagem e o ajuste).
+@Component
+public class ContadoresStatusPedido {
+    
+    private static final Logger log = LoggerFactory.getLogger(ContadoresStatusPedido.class);
+    
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    
+    @Autowired
+    private PedidoArquivadoRepository pedidoArquivadoRepository;
+    
+    private final Map<Pedido.StatusPedido, LongAdder> contadores = new EnumMap<>(Pedido.StatusPedido.class);
+    
+    public ContadoresStatusPedido() {
+        for (Pedido.StatusPedido status : Pedido.StatusPedido.values()) {
+            contadores.put(status, new LongAdder());
+        }
+    }
+    
+    // pedido novo
+    public void registrarNovoAposCommit(Pedido.StatusPedido status) {
+        AposCommit.executar(() -> somar(status, 1));
+    }
+    
+    // varios pedidos novos do mesmo status
+    public void registrarNovosAposCommit(Pedido.StatusPedido status, long quantidade) {
+        AposCommit.executar(() -> somar(status, quantidade));
+    }
+    
+    // mudanca de status
+    public void registrarTransicaoAposCommit(Pedido.StatusPedido anterior, Pedido.StatusPedido atual) {
+        if (anterior == atual) {
+            return;
+        }
+        AposCommit.executar(() -> {
+            somar(anterior, -1);
+            somar(atual, 1);
+        });
+    }
+    
+    // varios pedidos mudando do mesmo status para o mesmo status (atualizacao em lote)
+    public void registrarTransicoesAposCommit(Pedido.StatusPedido anterior, Pedido.StatusPedido atual, long quantidade) {
+        if (anterior == atual || quantidade == 0) {
+            return;
+        }
+        AposCommit.executar(() -> {
+            somar(anterior, -quantidade);
+            somar(atual, quantidade);
+        });
+    }
+    
+    // pedido apagado
+    public void registrarRemocaoAposCommit(Pedido.StatusPedido status) {
+        AposCommit.executar(() -> somar(status, -1));
+    }
+    
+    public long contar(Pedido.StatusPedido status) {
+        return contadores.get(status).sum();
+    }
+    
+    // todas as contagens mais o total, sem consultar o banco
+    public Map<String, Long> contarTodos() {
+        Map<String, Long> contagens = new LinkedHashMap<>();
+        long total = 0;
+        for (Map.Entry<Pedido.StatusPedido, LongAdder> e : contadores.entrySet()) {
+            long valor = e.getValue().sum();
+            contagens.put(e.getKey().name(), valor);
+            total += valor;
+        }
+        contagens.put("TOTAL", total);
+        return contagens;
+    }
+    
+    // alinha os contadores com o banco (na subida e periodicamente); pedidos arquivados continuam contando
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.pedidos.estatisticas.reconciliacao-ms:60000}",
+               initialDelayString = "${app.pedidos.estatisticas.reconciliacao-ms:60000}")
+    public void reconciliar() {
+        Map<Pedido.StatusPedido, Long> banco = new EnumMap<>(Pedido.StatusPedido.class);
+        somarContagens(banco, pedidoRepository.contarAgrupadoPorStatus());
+        somarContagens(banco, pedidoArquivadoRepository.contarAgrupadoPorStatus());
+        
+        for (Map.Entry<Pedido.StatusPedido, LongAdder> e : contadores.entrySet()) {
+            long esperado = banco.getOrDefault(e.getKey(), 0L);
+            long diferenca = esperado - e.getValue().sum();
+            if (diferenca != 0) {
+                e.getValue().add(diferenca);
+                log.debug("Contador de pedidos {} ajustado em {}", e.getKey(), diferenca);
+            }
+        }
+    }
+    
+    private static void somarContagens(Map<Pedido.StatusPedido, Long> banco, List<Object[]> linhas) {
+        for (Object[] linha : linhas) {
+            if (linha[0] != null) {
+                banco.merge((Pedido.StatusPedido) linha[0], ((Number) linha[1]).longValue(), Long::sum);
+            }
+        }
+    }
+    
+    private void somar(Pedido.StatusPedido status, long quantidade) {
+        if (status != null) {
+            contadores.get(status).add(quantidade);
+        }
+    }
+}
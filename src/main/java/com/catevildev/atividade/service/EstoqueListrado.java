@@ -0,0 +1,127 @@
+package com.catevildev.atividade.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// saldo de estoque em memoria dividido em faixas para reduzir disputa entre threads.
+// cada faixa so e decrementada por CAS enquanto tiver saldo, entao o total nunca fica negativo.
+class EstoqueListrado {
+    
+    // 16 ints = 64 bytes: cada faixa fica na sua linha de cache
+    private static final int ESPACAMENTO = 16;
+    
+    private final int faixas;
+    private final AtomicIntegerArray saldos;
+    // retiradas de mais de uma unidade em andamento: o que elas pegaram pode voltar se nao completarem
+    private final AtomicInteger retiradasParciais = new AtomicInteger();
+    private volatile boolean ativo = true;
+    
+    EstoqueListrado() {
+        // potencia de 2 >= numero de processadores (maximo 64)
+        int processadores = Runtime.getRuntime().availableProcessors();
+        int quantidadeFaixas = 1;
+        while (quantidadeFaixas < processadores && quantidadeFaixas < 64) {
+            quantidadeFaixas <<= 1;
+        }
+        this.faixas = quantidadeFaixas;
+        this.saldos = new AtomicIntegerArray(faixas * ESPACAMENTO);
+    }
+    
+    // retira a quantidade; so responde que falta saldo quando nenhuma retirada parcial de outra thread
+    // estava segurando unidades que iam voltar (senao a falha seria so porque o saldo estava emprestado)
+    boolean retirar(int quantidade) {
+        while (true) {
+            if (tentarRetirar(quantidade)) {
+                return true;
+            }
+            if (retiradasParciais.get() == 0) {
+                // as devolucoes que estavam em andamento ja voltaram para as faixas
+                return tentarRetirar(quantidade);
+            }
+            Thread.onSpinWait();
+        }
+    }
+    
+    // tenta retirar a quantidade, comecando por uma faixa aleatoria; devolve o que pegou se nao completar
+    private boolean tentarRetirar(int quantidade) {
+        if (quantidade == 1) {
+            return retirarDasFaixas(1);
+        }
+        retiradasParciais.incrementAndGet();
+        try {
+            return retirarDasFaixas(quantidade);
+        } finally {
+            retiradasParciais.decrementAndGet();
+        }
+    }
+    
+    private boolean retirarDasFaixas(int quantidade) {
+        int inicio = ThreadLocalRandom.current().nextInt(faixas);
+        int restante = quantidade;
+        int[] retirados = null;
+        
+        for (int i = 0; i < faixas && restante > 0; i++) {
+            int faixa = (inicio + i) & (faixas - 1);
+            int posicao = faixa * ESPACAMENTO;
+            while (true) {
+                int saldo = saldos.get(posicao);
+                if (saldo == 0) {
+                    break;
+                }
+                int retirar = Math.min(saldo, restante);
+                if (saldos.compareAndSet(posicao, saldo, saldo - retirar)) {
+                    restante -= retirar;
+                    if (restante > 0) {
+                        if (retirados == null) {
+                            retirados = new int[faixas];
+                        }
+                        retirados[faixa] += retirar;
+                    }
+                    break;
+                }
+            }
+        }
+        if (restante == 0) {
+            return true;
+        }
+        if (retirados != null) {
+            for (int faixa = 0; faixa < faixas; faixa++) {
+                if (retirados[faixa] > 0) {
+                    saldos.addAndGet(faixa * ESPACAMENTO, retirados[faixa]);
+                }
+            }
+        }
+        return false;
+    }
+    
+    void devolver(int quantidade) {
+        int faixa = ThreadLocalRandom.current().nextInt(faixas);
+        saldos.addAndGet(faixa * ESPACAMENTO, quantidade);
+    }
+    
+    // zera todas as faixas e retorna o total retirado
+    int drenar() {
+        int total = 0;
+        for (int faixa = 0; faixa < faixas; faixa++) {
+            total += saldos.getAndSet(faixa * ESPACAMENTO, 0);
+        }
+        return total;
+    }
+    
+    int disponivel() {
+        int total = 0;
+        for (int faixa = 0; faixa < faixas; faixa++) {
+            total += saldos.get(faixa * ESPACAMENTO);
+        }
+        return total;
+    }
+    
+    boolean isAtivo() {
+        return ativo;
+    }
+    
+    void desativar() {
+        ativo = false;
+    }
+}
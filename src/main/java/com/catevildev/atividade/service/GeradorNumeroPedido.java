@@ -0,0 +1,7 @@
+package com.catevildev.atividade.service;
+
+// gera o numero unico de cada pedido; para trocar a estrategia basta registrar outro bean com @Primary
+public interface GeradorNumeroPedido {
+    
+    String proximoNumero();
+}
@@ -0,0 +1,132 @@
+package com.catevildev.atividade.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// gerador estilo snowflake: 41 bits de tempo (ms desde 2025-01-01), 10 bits de no e 12 bits de sequencia.
+// sem lock: o tempo e a sequencia ficam num unico AtomicLong atualizado por CAS.
+// se a sequencia estoura no mesmo ms, ou se o relogio volta, o tempo logico avanca sozinho,
+// entao os ids de um no sao sempre crescentes e nunca se repetem.
+// cada instancia da aplicacao precisa de um app.pedidos.no-id diferente (0 a 1023); sem ele a aplicacao nao sobe.
+// na subida o tempo logico comeca depois do maior numero ja gravado: se o relogio da maquina estiver atras
+// (acertado para tras, instancia movida de maquina), os numeros novos nao repetem os antigos.
+@Component
+public class GeradorNumeroPedidoSnowflake implements GeradorNumeroPedido, SmartInitializingSingleton {
+    
+    static final long EPOCA = 1735689600000L;
+    static final int BITS_NO = 10;
+    static final int BITS_SEQUENCIA = 12;
+    static final long MAXIMO_NO = (1L << BITS_NO) - 1;
+    static final long MASCARA_SEQUENCIA = (1L << BITS_SEQUENCIA) - 1;
+    
+    private static final String PREFIXO = "PED";
+    
+    // numeros gravados a partir de um valor, na tabela quente e no arquivo. A faixa e servida pelo indice unico de
+    // numero_pedido; ':' e o caractere depois de '9', entao so entram numeros que comecam por digito
+    private static final String NUMEROS_A_PARTIR_DE =
+        "SELECT numero_pedido FROM pedidos WHERE numero_pedido >= ? AND numero_pedido < 'PED:' " +
+        "UNION ALL SELECT numero_pedido FROM pedidos_arquivados WHERE numero_pedido >= ? AND numero_pedido < 'PED:'";
+    
+    private final long noDeslocado;
+    private final LongSupplier relogio;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+    
+    // (tempo logico << BITS_SEQUENCIA) | sequencia do ultimo id emitido
+    private final AtomicLong estado = new AtomicLong();
+    
+    // sem valor padrao: duas instancias com o mesmo no gerariam numeros repetidos
+    @Autowired
+    public GeradorNumeroPedidoSnowflake(@Value("${app.pedidos.no-id:#{null}}") Long noId,
+                                        ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this(exigirNo(noId), System::currentTimeMillis, jdbcTemplate);
+    }
+    
+    GeradorNumeroPedidoSnowflake(long noId) {
+        this(noId, System::currentTimeMillis, null);
+    }
+    
+    GeradorNumeroPedidoSnowflake(long noId, LongSupplier relogio) {
+        this(noId, relogio, null);
+    }
+    
+    GeradorNumeroPedidoSnowflake(long noId, LongSupplier relogio, ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        if (noId < 0 || noId > MAXIMO_NO) {
+            throw new IllegalArgumentException("app.pedidos.no-id deve estar entre 0 e " + MAXIMO_NO + ": " + noId);
+        }
+        this.noDeslocado = noId << BITS_SEQUENCIA;
+        this.relogio = relogio;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    private static long exigirNo(Long noId) {
+        if (noId == null) {
+            throw new IllegalStateException("app.pedidos.no-id não configurado: defina um id de nó único por instância "
+                + "(0 a " + MAXIMO_NO + ")");
+        }
+        return noId;
+    }
+    
+    // roda depois de criar os beans (o schema ja existe) e antes do servidor web aceitar requisicoes.
+    // so os numeros com tempo logico a partir do relogio atual podem colidir com os novos; com o relogio certo a
+    // faixa vem vazia. Com o mesmo numero de digitos a ordem do texto e a dos numeros; um numero com mais digitos
+    // que comeca por um digito menor (na virada de 18 para 19 digitos) fica de fora
+    @Override
+    public void afterSingletonsInstantiated() {
+        JdbcTemplate jdbc = jdbcTemplate != null ? jdbcTemplate.getIfAvailable() : null;
+        if (jdbc == null) {
+            return;
+        }
+        long agora = relogio.getAsLong() - EPOCA;
+        String inicio = PREFIXO + (agora << (BITS_NO + BITS_SEQUENCIA));
+        for (String numero : jdbc.queryForList(NUMEROS_A_PARTIR_DE, String.class, inicio, inicio)) {
+            continuarDepoisDe(numero);
+        }
+    }
+    
+    // numeros que nao sao PED + um long (informados por fora) sao ignorados
+    void continuarDepoisDe(String numero) {
+        if (numero == null || !numero.startsWith(PREFIXO) || numero.length() == PREFIXO.length()) {
+            return;
+        }
+        try {
+            long id = Long.parseLong(numero.substring(PREFIXO.length()));
+            if (id >= 0) {
+                continuarDepoisDe(id);
+            }
+        } catch (NumberFormatException e) {
+            // fora do formato
+        }
+    }
+    
+    // o proximo id tem tempo logico maior que o do id informado (de qualquer no)
+    void continuarDepoisDe(long id) {
+        long tempo = id >>> (BITS_NO + BITS_SEQUENCIA);
+        estado.accumulateAndGet((tempo << BITS_SEQUENCIA) | MASCARA_SEQUENCIA, Math::max);
+    }
+    
+    @Override
+    public String proximoNumero() {
+        return PREFIXO + proximoId();
+    }
+    
+    public long proximoId() {
+        long agora = relogio.getAsLong() - EPOCA;
+        long atual;
+        long proximo;
+        do {
+            atual = estado.get();
+            // relogio andou: sequencia volta a zero; senao soma 1 (o estouro passa para o tempo)
+            proximo = agora > (atual >>> BITS_SEQUENCIA) ? agora << BITS_SEQUENCIA : atual + 1;
+        } while (!estado.compareAndSet(atual, proximo));
+        
+        long tempo = proximo >>> BITS_SEQUENCIA;
+        return (tempo << (BITS_NO + BITS_SEQUENCIA)) | noDeslocado | (proximo & MASCARA_SEQUENCIA);
+    }
+}
@@ -0,0 +1,203 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// indice invertido em memoria sobre nome, descricao e categoria dos produtos
+@Component
+public class IndiceBuscaProdutos extends IndiceEmMemoria<Produto> {
+    
+    private static final float PESO_NOME = 3f;
+    private static final float PESO_CATEGORIA = 2f;
+    private static final float PESO_DESCRICAO = 1f;
+    
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    
+    // termo -> (id do produto -> peso do termo no produto), ordenado para busca por prefixo
+    private final NavigableMap<String, Map<Long, Float>> termos = new TreeMap<>();
+    
+    // id do produto -> copia do produto e termos indexados
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    
+    // ajusta o estoque da copia indexada depois do commit (reservas feitas com UPDATE direto)
+    public void ajustarEstoqueAposCommit(Long id, int delta) {
+        AposCommit.executar(() -> ajustarEstoque(id, delta));
+    }
+    
+    public void ajustarEstoque(Long id, int delta) {
+        lock.writeLock().lock();
+        try {
+            Documento doc = documentos.get(id);
+            if (doc != null && doc.produto.getQuantidadeEstoque() != null) {
+                // troca a copia em vez de alterar a que pode estar sendo serializada
+                Produto copia = copiar(doc.produto);
+                copia.setQuantidadeEstoque(doc.produto.getQuantidadeEstoque() + delta);
+                documentos.put(id, new Documento(copia, doc.termos));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // como buscar(termo, limite), mas espera o indice carregar por ate o tempo informado
+    // (IndiceIndisponivelException se nao carregar)
+    public List<Produto> buscar(String termo, int limite, long esperaMs) {
+        return lerQuandoPronto(esperaMs, () -> buscar(termo, limite));
+    }
+    
+    // busca produtos ativos que tenham todas as palavras do termo (como palavra inteira ou prefixo),
+    // ordenados por relevancia
+    public List<Produto> buscar(String termo, int limite) {
+        List<String> tokens = NormalizadorTexto.tokenizar(termo);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> pontuacao = null;
+            for (String token : tokens) {
+                Map<Long, Float> parcial = pontuarToken(token);
+                if (pontuacao == null) {
+                    pontuacao = parcial;
+                } else {
+                    Map<Long, Float> intersecao = new HashMap<>();
+                    for (Map.Entry<Long, Float> e : pontuacao.entrySet()) {
+                        Float p = parcial.get(e.getKey());
+                        if (p != null) {
+                            intersecao.put(e.getKey(), e.getValue() + p);
+                        }
+                    }
+                    pontuacao = intersecao;
+                }
+                if (pontuacao.isEmpty()) {
+                    return List.of();
+                }
+            }
+            
+            List<Map.Entry<Long, Float>> ordenados = new ArrayList<>(pontuacao.entrySet());
+            ordenados.sort(Map.Entry.<Long, Float>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.<Long, Float>comparingByKey()));
+            
+            List<Produto> resultado = new ArrayList<>(Math.min(limite, ordenados.size()));
+            for (Map.Entry<Long, Float> e : ordenados) {
+                Produto produto = documentos.get(e.getKey()).produto;
+                if (Boolean.TRUE.equals(produto.getAtivo())) {
+                    resultado.add(produto);
+                    if (resultado.size() == limite) {
+                        break;
+                    }
+                }
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // soma o peso de cada produto para um token; palavra exata vale mais que prefixo
+    private Map<Long, Float> pontuarToken(String token) {
+        Map<Long, Float> parcial = new HashMap<>();
+        NavigableMap<String, Map<Long, Float>> faixa =
+            termos.subMap(token, true, token + Character.MAX_VALUE, false);
+        for (Map.Entry<String, Map<Long, Float>> termo : faixa.entrySet()) {
+            float fator = termo.getKey().length() == token.length()
+                ? 1f
+                : 0.5f * token.length() / termo.getKey().length();
+            for (Map.Entry<Long, Float> posting : termo.getValue().entrySet()) {
+                parcial.merge(posting.getKey(), posting.getValue() * fator, Math::max);
+            }
+        }
+        return parcial;
+    }
+    
+    @Override
+    protected List<Produto> carregarLote(long ultimoId, int tamanho) {
+        return produtoRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, Limit.of(tamanho));
+    }
+    
+    @Override
+    protected Long id(Produto produto) {
+        return produto.getId();
+    }
+    
+    @Override
+    protected boolean contem(Long id) {
+        return documentos.containsKey(id);
+    }
+    
+    @Override
+    protected void limpar() {
+        termos.clear();
+        documentos.clear();
+    }
+    
+    @Override
+    protected void adicionar(Produto produto) {
+        Map<String, Float> pesos = new HashMap<>();
+        somarPesos(pesos, produto.getNome(), PESO_NOME);
+        somarPesos(pesos, produto.getCategoria(), PESO_CATEGORIA);
+        somarPesos(pesos, produto.getDescricao(), PESO_DESCRICAO);
+        
+        for (Map.Entry<String, Float> e : pesos.entrySet()) {
+            termos.computeIfAbsent(e.getKey(), t -> new HashMap<>()).put(produto.getId(), e.getValue());
+        }
+        documentos.put(produto.getId(), new Documento(produto, pesos.keySet()));
+    }
+    
+    @Override
+    protected void retirar(Long id) {
+        Documento anterior = documentos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String termo : anterior.termos) {
+            Map<Long, Float> postings = termos.get(termo);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.isEmpty()) {
+                    termos.remove(termo);
+                }
+            }
+        }
+    }
+    
+    private static void somarPesos(Map<String, Float> pesos, String texto, float peso) {
+        for (String token : NormalizadorTexto.tokenizar(texto)) {
+            pesos.merge(token, peso, Float::sum);
+        }
+    }
+    
+    @Override
+    protected Produto copiar(Produto produto) {
+        Produto copia = new Produto(produto.getNome(), produto.getDescricao(), produto.getPreco(),
+            produto.getQuantidadeEstoque(), produto.getCategoria());
+        copia.setId(produto.getId());
+        copia.setDataCadastro(produto.getDataCadastro());
+        copia.setAtivo(produto.getAtivo());
+        return copia;
+    }
+    
+    private static class Documento {
+        private final Produto produto;
+        private final Set<String> termos;
+        
+        Documento(Produto produto, Set<String> termos) {
+            this.produto = produto;
+            this.termos = termos;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.catevildev.atividade.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// base dos indices de busca em memoria: carga em lotes por id na subida, atualizacao depois do commit
+// e as escritas que chegam no meio da reconstrucao. As subclasses guardam as estruturas de busca
+public abstract class IndiceEmMemoria<T> {
+    
+    private static final int TAMANHO_LOTE_RECONSTRUCAO = 1000;
+    
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    
+    protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // sinalizada quando a reconstrucao termina
+    private final Condition carregado = lock.writeLock().newCondition();
+    
+    // ids removidos enquanto a reconstrucao esta em andamento
+    private final Set<Long> removidosDuranteReconstrucao = new HashSet<>();
+    
+    private volatile boolean reconstruindo = true;
+    
+    // enquanto reconstroi, as buscas devem ir para o banco
+    public boolean isPronto() {
+        return !reconstruindo;
+    }
+    
+    // espera a reconstrucao terminar por ate o tempo informado; false se ainda nao terminou
+    public boolean aguardarPronto(long milissegundos) {
+        if (!reconstruindo) {
+            return true;
+        }
+        long restante = TimeUnit.MILLISECONDS.toNanos(milissegundos);
+        lock.writeLock().lock();
+        try {
+            while (reconstruindo && restante > 0) {
+                restante = carregado.awaitNanos(restante);
+            }
+            return !reconstruindo;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return !reconstruindo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // faz a leitura com o indice pronto, esperando a reconstrucao por ate o tempo informado. A conferencia e a
+    // leitura ficam sob o mesmo read lock: uma reconstrucao que comeca no meio nao entrega o indice vazio
+    protected <R> R lerQuandoPronto(long milissegundos, Supplier<R> leitura) {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(milissegundos);
+        while (true) {
+            lock.readLock().lock();
+            try {
+                if (!reconstruindo) {
+                    return leitura.get();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            long restante = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+            if (restante <= 0 || !aguardarPronto(restante)) {
+                throw new IndiceIndisponivelException("Índice de busca em carga, tente novamente");
+            }
+        }
+    }
+    
+    // carrega o indice a partir do banco, em lotes por id
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            reconstruindo = true;
+            limpar();
+            removidosDuranteReconstrucao.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        long ultimoId = 0L;
+        int total = 0;
+        List<T> lote;
+        do {
+            lote = carregarLote(ultimoId, TAMANHO_LOTE_RECONSTRUCAO);
+            lock.writeLock().lock();
+            try {
+                for (T entidade : lote) {
+                    // se ja foi indexado por uma escrita concorrente, a versao dela e mais nova
+                    Long id = id(entidade);
+                    if (!contem(id) && !removidosDuranteReconstrucao.contains(id)) {
+                        adicionar(copiar(entidade));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!lote.isEmpty()) {
+                ultimoId = id(lote.get(lote.size() - 1));
+                total += lote.size();
+            }
+        } while (lote.size() == TAMANHO_LOTE_RECONSTRUCAO);
+        
+        lock.writeLock().lock();
+        try {
+            removidosDuranteReconstrucao.clear();
+            reconstruindo = false;
+            carregado.signalAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("{} carregado com {} registros", getClass().getSimpleName(), total);
+    }
+    
+    // indexa depois do commit da transacao atual
+    public void indexarAposCommit(T entidade) {
+        T copia = copiar(entidade);
+        AposCommit.executar(() -> indexar(copia));
+    }
+    
+    // remove do indice depois do commit da transacao atual
+    public void removerAposCommit(Long id) {
+        AposCommit.executar(() -> remover(id));
+    }
+    
+    public void indexar(T entidade) {
+        lock.writeLock().lock();
+        try {
+            retirar(id(entidade));
+            adicionar(entidade);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remover(Long id) {
+        lock.writeLock().lock();
+        try {
+            retirar(id);
+            if (reconstruindo) {
+                removidosDuranteReconstrucao.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // proximo lote do banco com id maior que ultimoId, em ordem de id
+    protected abstract List<T> carregarLote(long ultimoId, int tamanho);
+    
+    protected abstract Long id(T entidade);
+    
+    // copia desacoplada da entidade gerenciada
+    protected abstract T copiar(T entidade);
+    
+    // os metodos abaixo sao chamados com o write lock
+    protected abstract boolean contem(Long id);
+    
+    protected abstract void adicionar(T entidade);
+    
+    protected abstract void retirar(Long id);
+    
+    protected abstract void limpar();
+}
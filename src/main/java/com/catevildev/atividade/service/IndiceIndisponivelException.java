@@ -0,0 +1,9 @@
+package com.catevildev.atividade.service;
+
+// o indice de busca ainda esta carregando; o controller responde 503 para o cliente tentar de novo
+public class IndiceIndisponivelException extends RuntimeException {
+    
+    public IndiceIndisponivelException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -0,0 +1,220 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.entity.Usuario;
+import com.catevildev.atividade.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// indice de trigramas em memoria para busca por substring em nome e email dos usuarios
+@Component
+public class IndiceTrigramasUsuarios extends IndiceEmMemoria<Usuario> {
+    
+    // o texto e indexado com dois caracteres a mais no fim: toda ocorrencia de um termo de 1 ou 2 letras,
+    // ate no final do texto, vira o comeco de algum trigrama
+    private static final String FIM = "\u0000\u0000";
+    
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    
+    // trigrama -> ids dos usuarios que o contem, separado por campo; ordenado para busca por prefixo
+    private final NavigableMap<String, Set<Long>> trigramasNome = new TreeMap<>();
+    private final NavigableMap<String, Set<Long>> trigramasEmail = new TreeMap<>();
+    
+    // id do usuario -> copia do usuario com os textos normalizados
+    private final NavigableMap<Long, Documento> documentos = new TreeMap<>();
+    
+    // usuarios cujo nome (e opcionalmente email) contem o termo, com id maior que ultimoId,
+    // ordenados por id e limitados a quantidade pedida
+    public List<Usuario> buscar(String termo, boolean incluirEmail, long ultimoId, int limite) {
+        if (limite <= 0) {
+            return List.of();
+        }
+        String busca = NormalizadorTexto.normalizar(termo);
+        
+        lock.readLock().lock();
+        try {
+            TreeSet<Long> encontrados = new TreeSet<>();
+            if (busca.isEmpty()) {
+                // termo vazio: todos, a partir do cursor
+                for (Long id : documentos.tailMap(ultimoId, false).keySet()) {
+                    if (encontrados.size() == limite) {
+                        break;
+                    }
+                    encontrados.add(id);
+                }
+            } else if (busca.length() < 3) {
+                // termo curto nao forma trigrama: junta os trigramas que comecam por ele
+                coletarPorPrefixo(trigramasNome, busca, ultimoId, limite, encontrados);
+                if (incluirEmail) {
+                    coletarPorPrefixo(trigramasEmail, busca, ultimoId, limite, encontrados);
+                }
+            } else {
+                List<String> trigramas = trigramas(busca);
+                coletar(trigramasNome, trigramas, busca, false, ultimoId, limite, encontrados);
+                if (incluirEmail) {
+                    coletar(trigramasEmail, trigramas, busca, true, ultimoId, limite, encontrados);
+                }
+            }
+            
+            List<Usuario> resultado = new ArrayList<>(encontrados.size());
+            for (Long id : encontrados) {
+                resultado.add(documentos.get(id).usuario);
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // todo usuario de um trigrama que comeca pelo termo contem o termo: nao precisa conferir o texto
+    private static void coletarPorPrefixo(NavigableMap<String, Set<Long>> indice, String busca, long ultimoId,
+                                          int limite, TreeSet<Long> encontrados) {
+        for (Set<Long> ids : indice.subMap(busca, true, busca + Character.MAX_VALUE, false).values()) {
+            for (Long id : ids) {
+                guardar(encontrados, id, ultimoId, limite);
+            }
+        }
+    }
+    
+    // intersecta as listas dos trigramas (da menor para a maior) e confirma a substring
+    private void coletar(NavigableMap<String, Set<Long>> indice, List<String> trigramas, String busca, boolean email,
+                         long ultimoId, int limite, TreeSet<Long> encontrados) {
+        List<Set<Long>> listas = new ArrayList<>(trigramas.size());
+        for (String trigrama : trigramas) {
+            Set<Long> ids = indice.get(trigrama);
+            if (ids == null) {
+                return;
+            }
+            listas.add(ids);
+        }
+        listas.sort(Comparator.comparingInt(Collection::size));
+        
+        for (Long id : listas.get(0)) {
+            if (id <= ultimoId || encontrados.contains(id)
+                    || (encontrados.size() == limite && id > encontrados.last())) {
+                continue;
+            }
+            boolean emTodas = true;
+            for (int i = 1; i < listas.size() && emTodas; i++) {
+                emTodas = listas.get(i).contains(id);
+            }
+            if (!emTodas) {
+                continue;
+            }
+            Documento doc = documentos.get(id);
+            String texto = email ? doc.email : doc.nome;
+            if (texto.contains(busca)) {
+                guardar(encontrados, id, ultimoId, limite);
+            }
+        }
+    }
+    
+    // guarda so os 'limite' menores ids acima do cursor
+    private static void guardar(TreeSet<Long> encontrados, Long id, long ultimoId, int limite) {
+        if (id <= ultimoId) {
+            return;
+        }
+        if (encontrados.size() < limite) {
+            encontrados.add(id);
+        } else if (id < encontrados.last() && encontrados.add(id)) {
+            encontrados.pollLast();
+        }
+    }
+    
+    @Override
+    protected List<Usuario> carregarLote(long ultimoId, int tamanho) {
+        return usuarioRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, Limit.of(tamanho));
+    }
+    
+    @Override
+    protected Long id(Usuario usuario) {
+        return usuario.getId();
+    }
+    
+    @Override
+    protected boolean contem(Long id) {
+        return documentos.containsKey(id);
+    }
+    
+    @Override
+    protected void limpar() {
+        trigramasNome.clear();
+        trigramasEmail.clear();
+        documentos.clear();
+    }
+    
+    @Override
+    protected void adicionar(Usuario usuario) {
+        Documento doc = new Documento(usuario);
+        for (String trigrama : trigramas(doc.nome + FIM)) {
+            trigramasNome.computeIfAbsent(trigrama, t -> new HashSet<>()).add(usuario.getId());
+        }
+        for (String trigrama : trigramas(doc.email + FIM)) {
+            trigramasEmail.computeIfAbsent(trigrama, t -> new HashSet<>()).add(usuario.getId());
+        }
+        documentos.put(usuario.getId(), doc);
+    }
+    
+    @Override
+    protected void retirar(Long id) {
+        Documento anterior = documentos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        retirarTrigramas(trigramasNome, trigramas(anterior.nome + FIM), id);
+        retirarTrigramas(trigramasEmail, trigramas(anterior.email + FIM), id);
+    }
+    
+    private static void retirarTrigramas(NavigableMap<String, Set<Long>> indice, List<String> trigramas, Long id) {
+        for (String trigrama : trigramas) {
+            Set<Long> ids = indice.get(trigrama);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    indice.remove(trigrama);
+                }
+            }
+        }
+    }
+    
+    // trigramas distintos do texto ja normalizado
+    private static List<String> trigramas(String texto) {
+        Set<String> unicos = new HashSet<>();
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            unicos.add(texto.substring(i, i + 3));
+        }
+        return new ArrayList<>(unicos);
+    }
+    
+    @Override
+    protected Usuario copiar(Usuario usuario) {
+        Usuario copia = new Usuario(usuario.getNome(), usuario.getEmail(), usuario.getTelefone());
+        copia.setId(usuario.getId());
+        copia.setDataCadastro(usuario.getDataCadastro());
+        copia.setAtivo(usuario.getAtivo());
+        return copia;
+    }
+    
+    private static class Documento {
+        private final Usuario usuario;
+        private final String nome;
+        private final String email;
+        
+        Documento(Usuario usuario) {
+            this.usuario = usuario;
+            this.nome = NormalizadorTexto.normalizar(usuario.getNome());
+            this.email = NormalizadorTexto.normalizar(usuario.getEmail());
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.PedidoArquivado;
+import com.catevildev.atividade.repository.PedidoArquivadoRepository;
+import com.catevildev.atividade.repository.PedidoRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@Service
+public class PedidoExportacaoService {
+    
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    
+    @Autowired
+    private PedidoArquivadoRepository pedidoArquivadoRepository;
+    
+    @Autowired
+    private ArquivamentoPedidosService arquivamento;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private final JsonFactory jsonFactory = new JsonFactory();
+    
+    // formatos suportados na exportacao
+    public enum FormatoExportacao {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+        
+        private final String contentType;
+        private final String extensao;
+        
+        FormatoExportacao(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+        
+        public static FormatoExportacao de(String formato) {
+            for (FormatoExportacao f : values()) {
+                if (f.extensao.equalsIgnoreCase(formato)) {
+                    return f;
+                }
+            }
+            throw new RuntimeException("Formato de exportação inválido: " + formato);
+        }
+        
+        public String getContentType() {
+            return contentType;
+        }
+        
+        public String getExtensao() {
+            return extensao;
+        }
+    }
+    
+    // exporta os pedidos direto no stream de saida, lendo do banco por cursor;
+    // quando o filtro alcanca pedidos arquivados, os dois cursores sao intercalados por id
+    @Transactional(readOnly = true)
+    public long exportar(Pedido.StatusPedido status, LocalDateTime dataInicio, LocalDateTime dataFim,
+                         FormatoExportacao formato, OutputStream saida) {
+        try (Stream<Pedido> pedidos = abrirCursor(status, dataInicio, dataFim)) {
+            if (formato == FormatoExportacao.CSV) {
+                return escreverCsv(pedidos.iterator(), saida);
+            }
+            return escreverNdjson(pedidos.iterator(), saida);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao exportar pedidos", e);
+        }
+    }
+    
+    private Stream<Pedido> abrirCursor(Pedido.StatusPedido status, LocalDateTime dataInicio, LocalDateTime dataFim) {
+        if (!ArquivamentoPedidosService.arquivavel(status) || !arquivamento.arquivoCobre(dataInicio)) {
+            return pedidoRepository.streamParaExportacao(status, dataInicio, dataFim);
+        }
+        return intercalarPorId(
+            pedidoArquivadoRepository.streamParaExportacao(status, dataInicio, dataFim).map(PedidoArquivado::paraPedido),
+            pedidoRepository.streamParaExportacao(status, dataInicio, dataFim));
+    }
+    
+    // junta dois cursores ordenados por id; um pedido arquivado enquanto a exportacao roda pode vir nos dois
+    // e sai uma vez so (a copia da tabela quente)
+    private static Stream<Pedido> intercalarPorId(Stream<Pedido> arquivados, Stream<Pedido> quentes) {
+        Iterator<Pedido> doArquivo = arquivados.iterator();
+        Iterator<Pedido> daTabelaQuente = quentes.iterator();
+        Iterator<Pedido> intercalados = new Iterator<>() {
+            private Pedido arquivado;
+            private Pedido quente;
+            
+            @Override
+            public boolean hasNext() {
+                if (arquivado == null && doArquivo.hasNext()) {
+                    arquivado = doArquivo.next();
+                }
+                if (quente == null && daTabelaQuente.hasNext()) {
+                    quente = daTabelaQuente.next();
+                }
+                return arquivado != null || quente != null;
+            }
+            
+            @Override
+            public Pedido next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Pedido proximo;
+                if (quente == null || (arquivado != null && arquivado.getId() < quente.getId())) {
+                    proximo = arquivado;
+                    arquivado = null;
+                } else {
+                    if (arquivado != null && arquivado.getId().equals(quente.getId())) {
+                        arquivado = null;
+                    }
+                    proximo = quente;
+                    quente = null;
+                }
+                return proximo;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(intercalados, Spliterator.ORDERED), false)
+            .onClose(arquivados::close)
+            .onClose(quentes::close);
+    }
+    
+    private long escreverNdjson(Iterator<Pedido> pedidos, OutputStream saida) throws IOException {
+        JsonGenerator json = jsonFactory.createGenerator(saida);
+        json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        json.setRootValueSeparator(null);
+        
+        long total = 0;
+        while (pedidos.hasNext()) {
+            Pedido p = pedidos.next();
+            json.writeStartObject();
+            json.writeNumberField("id", p.getId());
+            json.writeStringField("numeroPedido", p.getNumeroPedido());
+            if (p.getUsuario() != null) {
+                json.writeNumberField("usuarioId", p.getUsuario().getId());
+            } else {
+                json.writeNullField("usuarioId");
+            }
+            if (p.getValorTotal() != null) {
+                json.writeNumberField("valorTotal", p.getValorTotal());
+            } else {
+                json.writeNullField("valorTotal");
+            }
+            json.writeStringField("status", p.getStatus() != null ? p.getStatus().name() : null);
+            json.writeStringField("dataPedido", p.getDataPedido() != null ? p.getDataPedido().toString() : null);
+            json.writeStringField("observacoes", p.getObservacoes());
+            json.writeEndObject();
+            json.writeRaw('\n');
+            
+            total = aposLinha(total, json::flush);
+        }
+        json.flush();
+        return total;
+    }
+    
+    private long escreverCsv(Iterator<Pedido> pedidos, OutputStream saida) throws IOException {
+        Writer csv = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        csv.write("id,numeroPedido,usuarioId,valorTotal,status,dataPedido,observacoes\n");
+        csv.flush();
+        
+        long total = 0;
+        while (pedidos.hasNext()) {
+            Pedido p = pedidos.next();
+            csv.write(String.valueOf(p.getId()));
+            csv.write(',');
+            csv.write(campoCsv(p.getNumeroPedido()));
+            csv.write(',');
+            csv.write(p.getUsuario() != null ? String.valueOf(p.getUsuario().getId()) : "");
+            csv.write(',');
+            csv.write(p.getValorTotal() != null ? p.getValorTotal().toPlainString() : "");
+            csv.write(',');
+            csv.write(p.getStatus() != null ? p.getStatus().name() : "");
+            csv.write(',');
+            csv.write(p.getDataPedido() != null ? p.getDataPedido().toString() : "");
+            csv.write(',');
+            csv.write(campoCsv(p.getObservacoes()));
+            csv.write('\n');
+            
+            total = aposLinha(total, csv::flush);
+        }
+        csv.flush();
+        return total;
+    }
+    
+    // limpa o contexto de persistencia a cada bloco para a memoria nao crescer,
+    // e descarrega a saida logo na primeira linha e depois a cada bloco
+    private long aposLinha(long total, Descarga descarga) throws IOException {
+        total++;
+        if (total == 1 || total % PedidoRepository.TAMANHO_BLOCO_EXPORTACAO == 0) {
+            entityManager.clear();
+            descarga.executar();
+        }
+        return total;
+    }
+    
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+    
+    @FunctionalInterface
+    private interface Descarga {
+        void executar() throws IOException;
+    }
+}
@@ -0,0 +1,194 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.dto.ResultadoItemLote;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.Usuario;
+import com.catevildev.atividade.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// importacao de pedidos em lote: cada bloco e gravado numa transacao propria, com insert em batch.
+// Os erros de validacao sao conferidos antes do insert; o que so o banco barra e isolado refazendo o bloco em metades
+@Service
+public class PedidoLoteService {
+    
+    public static final int TAMANHO_BLOCO = 500;
+    
+    // tamanhos das colunas numero_pedido e observacoes
+    private static final int TAMANHO_MAXIMO_NUMERO = 50;
+    private static final int TAMANHO_MAXIMO_OBSERVACOES = 500;
+    
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    
+    @Autowired
+    private ResumoPedidosService resumoPedidos;
+    
+    @Autowired
+    private ContadoresStatusPedido contadoresStatus;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private final TransactionTemplate transacaoBloco;
+    
+    public PedidoLoteService(PlatformTransactionManager transactionManager) {
+        this.transacaoBloco = new TransactionTemplate(transactionManager);
+        this.transacaoBloco.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    // le os pedidos do iterator (array json ou ndjson) e grava bloco a bloco
+    public List<ResultadoItemLote> salvarEmLote(Iterator<Pedido> pedidos) {
+        List<ResultadoItemLote> resultados = new ArrayList<>();
+        List<Pedido> bloco = new ArrayList<>(TAMANHO_BLOCO);
+        int inicioBloco = 0;
+        
+        while (true) {
+            Pedido pedido;
+            try {
+                if (!pedidos.hasNext()) {
+                    break;
+                }
+                pedido = pedidos.next();
+            } catch (RuntimeException e) {
+                // entrada malformada: grava o que ja foi lido e para
+                resultados.addAll(salvarBloco(bloco, inicioBloco));
+                resultados.add(ResultadoItemLote.erro(inicioBloco + bloco.size(), "JSON inválido: " + e.getMessage()));
+                return resultados;
+            }
+            
+            bloco.add(pedido);
+            if (bloco.size() == TAMANHO_BLOCO) {
+                resultados.addAll(salvarBloco(bloco, inicioBloco));
+                inicioBloco += bloco.size();
+                bloco.clear();
+            }
+        }
+        resultados.addAll(salvarBloco(bloco, inicioBloco));
+        return resultados;
+    }
+    
+    // grava o bloco numa transacao; se o banco recusar alguma linha (ex.: numero de pedido repetido), a transacao
+    // inteira e desfeita e cada metade e gravada de novo na sua, ate a linha com problema ficar sozinha com o seu erro
+    private List<ResultadoItemLote> salvarBloco(List<Pedido> bloco, int inicioBloco) {
+        if (bloco.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return transacaoBloco.execute(status -> gravarBloco(bloco, inicioBloco));
+        } catch (RuntimeException e) {
+            if (bloco.size() == 1) {
+                return List.of(ResultadoItemLote.erro(inicioBloco,
+                    "Falha ao gravar o pedido: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            }
+            int meio = bloco.size() / 2;
+            List<ResultadoItemLote> resultados = new ArrayList<>(bloco.size());
+            resultados.addAll(salvarBloco(bloco.subList(0, meio), inicioBloco));
+            resultados.addAll(salvarBloco(bloco.subList(meio, bloco.size()), inicioBloco + meio));
+            return resultados;
+        }
+    }
+    
+    private List<ResultadoItemLote> gravarBloco(List<Pedido> bloco, int inicioBloco) {
+        // resolve todos os usuarios do bloco numa consulta so
+        Set<Long> idsUsuarios = new HashSet<>();
+        for (Pedido pedido : bloco) {
+            if (pedido.getUsuario() != null && pedido.getUsuario().getId() != null) {
+                idsUsuarios.add(pedido.getUsuario().getId());
+            }
+        }
+        Set<Long> existentes = idsUsuarios.isEmpty() ? Set.of() : usuarioRepository.buscarIdsExistentes(idsUsuarios);
+        
+        List<ResultadoItemLote> resultados = new ArrayList<>(bloco.size());
+        List<Pedido> gravados = new ArrayList<>(bloco.size());
+        List<Integer> indicesGravados = new ArrayList<>(bloco.size());
+        for (int i = 0; i < bloco.size(); i++) {
+            Pedido pedido = bloco.get(i);
+            String erro = validar(pedido, existentes);
+            if (erro != null) {
+                resultados.add(ResultadoItemLote.erro(inicioBloco + i, erro));
+                continue;
+            }
+            // numa nova tentativa o pedido ainda tem o id da transacao desfeita
+            pedido.setId(null);
+            pedido.setUsuario(entityManager.getReference(Usuario.class, pedido.getUsuario().getId()));
+            entityManager.persist(pedido);
+            gravados.add(pedido);
+            indicesGravados.add(inicioBloco + i);
+        }
+        
+        // inserts saem em batch no flush; clear solta as entidades do bloco
+        entityManager.flush();
+        entityManager.clear();
+        registrarResumos(gravados);
+        
+        for (int i = 0; i < gravados.size(); i++) {
+            Pedido pedido = gravados.get(i);
+            resultados.add(ResultadoItemLote.criado(indicesGravados.get(i), pedido.getId(), pedido.getNumeroPedido()));
+        }
+        resultados.sort((a, b) -> Integer.compare(a.getIndice(), b.getIndice()));
+        return resultados;
+    }
+    
+    // um UPDATE de resumo por usuario do bloco, com as diferencas ja somadas; contadores por status apos o commit
+    private void registrarResumos(List<Pedido> gravados) {
+        // resumos em ordem de usuario, como no cancelamento automatico e na gravacao de status em lote
+        Map<Long, BigDecimal> valores = new TreeMap<>();
+        Map<Long, Long> quantidades = new HashMap<>();
+        Map<Long, LocalDateTime> datas = new HashMap<>();
+        Map<Pedido.StatusPedido, Long> porStatus = new EnumMap<>(Pedido.StatusPedido.class);
+        for (Pedido pedido : gravados) {
+            if (pedido.getStatus() != null) {
+                porStatus.merge(pedido.getStatus(), 1L, Long::sum);
+            }
+            Long usuarioId = pedido.getUsuario().getId();
+            valores.merge(usuarioId, ResumoPedidosService.valorContabilizado(pedido.getStatus(), pedido.getValorTotal()), BigDecimal::add);
+            quantidades.merge(usuarioId, ResumoPedidosService.quantidadeContabilizada(pedido.getStatus()), Long::sum);
+            datas.merge(usuarioId, pedido.getDataPedido(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        for (Map.Entry<Long, BigDecimal> e : valores.entrySet()) {
+            resumoPedidos.registrarDiferenca(e.getKey(), e.getValue(), quantidades.get(e.getKey()), datas.get(e.getKey()));
+        }
+        porStatus.forEach(contadoresStatus::registrarNovosAposCommit);
+    }
+    
+    private static String validar(Pedido pedido, Set<Long> usuariosExistentes) {
+        if (pedido.getUsuario() == null || pedido.getUsuario().getId() == null) {
+            return "Usuário não informado";
+        }
+        if (!usuariosExistentes.contains(pedido.getUsuario().getId())) {
+            return "Usuário não encontrado com ID: " + pedido.getUsuario().getId();
+        }
+        if (pedido.getValorTotal() == null) {
+            return "Valor total não informado";
+        }
+        if (pedido.getDataPedido() == null) {
+            return "Data do pedido não informada";
+        }
+        if (pedido.getNumeroPedido() != null && pedido.getNumeroPedido().length() > TAMANHO_MAXIMO_NUMERO) {
+            return "Número do pedido com mais de " + TAMANHO_MAXIMO_NUMERO + " caracteres";
+        }
+        if (pedido.getObservacoes() != null && pedido.getObservacoes().length() > TAMANHO_MAXIMO_OBSERVACOES) {
+            return "Observações com mais de " + TAMANHO_MAXIMO_OBSERVACOES + " caracteres";
+        }
+        return null;
+    }
+}
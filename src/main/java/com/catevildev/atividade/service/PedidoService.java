@@ -1,153 +1,391 @@
 package com.catevildev.atividade.service;
 
+import com.catevildev.atividade.dto.Cursor;
+import com.catevildev.atividade.dto.Pagina;
+import com.catevildev.atividade.dto.PedidoListagem;
+import com.catevildev.atividade.dto.ResultadoAtualizacaoStatus;
 import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.PedidoArquivado;
+import com.catevildev.atividade.entity.ResumoPedidosUsuario;
 import com.catevildev.atividade.entity.Usuario;
+import com.catevildev.atividade.repository.PedidoArquivadoRepository;
 import com.catevildev.atividade.repository.PedidoRepository;
 import com.catevildev.atividade.repository.UsuarioRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 @Transactional
 public class PedidoService {
     
+    // ordem da paginacao por periodo (data e id)
+    private static final Comparator<Pedido> ORDEM_PERIODO =
+        Comparator.comparing(Pedido::getDataPedido).thenComparing(Pedido::getId);
+    
+    // ordem da paginacao por id
+    private static final Comparator<Pedido> ORDEM_ID = Comparator.comparing(Pedido::getId);
+    
     @Autowired
     private PedidoRepository pedidoRepository;
     
     @Autowired
     private UsuarioRepository usuarioRepository;
     
-    // salva pedido
+    @Autowired
+    private ResumoPedidosService resumoPedidos;
+    
+    @Autowired
+    private ContadoresStatusPedido contadoresStatus;
+    
+    @Autowired
+    private PedidoArquivadoRepository pedidoArquivadoRepository;
+    
+    @Autowired
+    private ArquivamentoPedidosService arquivamento;
+    
+    @Autowired
+    private AtualizacaoStatusPedidosService atualizacaoStatus;
+    
+    // gravacao do status fora da fila (o metodo publico nao abre transacao)
+    private final TransactionTemplate transacao;
+    
+    public PedidoService(PlatformTransactionManager transactionManager) {
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+    
+    // salva pedido; o usuario entra so como referencia (sem SELECT) e a chave estrangeira
+    // confere se ele existe no INSERT, feito aqui mesmo (flush) para a violacao virar mensagem.
+    // Depois do INSERT o usuario e carregado (em geral do cache de segundo nivel), assim a resposta
+    // traz o usuario completo, igual as consultas
     public Pedido salvar(Pedido pedido) {
-        // verifica se o usuario existe
-        if (pedido.getUsuario() != null && pedido.getUsuario().getId() != null) {
-            Usuario usuario = usuarioRepository.findById(pedido.getUsuario().getId())
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + pedido.getUsuario().getId()));
-            pedido.setUsuario(usuario);
+        Long usuarioId = pedido.getUsuario() != null ? pedido.getUsuario().getId() : null;
+        if (usuarioId != null) {
+            pedido.setUsuario(usuarioRepository.getReferenceById(usuarioId));
         }
         
-        return pedidoRepository.save(pedido);
+        Pedido pedidoSalvo;
+        try {
+            pedidoSalvo = pedidoRepository.saveAndFlush(pedido);
+        } catch (DataIntegrityViolationException e) {
+            if (ViolacaoRestricao.de(e, Pedido.RESTRICAO_USUARIO)) {
+                throw new RuntimeException("Usuário não encontrado com ID: " + usuarioId);
+            }
+            throw e;
+        }
+        // troca o proxy pela instancia carregada: o proxy nao serializa na resposta
+        pedidoSalvo.setUsuario((Usuario) Hibernate.unproxy(pedidoSalvo.getUsuario()));
+        resumoPedidos.registrarNovo(pedidoSalvo);
+        contadoresStatus.registrarNovoAposCommit(pedidoSalvo.getStatus());
+        return pedidoSalvo;
     }
     
-    // busca todos os pedidos
+    // busca todos os pedidos (paginado por id)
     @Transactional(readOnly = true)
-    public List<Pedido> buscarTodos() {
-        return pedidoRepository.findAll();
+    public Pagina<Pedido> buscarTodos(String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        Long ultimoId = Cursor.decodificar(cursor).getId();
+        List<Pedido> pedidos = pedidoRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, Limit.of(limite + 1));
+        if (arquivamento.arquivoCobre(null)) {
+            pedidos = intercalar(pedidos, pedidoArquivadoRepository.findByIdGreaterThanOrderByIdAsc(
+                ultimoId, Limit.of(limite + 1)), ORDEM_ID, limite + 1);
+        }
+        return Pagina.de(comStatusPendente(pedidos), limite, p -> Cursor.codificar(p.getId()));
+    }
+    
+    // listagem enxuta de pedidos, opcionalmente por status (paginado por id); o arquivo entra
+    // quando o status pode estar nele
+    @Transactional(readOnly = true)
+    public Pagina<PedidoListagem> buscarListagem(Pedido.StatusPedido status, String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        Long ultimoId = Cursor.decodificar(cursor).getId();
+        List<PedidoListagem> pedidos = status == null
+            ? pedidoRepository.buscarListagem(ultimoId, Limit.of(limite + 1))
+            : pedidoRepository.buscarListagemPorStatus(status, ultimoId, Limit.of(limite + 1));
+        if (ArquivamentoPedidosService.arquivavel(status) && arquivamento.arquivoCobre(null)) {
+            List<PedidoListagem> arquivados = status == null
+                ? pedidoArquivadoRepository.buscarListagem(ultimoId, Limit.of(limite + 1))
+                : pedidoArquivadoRepository.buscarListagemPorStatus(status, ultimoId, Limit.of(limite + 1));
+            pedidos = intercalar(pedidos, arquivados, PedidoListagem::getId,
+                Comparator.comparing(PedidoListagem::getId), limite + 1);
+        }
+        Pagina<PedidoListagem> pagina = Pagina.de(pedidos, limite, p -> Cursor.codificar(p.getId()));
+        if (atualizacaoStatus.quantidadePendente() == 0) {
+            return pagina;
+        }
+        List<PedidoListagem> itens = pagina.getItens().stream()
+            .map(p -> atualizacaoStatus.statusPendente(p.getId()).map(p::comStatus).orElse(p))
+            .filter(p -> status == null || p.getStatus() == status)
+            .toList();
+        return new Pagina<>(itens, pagina.getProximoCursor());
     }
     
-    // busca pedido por id
+    // busca pedido por id (se nao estiver na tabela quente, procura no arquivo)
     @Transactional(readOnly = true)
     public Optional<Pedido> buscarPorId(Long id) {
-        return pedidoRepository.findById(id);
+        Optional<Pedido> pedido = pedidoRepository.findById(id).map(this::comStatusPendente);
+        if (pedido.isPresent() || !arquivamento.arquivoCobre(null)) {
+            return pedido;
+        }
+        return pedidoArquivadoRepository.findById(id).map(PedidoArquivado::paraPedido);
+    }
+    
+    // com a gravacao de status em lote, as leituras devolvem o status ja aceito e ainda nao gravado,
+    // numa copia solta: a entidade gerenciada continua com o status do banco
+    private Pedido comStatusPendente(Pedido pedido) {
+        return atualizacaoStatus.statusPendente(pedido.getId())
+            .filter(status -> status != pedido.getStatus())
+            .map(pedido::copiaComStatus)
+            .orElse(pedido);
     }
     
-    // busca pedidos por usuario
+    private List<Pedido> comStatusPendente(List<Pedido> pedidos) {
+        if (atualizacaoStatus.quantidadePendente() == 0) {
+            return pedidos;
+        }
+        return pedidos.stream().map(this::comStatusPendente).toList();
+    }
+    
+    // busca pedidos por usuario (paginado por id), com os arquivados
     @Transactional(readOnly = true)
-    public List<Pedido> buscarPorUsuario(Long usuarioId) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-            .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + usuarioId));
-        return pedidoRepository.findByUsuario(usuario);
+    public Pagina<Pedido> buscarPorUsuario(Long usuarioId, String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        Long ultimoId = Cursor.decodificar(cursor).getId();
+        List<Pedido> pedidos = pedidoRepository.findByUsuario_IdAndIdGreaterThanOrderByIdAsc(
+            usuarioId, ultimoId, Limit.of(limite + 1));
+        if (arquivamento.arquivoCobre(null)) {
+            pedidos = intercalar(pedidos, pedidoArquivadoRepository.findByUsuario_IdAndIdGreaterThanOrderByIdAsc(
+                usuarioId, ultimoId, Limit.of(limite + 1)), ORDEM_ID, limite + 1);
+        }
+        // pagina com pedidos ja prova que o usuario existe; so a vazia precisa conferir
+        if (pedidos.isEmpty() && !usuarioRepository.existsById(usuarioId)) {
+            throw new RuntimeException("Usuário não encontrado com ID: " + usuarioId);
+        }
+        return Pagina.de(comStatusPendente(pedidos), limite, p -> Cursor.codificar(p.getId()));
     }
     
-    // busca pedidos por status
+    // busca pedidos por status (paginado por id), com os arquivados se o status for de pedido encerrado;
+    // pedido com mudanca aceita para outro status sai da pagina (o que esta mudando para este status
+    // so aparece depois da gravacao)
     @Transactional(readOnly = true)
-    public List<Pedido> buscarPorStatus(Pedido.StatusPedido status) {
-        return pedidoRepository.findByStatus(status);
+    public Pagina<Pedido> buscarPorStatus(Pedido.StatusPedido status, String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        Long ultimoId = Cursor.decodificar(cursor).getId();
+        List<Pedido> pedidos = pedidoRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+            status, ultimoId, Limit.of(limite + 1));
+        if (ArquivamentoPedidosService.arquivavel(status) && arquivamento.arquivoCobre(null)) {
+            pedidos = intercalar(pedidos, pedidoArquivadoRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                status, ultimoId, Limit.of(limite + 1)), ORDEM_ID, limite + 1);
+        }
+        Pagina<Pedido> pagina = Pagina.de(pedidos, limite, p -> Cursor.codificar(p.getId()));
+        if (atualizacaoStatus.quantidadePendente() == 0) {
+            return pagina;
+        }
+        List<Pedido> itens = comStatusPendente(pagina.getItens()).stream()
+            .filter(p -> p.getStatus() == status)
+            .toList();
+        return new Pagina<>(itens, pagina.getProximoCursor());
     }
     
     // busca pedido por numero
     @Transactional(readOnly = true)
     public Optional<Pedido> buscarPorNumero(String numeroPedido) {
-        return pedidoRepository.findByNumeroPedido(numeroPedido);
+        Optional<Pedido> pedido = pedidoRepository.findByNumeroPedido(numeroPedido).map(this::comStatusPendente);
+        if (pedido.isPresent() || !arquivamento.arquivoCobre(null)) {
+            return pedido;
+        }
+        return pedidoArquivadoRepository.findByNumeroPedido(numeroPedido).map(PedidoArquivado::paraPedido);
     }
     
-    // busca pedidos por faixa de valor
+    // busca pedidos por faixa de valor, com os arquivados
     @Transactional(readOnly = true)
     public List<Pedido> buscarPorFaixaValor(BigDecimal valorMin, BigDecimal valorMax) {
-        return pedidoRepository.findByValorTotalBetween(valorMin, valorMax);
+        List<Pedido> pedidos = pedidoRepository.findByValorTotalBetween(valorMin, valorMax);
+        if (arquivamento.arquivoCobre(null)) {
+            pedidos = intercalar(pedidos, pedidoArquivadoRepository.findByValorTotalBetween(valorMin, valorMax),
+                ORDEM_ID, Integer.MAX_VALUE);
+        }
+        return comStatusPendente(pedidos);
     }
     
-    // busca pedidos por periodo
+    // busca pedidos por periodo (paginado por data e id); o arquivo so e consultado
+    // enquanto a pagina ainda estiver dentro das datas que ele cobre
     @Transactional(readOnly = true)
-    public List<Pedido> buscarPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim) {
-        return pedidoRepository.findByDataPedidoBetween(dataInicio, dataFim);
+    public Pagina<Pedido> buscarPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim, String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        Cursor posicao = Cursor.decodificar(cursor);
+        // primeira pagina comeca no inicio do periodo
+        LocalDateTime ultimaData = posicao.getData() != null ? posicao.getData() : dataInicio;
+        List<Pedido> pedidos = pedidoRepository.buscarPaginaPorPeriodo(
+            dataInicio, dataFim, ultimaData, posicao.getId(), Limit.of(limite + 1));
+        if (arquivamento.arquivoCobre(ultimaData)) {
+            List<PedidoArquivado> arquivados = pedidoArquivadoRepository.buscarPaginaPorPeriodo(
+                dataInicio, dataFim, ultimaData, posicao.getId(), Limit.of(limite + 1));
+            pedidos = intercalar(pedidos, arquivados, ORDEM_PERIODO, limite + 1);
+        }
+        return Pagina.de(comStatusPendente(pedidos), limite, p -> Cursor.codificar(p.getDataPedido(), p.getId()));
     }
     
     // busca pedidos recentes
     @Transactional(readOnly = true)
     public List<Pedido> buscarPedidosRecentes(int dias) {
         LocalDateTime dataLimite = LocalDateTime.now().minusDays(dias);
-        return pedidoRepository.findPedidosRecentes(dataLimite);
+        List<Pedido> pedidos = pedidoRepository.findPedidosRecentes(dataLimite);
+        if (arquivamento.arquivoCobre(dataLimite)) {
+            pedidos = intercalar(pedidos, pedidoArquivadoRepository.findPedidosRecentes(dataLimite),
+                ORDEM_PERIODO.reversed(), Integer.MAX_VALUE);
+        }
+        return comStatusPendente(pedidos);
     }
     
     // atualiza pedido
     public Pedido atualizar(Long id, Pedido pedidoAtualizado) {
-        Pedido pedido = pedidoRepository.findById(id)
+        Pedido pedido = pedidoRepository.buscarParaAtualizacao(id)
             .orElseThrow(() -> new RuntimeException("Pedido não encontrado com ID: " + id));
+        Pedido.StatusPedido statusAnterior = pedido.getStatus();
+        BigDecimal valorAnterior = pedido.getValorTotal();
         
         pedido.setValorTotal(pedidoAtualizado.getValorTotal());
         pedido.setStatus(pedidoAtualizado.getStatus());
         pedido.setObservacoes(pedidoAtualizado.getObservacoes());
         
-        return pedidoRepository.save(pedido);
+        Pedido pedidoSalvo = pedidoRepository.save(pedido);
+        resumoPedidos.registrarAlteracao(pedido.getUsuario().getId(), statusAnterior, valorAnterior,
+            pedido.getStatus(), pedido.getValorTotal());
+        contadoresStatus.registrarTransicaoAposCommit(statusAnterior, pedido.getStatus());
+        return pedidoSalvo;
+    }
+    
+    // atualiza status do pedido. Com a gravacao em lote ligada a mudanca so entra na fila, sem abrir transacao;
+    // senao e gravada na hora, numa transacao propria
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResultadoAtualizacaoStatus atualizarStatus(Long id, Pedido.StatusPedido novoStatus) {
+        if (atualizacaoStatus.isHabilitado()) {
+            atualizacaoStatus.enfileirar(id, novoStatus);
+            return ResultadoAtualizacaoStatus.enfileirada(id, novoStatus);
+        }
+        return ResultadoAtualizacaoStatus.aplicada(transacao.execute(status -> gravarStatus(id, novoStatus)));
     }
     
-    // atualiza status do pedido
-    public Pedido atualizarStatus(Long id, Pedido.StatusPedido novoStatus) {
-        Pedido pedido = pedidoRepository.findById(id)
+    private Pedido gravarStatus(Long id, Pedido.StatusPedido novoStatus) {
+        Pedido pedido = pedidoRepository.buscarParaAtualizacao(id)
             .orElseThrow(() -> new RuntimeException("Pedido não encontrado com ID: " + id));
+        Pedido.StatusPedido statusAnterior = pedido.getStatus();
         
         pedido.setStatus(novoStatus);
-        return pedidoRepository.save(pedido);
+        Pedido pedidoSalvo = pedidoRepository.save(pedido);
+        resumoPedidos.registrarAlteracao(pedido.getUsuario().getId(), statusAnterior, pedido.getValorTotal(),
+            novoStatus, pedido.getValorTotal());
+        contadoresStatus.registrarTransicaoAposCommit(statusAnterior, novoStatus);
+        return pedidoSalvo;
     }
     
     // cancela pedido
     public Pedido cancelar(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
+        Pedido pedido = pedidoRepository.buscarParaAtualizacao(id)
             .orElseThrow(() -> new RuntimeException("Pedido não encontrado com ID: " + id));
         
         if (pedido.getStatus() == Pedido.StatusPedido.ENTREGUE) {
             throw new RuntimeException("Não é possível cancelar um pedido já entregue");
         }
         
+        Pedido.StatusPedido statusAnterior = pedido.getStatus();
         pedido.setStatus(Pedido.StatusPedido.CANCELADO);
-        return pedidoRepository.save(pedido);
+        Pedido pedidoSalvo = pedidoRepository.save(pedido);
+        resumoPedidos.registrarAlteracao(pedido.getUsuario().getId(), statusAnterior, pedido.getValorTotal(),
+            Pedido.StatusPedido.CANCELADO, pedido.getValorTotal());
+        contadoresStatus.registrarTransicaoAposCommit(statusAnterior, Pedido.StatusPedido.CANCELADO);
+        return pedidoSalvo;
     }
     
     // deleta pedido
     public void deletar(Long id) {
-        if (!pedidoRepository.existsById(id)) {
-            throw new RuntimeException("Pedido não encontrado com ID: " + id);
-        }
-        pedidoRepository.deleteById(id);
+        Pedido pedido = pedidoRepository.buscarParaAtualizacao(id)
+            .orElseThrow(() -> new RuntimeException("Pedido não encontrado com ID: " + id));
+        Long usuarioId = pedido.getUsuario().getId();
+        
+        pedidoRepository.delete(pedido);
+        pedidoRepository.flush();
+        resumoPedidos.registrarRemocao(usuarioId, pedido.getStatus(), pedido.getValorTotal());
+        contadoresStatus.registrarRemocaoAposCommit(pedido.getStatus());
     }
     
-    // calcula valor total de pedidos por usuario
+    // valor total de pedidos por usuario, lido do resumo mantido a cada escrita
     @Transactional(readOnly = true)
     public BigDecimal calcularValorTotalPorUsuario(Long usuarioId) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-            .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + usuarioId));
-        
-        BigDecimal total = pedidoRepository.calcularValorTotalPorUsuario(usuario);
-        return total != null ? total : BigDecimal.ZERO;
+        return buscarResumoPorUsuario(usuarioId).getValorTotal();
     }
     
-    // conta pedidos por status
+    // resumo de pedidos do usuario (total, quantidade e data do ultimo pedido)
     @Transactional(readOnly = true)
+    public ResumoPedidosUsuario buscarResumoPorUsuario(Long usuarioId) {
+        return resumoPedidos.buscar(usuarioId)
+            .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + usuarioId));
+    }
+    
+    // conta pedidos por status (contador em memoria; sem transacao, nao pega conexao do pool)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public long contarPorStatus(Pedido.StatusPedido status) {
-        return pedidoRepository.countByStatus(status);
+        return contadoresStatus.contar(status);
+    }
+    
+    // contagem de todos os status (contadores em memoria, sem consultar o banco nem abrir transacao)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Long> contarTodosPorStatus() {
+        return contadoresStatus.contarTodos();
     }
     
-    // busca pedidos pendentes antigos
+    // busca pedidos pendentes antigos; so pedidos encerrados vao para o arquivo, entao basta a tabela quente
     @Transactional(readOnly = true)
     public List<Pedido> buscarPedidosPendentesAntigos(int dias) {
         LocalDateTime dataLimite = LocalDateTime.now().minusDays(dias);
-        return pedidoRepository.findPedidosPendentesAntigos(dataLimite);
+        return comStatusPendente(pedidoRepository.findPedidosPendentesAntigos(dataLimite)).stream()
+            .filter(p -> p.getStatus() == Pedido.StatusPedido.PENDENTE)
+            .toList();
+    }
+    
+    // junta pedidos da tabela quente e do arquivo, ja ordenados pela mesma chave, ate o limite
+    private static List<Pedido> intercalar(List<Pedido> quentes, List<PedidoArquivado> arquivados,
+                                           Comparator<Pedido> ordem, int limite) {
+        return intercalar(quentes, arquivados.stream().map(PedidoArquivado::paraPedido).toList(),
+            Pedido::getId, ordem, limite);
+    }
+    
+    private static <T> List<T> intercalar(List<T> quentes, List<T> arquivados, Function<T, Long> id,
+                                          Comparator<T> ordem, int limite) {
+        if (arquivados.isEmpty()) {
+            return quentes;
+        }
+        List<T> pedidos = new ArrayList<>(quentes.size() + arquivados.size());
+        pedidos.addAll(quentes);
+        // um lote de arquivamento confirmado entre as duas consultas faz o mesmo pedido aparecer nas duas
+        Set<Long> idsQuentes = new HashSet<>();
+        for (T quente : quentes) {
+            idsQuentes.add(id.apply(quente));
+        }
+        for (T arquivado : arquivados) {
+            if (!idsQuentes.contains(id.apply(arquivado))) {
+                pedidos.add(arquivado);
+            }
+        }
+        pedidos.sort(ordem);
+        return pedidos.size() > limite ? pedidos.subList(0, limite) : pedidos;
     }
 }
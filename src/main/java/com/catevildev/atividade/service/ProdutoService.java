@@ -1,9 +1,14 @@
 package com.catevildev.atividade.service;
 
+import com.catevildev.atividade.dto.Cursor;
+import com.catevildev.atividade.dto.Pagina;
+import com.catevildev.atividade.dto.ProdutoListagem;
 import com.catevildev.atividade.entity.Produto;
 import com.catevildev.atividade.repository.ProdutoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -14,36 +19,76 @@ import java.util.Optional;
 @Transactional
 public class ProdutoService {
     
+    public static final int LIMITE_BUSCA_PADRAO = 20;
+    
+    // quanto uma busca espera o indice terminar de carregar antes de desistir
+    static final long ESPERA_INDICE_MS = 2000;
+    
     @Autowired
     private ProdutoRepository produtoRepository;
     
+    @Autowired
+    private IndiceBuscaProdutos indiceBusca;
+    
+    @Autowired
+    private ReservaEstoqueFlashSale reservaFlashSale;
+    
+    @Autowired
+    private VersaoCatalogo versaoCatalogo;
+    
+    @Autowired
+    private CacheSegundoNivel cacheSegundoNivel;
+    
     // Salvar produto
     public Produto salvar(Produto produto) {
-        return produtoRepository.save(produto);
+        Produto produtoSalvo = produtoRepository.save(produto);
+        indiceBusca.indexarAposCommit(produtoSalvo);
+        versaoCatalogo.registrarAlteracaoAposCommit(produtoSalvo.getId(), produtoSalvo.getCategoria());
+        return produtoSalvo;
     }
     
-    // Buscar todos os produtos
+    // Buscar todos os produtos (paginado por id)
     @Transactional(readOnly = true)
-    public List<Produto> buscarTodos() {
-        return produtoRepository.findAll();
+    public Pagina<Produto> buscarTodos(String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        List<Produto> produtos = produtoRepository.findByIdGreaterThanOrderByIdAsc(
+            Cursor.decodificar(cursor).getId(), Limit.of(limite + 1));
+        return Pagina.de(produtos, limite, p -> Cursor.codificar(p.getId()));
     }
     
-    // Buscar produto por ID
+    // Listagem enxuta de produtos, opcionalmente por categoria (paginado por id)
+    @Transactional(readOnly = true)
+    public Pagina<ProdutoListagem> buscarListagem(String categoria, String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        Long ultimoId = Cursor.decodificar(cursor).getId();
+        List<ProdutoListagem> produtos = categoria == null
+            ? produtoRepository.buscarListagem(ultimoId, Limit.of(limite + 1))
+            : produtoRepository.buscarListagemPorCategoria(categoria, ultimoId, Limit.of(limite + 1));
+        return Pagina.de(produtos, limite, p -> Cursor.codificar(p.getId()));
+    }
+    
+    // Buscar produto por ID (cache de segundo nivel: cada chamada recebe a sua propria instancia)
     @Transactional(readOnly = true)
     public Optional<Produto> buscarPorId(Long id) {
         return produtoRepository.findById(id);
     }
     
-    // Buscar produtos ativos
+    // Buscar produtos ativos (paginado por id)
     @Transactional(readOnly = true)
-    public List<Produto> buscarProdutosAtivos() {
-        return produtoRepository.findByAtivoTrue();
+    public Pagina<Produto> buscarProdutosAtivos(String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        List<Produto> produtos = produtoRepository.findByAtivoTrueAndIdGreaterThanOrderByIdAsc(
+            Cursor.decodificar(cursor).getId(), Limit.of(limite + 1));
+        return Pagina.de(produtos, limite, p -> Cursor.codificar(p.getId()));
     }
     
-    // Buscar produtos por categoria
+    // Buscar produtos por categoria (paginado por id)
     @Transactional(readOnly = true)
-    public List<Produto> buscarPorCategoria(String categoria) {
-        return produtoRepository.findByCategoria(categoria);
+    public Pagina<Produto> buscarPorCategoria(String categoria, String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        List<Produto> produtos = produtoRepository.findByCategoriaAndIdGreaterThanOrderByIdAsc(
+            categoria, Cursor.decodificar(cursor).getId(), Limit.of(limite + 1));
+        return Pagina.de(produtos, limite, p -> Cursor.codificar(p.getId()));
     }
     
     // Buscar produtos por nome
@@ -52,28 +97,44 @@ public class ProdutoService {
         return produtoRepository.findByNomeContainingIgnoreCase(nome);
     }
     
-    // Buscar produtos por faixa de preço
+    // Buscar produtos por faixa de preço (paginado por id)
     @Transactional(readOnly = true)
-    public List<Produto> buscarPorFaixaPreco(BigDecimal precoMin, BigDecimal precoMax) {
-        return produtoRepository.findByPrecoBetween(precoMin, precoMax);
+    public Pagina<Produto> buscarPorFaixaPreco(BigDecimal precoMin, BigDecimal precoMax, String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        List<Produto> produtos = produtoRepository.findByPrecoBetweenAndIdGreaterThanOrderByIdAsc(
+            precoMin, precoMax, Cursor.decodificar(cursor).getId(), Limit.of(limite + 1));
+        return Pagina.de(produtos, limite, p -> Cursor.codificar(p.getId()));
     }
     
-    // Buscar produtos com estoque baixo
+    // Buscar produtos com estoque baixo (paginado por id)
     @Transactional(readOnly = true)
-    public List<Produto> buscarProdutosComEstoqueBaixo(Integer quantidadeLimite) {
-        return produtoRepository.findProdutosComEstoqueBaixo(quantidadeLimite);
+    public Pagina<Produto> buscarProdutosComEstoqueBaixo(Integer quantidadeLimite, String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        List<Produto> produtos = produtoRepository.buscarPaginaComEstoqueBaixo(
+            quantidadeLimite, Cursor.decodificar(cursor).getId(), Limit.of(limite + 1));
+        return Pagina.de(produtos, limite, p -> Cursor.codificar(p.getId()));
     }
     
     // Buscar produtos por termo
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Produto> buscarPorTermo(String termo) {
-        return produtoRepository.buscarPorTermo(termo);
+        return buscarPorTermo(termo, LIMITE_BUSCA_PADRAO);
+    }
+    
+    // Buscar produtos por termo no indice em memoria, ordenados por relevancia.
+    // enquanto o indice carrega, espera ate ESPERA_INDICE_MS em vez de cair no LIKE do banco, que tem outro
+    // criterio (acha pedaco do meio da palavra, nao ignora acento, nao ordena por relevancia)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Produto> buscarPorTermo(String termo, Integer limite) {
+        int limiteBusca = limite != null && limite > 0 ? limite : LIMITE_BUSCA_PADRAO;
+        return indiceBusca.buscar(termo, limiteBusca, ESPERA_INDICE_MS);
     }
     
     // Atualizar produto
     public Produto atualizar(Long id, Produto produtoAtualizado) {
         Produto produto = produtoRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Produto não encontrado com ID: " + id));
+        String categoriaAnterior = produto.getCategoria();
         
         produto.setNome(produtoAtualizado.getNome());
         produto.setDescricao(produtoAtualizado.getDescricao());
@@ -82,7 +143,11 @@ public class ProdutoService {
         produto.setCategoria(produtoAtualizado.getCategoria());
         produto.setAtivo(produtoAtualizado.getAtivo());
         
-        return produtoRepository.save(produto);
+        Produto produtoSalvo = produtoRepository.save(produto);
+        indiceBusca.indexarAposCommit(produtoSalvo);
+        cacheSegundoNivel.evictarAposCommit(Produto.class, id);
+        versaoCatalogo.registrarAlteracaoAposCommit(id, categoriaAnterior, produtoSalvo.getCategoria());
+        return produtoSalvo;
     }
     
     // Atualizar estoque
@@ -95,7 +160,69 @@ public class ProdutoService {
         }
         
         produto.setQuantidadeEstoque(novaQuantidade);
-        return produtoRepository.save(produto);
+        Produto produtoSalvo = produtoRepository.save(produto);
+        indiceBusca.indexarAposCommit(produtoSalvo);
+        cacheSegundoNivel.evictarAposCommit(Produto.class, id);
+        versaoCatalogo.registrarAlteracaoAposCommit(id, produtoSalvo.getCategoria());
+        return produtoSalvo;
+    }
+    
+    // Reservar estoque: baixa atomica com UPDATE condicional, ou em memoria se o produto estiver em flash sale
+    public void reservarEstoque(Long id, Integer quantidade) {
+        validarQuantidadeReserva(quantidade);
+        
+        if (reservaFlashSale.isAtivo(id)) {
+            if (!reservaFlashSale.reservar(id, quantidade, delta -> estoqueAlteradoNoBanco(id, delta))) {
+                throw new RuntimeException("Estoque insuficiente para o produto com ID: " + id);
+            }
+            return;
+        }
+        
+        if (produtoRepository.reservarEstoque(id, quantidade) == 0) {
+            if (!produtoRepository.existsById(id)) {
+                throw new RuntimeException("Produto não encontrado com ID: " + id);
+            }
+            throw new RuntimeException("Estoque insuficiente para o produto com ID: " + id);
+        }
+        estoqueAlteradoNoBanco(id, -quantidade);
+    }
+    
+    // Liberar estoque reservado
+    public void liberarEstoque(Long id, Integer quantidade) {
+        validarQuantidadeReserva(quantidade);
+        
+        if (reservaFlashSale.liberar(id, quantidade, delta -> estoqueAlteradoNoBanco(id, delta))) {
+            return;
+        }
+        if (produtoRepository.liberarEstoque(id, quantidade) == 0) {
+            throw new RuntimeException("Produto não encontrado com ID: " + id);
+        }
+        estoqueAlteradoNoBanco(id, quantidade);
+    }
+    
+    // Ativar reserva em memoria (flash sale), retorna a quantidade separada do estoque
+    public int ativarFlashSale(Long id, Integer tamanhoLote) {
+        return reservaFlashSale.ativar(id, tamanhoLote, delta -> estoqueAlteradoNoBanco(id, delta));
+    }
+    
+    // Desativar reserva em memoria, retorna a quantidade devolvida ao estoque
+    public int desativarFlashSale(Long id) {
+        return reservaFlashSale.desativar(id, delta -> estoqueAlteradoNoBanco(id, delta));
+    }
+    
+    private void validarQuantidadeReserva(Integer quantidade) {
+        if (quantidade == null || quantidade <= 0) {
+            throw new RuntimeException("Quantidade deve ser positiva");
+        }
+    }
+    
+    // o UPDATE direto nao passa pela entidade: ajusta o indice, o cache de segundo nivel e as versoes (ETag)
+    // depois do commit. As baixas e devolucoes da flash sale chamam aqui dentro da propria transacao
+    // (REQUIRES_NEW), entao o ajuste vale quando ela confirma, mesmo que a transacao de fora seja desfeita
+    private void estoqueAlteradoNoBanco(Long id, int delta) {
+        indiceBusca.ajustarEstoqueAposCommit(id, delta);
+        cacheSegundoNivel.evictarAposCommit(Produto.class, id);
+        versaoCatalogo.registrarAlteracaoAposCommit(id);
     }
     
     // Desativar produto
@@ -105,6 +232,9 @@ public class ProdutoService {
         
         produto.setAtivo(false);
         produtoRepository.save(produto);
+        indiceBusca.indexarAposCommit(produto);
+        cacheSegundoNivel.evictarAposCommit(Produto.class, id);
+        versaoCatalogo.registrarAlteracaoAposCommit(id, produto.getCategoria());
     }
     
     // Ativar produto
@@ -114,14 +244,21 @@ public class ProdutoService {
         
         produto.setAtivo(true);
         produtoRepository.save(produto);
+        indiceBusca.indexarAposCommit(produto);
+        cacheSegundoNivel.evictarAposCommit(Produto.class, id);
+        versaoCatalogo.registrarAlteracaoAposCommit(id, produto.getCategoria());
     }
     
     // Deletar produto
     public void deletar(Long id) {
-        if (!produtoRepository.existsById(id)) {
-            throw new RuntimeException("Produto não encontrado com ID: " + id);
-        }
-        produtoRepository.deleteById(id);
+        // remove pela entidade (normalmente ja no cache de segundo nivel): o DELETE tira so essa entrada do cache,
+        // enquanto um DELETE em JPQL esvaziaria a regiao inteira de produtos
+        Produto produto = produtoRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Produto não encontrado com ID: " + id));
+        produtoRepository.delete(produto);
+        indiceBusca.removerAposCommit(id);
+        cacheSegundoNivel.evictarAposCommit(Produto.class, id);
+        versaoCatalogo.registrarAlteracaoAposCommit(id);
     }
     
     // Contar produtos por categoria
@@ -0,0 +1,180 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.repository.ProdutoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+// camada de reserva em memoria para produtos em promocao relampago.
+// ao ativar, um lote do estoque e baixado de uma vez no banco e passa a ser reservado em memoria;
+// quando acaba, outro lote e buscado. o que sobra volta ao banco ao desativar ou ao desligar a aplicacao.
+// enquanto ativo, o estoque do banco nao inclui as unidades que estao em memoria;
+// se o processo morrer sem desligar normalmente essas unidades ficam fora do estoque (nunca sobra venda).
+// cada reserva tem um ReentrantLock (e nao synchronized) porque a busca de lote faz I/O no banco segurando o lock,
+// e synchronized prende a thread de plataforma quando a requisicao roda em virtual thread.
+// cada baixa ou devolucao no banco e informada a quem chamou (estoqueAlterado, com a diferenca no estoque gravado)
+// dentro da propria transacao, para indice, caches e versoes serem ajustados quando ela confirma.
+@Component
+public class ReservaEstoqueFlashSale {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReservaEstoqueFlashSale.class);
+    
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    
+    private final Map<Long, Reserva> reservas = new ConcurrentHashMap<>();
+    
+    // as baixas e devolucoes de lote sao confirmadas antes de mexer no saldo em memoria
+    private final TransactionTemplate transacaoPropria;
+    
+    public ReservaEstoqueFlashSale(PlatformTransactionManager transactionManager) {
+        this.transacaoPropria = new TransactionTemplate(transactionManager);
+        this.transacaoPropria.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    public boolean isAtivo(Long produtoId) {
+        return reservas.containsKey(produtoId);
+    }
+    
+    // ativa a reserva em memoria e puxa o primeiro lote do banco; retorna a quantidade em memoria
+    public int ativar(Long produtoId, int tamanhoLote, IntConsumer estoqueAlterado) {
+        if (tamanhoLote <= 0) {
+            throw new RuntimeException("Tamanho do lote deve ser positivo");
+        }
+        if (!produtoRepository.existsById(produtoId)) {
+            throw new RuntimeException("Produto não encontrado com ID: " + produtoId);
+        }
+        while (true) {
+            Reserva reserva = reservas.computeIfAbsent(produtoId, id -> new Reserva(tamanhoLote));
+            reserva.lock.lock();
+            try {
+                // um desativar pode ter tirado esta reserva do mapa antes do lock: puxar lote para ela
+                // deixaria as unidades fora do banco e fora de qualquer reserva. Pega (ou cria) a atual
+                if (!reserva.estoque.isAtivo()) {
+                    continue;
+                }
+                if (reserva.estoque.disponivel() == 0) {
+                    reserva.estoque.devolver(puxarDoBanco(produtoId, reserva.tamanhoLote, estoqueAlterado));
+                }
+                return reserva.estoque.disponivel();
+            } finally {
+                reserva.lock.unlock();
+            }
+        }
+    }
+    
+    // reserva em memoria; se o saldo acabou, busca outro lote no banco (uma thread por vez)
+    public boolean reservar(Long produtoId, int quantidade, IntConsumer estoqueAlterado) {
+        Reserva reserva = reservas.get(produtoId);
+        if (reserva == null) {
+            throw new RuntimeException("Produto sem reserva em memória: " + produtoId);
+        }
+        if (reserva.estoque.retirar(quantidade)) {
+            return true;
+        }
+        reserva.lock.lock();
+        try {
+            while (reserva.estoque.isAtivo()) {
+                if (reserva.estoque.retirar(quantidade)) {
+                    return true;
+                }
+                int obtido = puxarDoBanco(produtoId, Math.max(reserva.tamanhoLote, quantidade), estoqueAlterado);
+                if (obtido == 0) {
+                    return false;
+                }
+                reserva.estoque.devolver(obtido);
+            }
+        } finally {
+            reserva.lock.unlock();
+        }
+        return false;
+    }
+    
+    // devolve para a memoria; se a reserva foi desativada nesse meio tempo, manda o resto para o banco
+    public boolean liberar(Long produtoId, int quantidade, IntConsumer estoqueAlterado) {
+        Reserva reserva = reservas.get(produtoId);
+        if (reserva == null) {
+            return false;
+        }
+        reserva.estoque.devolver(quantidade);
+        if (!reserva.estoque.isAtivo()) {
+            devolverAoBanco(produtoId, reserva.estoque.drenar(), estoqueAlterado);
+        }
+        return true;
+    }
+    
+    // desativa e devolve ao banco o saldo em memoria; retorna a quantidade devolvida
+    public int desativar(Long produtoId, IntConsumer estoqueAlterado) {
+        Reserva reserva = reservas.remove(produtoId);
+        if (reserva == null) {
+            return 0;
+        }
+        reserva.lock.lock();
+        try {
+            reserva.estoque.desativar();
+            int saldo = reserva.estoque.drenar();
+            devolverAoBanco(produtoId, saldo, estoqueAlterado);
+            return saldo;
+        } finally {
+            reserva.lock.unlock();
+        }
+    }
+    
+    @PreDestroy
+    public void desativarTodas() {
+        for (Long produtoId : reservas.keySet()) {
+            // no desligamento nao ha indice nem cache para ajustar
+            int devolvido = desativar(produtoId, delta -> { });
+            log.info("Reserva em memória do produto {} encerrada, {} unidades devolvidas ao estoque", produtoId, devolvido);
+        }
+    }
+    
+    // baixa ate 'quantidade' unidades no banco; se nao houver tudo, baixa o que tiver
+    private int puxarDoBanco(Long produtoId, int quantidade, IntConsumer estoqueAlterado) {
+        Integer obtido = transacaoPropria.execute(status -> {
+            int pedido = quantidade;
+            while (pedido > 0) {
+                if (produtoRepository.reservarEstoque(produtoId, pedido) == 1) {
+                    estoqueAlterado.accept(-pedido);
+                    return pedido;
+                }
+                Integer atual = produtoRepository.buscarQuantidadeEstoque(produtoId);
+                if (atual == null || atual <= 0) {
+                    return 0;
+                }
+                pedido = Math.min(pedido, atual);
+            }
+            return 0;
+        });
+        return obtido != null ? obtido : 0;
+    }
+    
+    private void devolverAoBanco(Long produtoId, int quantidade, IntConsumer estoqueAlterado) {
+        if (quantidade > 0) {
+            transacaoPropria.executeWithoutResult(status -> {
+                produtoRepository.liberarEstoque(produtoId, quantidade);
+                estoqueAlterado.accept(quantidade);
+            });
+        }
+    }
+    
+    private static class Reserva {
+        private final int tamanhoLote;
+        private final EstoqueListrado estoque = new EstoqueListrado();
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        Reserva(int tamanhoLote) {
+            this.tamanhoLote = tamanhoLote;
+        }
+    }
+}
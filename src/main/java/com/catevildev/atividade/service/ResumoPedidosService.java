@@ -0,0 +1,148 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.dto.DivergenciaResumo;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.ResumoPedidosUsuario;
+import com.catevildev.atividade.repository.ResumoPedidosUsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// mantem os totais de pedidos por usuario; chamado dentro das transacoes de escrita de pedidos
+@Service
+@Transactional
+public class ResumoPedidosService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ResumoPedidosService.class);
+    
+    @Autowired
+    private ResumoPedidosUsuarioRepository resumoRepository;
+    
+    // cria o resumo zerado de um usuario novo
+    public void criar(Long usuarioId) {
+        resumoRepository.criar(usuarioId);
+    }
+    
+    // remove o resumo de um usuario apagado
+    public void apagar(Long usuarioId) {
+        resumoRepository.apagar(usuarioId);
+    }
+    
+    // soma um pedido novo
+    public void registrarNovo(Pedido pedido) {
+        registrarDiferenca(pedido.getUsuario().getId(),
+            valorContabilizado(pedido.getStatus(), pedido.getValorTotal()),
+            quantidadeContabilizada(pedido.getStatus()),
+            pedido.getDataPedido());
+    }
+    
+    // aplica a diferenca entre o estado anterior e o atual do pedido
+    public void registrarAlteracao(Long usuarioId, Pedido.StatusPedido statusAnterior, BigDecimal valorAnterior,
+                                   Pedido.StatusPedido statusAtual, BigDecimal valorAtual) {
+        BigDecimal deltaValor = valorContabilizado(statusAtual, valorAtual)
+            .subtract(valorContabilizado(statusAnterior, valorAnterior));
+        long deltaQuantidade = quantidadeContabilizada(statusAtual) - quantidadeContabilizada(statusAnterior);
+        if (deltaValor.signum() != 0 || deltaQuantidade != 0) {
+            registrarDiferenca(usuarioId, deltaValor, deltaQuantidade, null);
+        }
+    }
+    
+    // subtrai um pedido apagado (a data do ultimo pedido e recalculada)
+    public void registrarRemocao(Long usuarioId, Pedido.StatusPedido status, BigDecimal valor) {
+        int alterados = resumoRepository.subtrairRemovido(usuarioId,
+            valorContabilizado(status, valor).negate(),
+            -quantidadeContabilizada(status));
+        if (alterados == 0) {
+            recriarFaltante(usuarioId);
+        }
+    }
+    
+    // soma diferencas ja agregadas (usado na importacao em lote)
+    public void registrarDiferenca(Long usuarioId, BigDecimal deltaValor, long deltaQuantidade, LocalDateTime dataPedido) {
+        if (resumoRepository.somar(usuarioId, deltaValor, deltaQuantidade, dataPedido) == 0) {
+            recriarFaltante(usuarioId);
+        }
+    }
+    
+    // sem linha de resumo (usuario anterior ao resumo, reconstrucao interrompida): calcula a linha a partir dos
+    // pedidos, que ja incluem a escrita atual (o Hibernate faz o flush antes do SQL nativo)
+    private void recriarFaltante(Long usuarioId) {
+        resumoRepository.reconstruir(usuarioId);
+        log.warn("Resumo de pedidos do usuário {} não existia e foi recalculado", usuarioId);
+    }
+    
+    // leitura por chave primaria
+    @Transactional(readOnly = true)
+    public Optional<ResumoPedidosUsuario> buscar(Long usuarioId) {
+        return resumoRepository.findById(usuarioId);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirNaInicializacao() {
+        reconstruir();
+    }
+    
+    // recalcula todos os resumos a partir dos pedidos com um upsert (as linhas sao substituidas no lugar, nenhum
+    // usuario fica sem resumo no meio). Escritas de pedidos concorrentes ainda podem se perder: rodar com pouco trafego
+    public int reconstruir() {
+        int usuarios = resumoRepository.reconstruirTodos();
+        resumoRepository.apagarSemUsuario();
+        log.info("Resumo de pedidos reconstruído para {} usuários", usuarios);
+        return usuarios;
+    }
+    
+    // compara os resumos com os pedidos, sem alterar nada
+    @Scheduled(cron = "${app.pedidos.resumo.verificacao-cron:0 0 3 * * *}")
+    @Transactional(readOnly = true)
+    public List<DivergenciaResumo> verificar() {
+        List<DivergenciaResumo> divergencias = new ArrayList<>();
+        for (Object[] linha : resumoRepository.buscarDivergencias()) {
+            divergencias.add(new DivergenciaResumo(
+                ((Number) linha[0]).longValue(),
+                (BigDecimal) linha[1],
+                linha[2] != null ? ((Number) linha[2]).longValue() : null,
+                paraLocalDateTime(linha[3]),
+                paraBigDecimal(linha[4]),
+                ((Number) linha[5]).longValue(),
+                paraLocalDateTime(linha[6])));
+        }
+        if (!divergencias.isEmpty()) {
+            log.warn("{} usuários com resumo de pedidos divergente", divergencias.size());
+        }
+        return divergencias;
+    }
+    
+    public static BigDecimal valorContabilizado(Pedido.StatusPedido status, BigDecimal valor) {
+        return status != Pedido.StatusPedido.CANCELADO && valor != null ? valor : BigDecimal.ZERO;
+    }
+    
+    public static long quantidadeContabilizada(Pedido.StatusPedido status) {
+        return status != Pedido.StatusPedido.CANCELADO ? 1 : 0;
+    }
+    
+    private static BigDecimal paraBigDecimal(Object valor) {
+        if (valor instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        return new BigDecimal(valor.toString());
+    }
+    
+    private static LocalDateTime paraLocalDateTime(Object valor) {
+        if (valor instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) valor;
+    }
+}
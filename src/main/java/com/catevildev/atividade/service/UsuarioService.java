@@ -1,9 +1,18 @@
 package com.catevildev.atividade.service;
 
+import com.catevildev.atividade.dto.Cursor;
+import com.catevildev.atividade.dto.Pagina;
+import com.catevildev.atividade.dto.UsuarioListagem;
 import com.catevildev.atividade.entity.Usuario;
 import com.catevildev.atividade.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -13,70 +22,143 @@ import java.util.Optional;
 @Transactional
 public class UsuarioService {
     
+    public static final String CACHE_USUARIOS_POR_EMAIL = "usuariosPorEmail";
+    public static final int LIMITE_BUSCA_PADRAO = 20;
+    
     @Autowired
     private UsuarioRepository usuarioRepository;
     
-    // salvar usuário
+    @Autowired
+    private IndiceTrigramasUsuarios indiceTrigramas;
+    
+    @Autowired
+    private ResumoPedidosService resumoPedidos;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private CacheSegundoNivel cacheSegundoNivel;
+    
+    // salvar usuário (email repetido e barrado pela restricao unica, sem consulta antes do INSERT)
     public Usuario salvar(Usuario usuario) {
-        if (usuarioRepository.existsByEmail(usuario.getEmail())) {
-            throw new RuntimeException("Email já cadastrado: " + usuario.getEmail());
-        }
-        return usuarioRepository.save(usuario);
+        Usuario usuarioSalvo = gravar(usuario);
+        resumoPedidos.criar(usuarioSalvo.getId());
+        indiceTrigramas.indexarAposCommit(usuarioSalvo);
+        return usuarioSalvo;
     }
     
-    // busca todos os usuarios
+    // busca todos os usuarios (paginado por id)
     @Transactional(readOnly = true)
-    public List<Usuario> buscarTodos() {
-        return usuarioRepository.findAll();
+    public Pagina<Usuario> buscarTodos(String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        List<Usuario> usuarios = usuarioRepository.findByIdGreaterThanOrderByIdAsc(
+            Cursor.decodificar(cursor).getId(), Limit.of(limite + 1));
+        return Pagina.de(usuarios, limite, u -> Cursor.codificar(u.getId()));
     }
     
-    // busca usuario por id
+    // listagem enxuta de usuarios (paginado por id)
+    @Transactional(readOnly = true)
+    public Pagina<UsuarioListagem> buscarListagem(String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        List<UsuarioListagem> usuarios = usuarioRepository.buscarListagem(
+            Cursor.decodificar(cursor).getId(), Limit.of(limite + 1));
+        return Pagina.de(usuarios, limite, u -> Cursor.codificar(u.getId()));
+    }
+    
+    // busca usuario por id (cache de segundo nivel: cada chamada recebe a sua propria instancia)
     @Transactional(readOnly = true)
     public Optional<Usuario> buscarPorId(Long id) {
         return usuarioRepository.findById(id);
     }
     
-    // busca usuario por email
+    // busca usuario por email; o cache guarda so o id (valor imutavel, nao a entidade) e o usuario sai
+    // do cache de segundo nivel. Id cujo email nao bate mais (email alterado) e descartado
     @Transactional(readOnly = true)
     public Optional<Usuario> buscarPorEmail(String email) {
-        return usuarioRepository.findByEmail(email);
+        Cache cache = cacheManager.getCache(CACHE_USUARIOS_POR_EMAIL);
+        Long id = cache.get(email, Long.class);
+        if (id != null) {
+            Optional<Usuario> usuario = usuarioRepository.findById(id).filter(u -> email.equals(u.getEmail()));
+            if (usuario.isPresent()) {
+                return usuario;
+            }
+            cache.evict(email);
+        }
+        Optional<Usuario> usuario = usuarioRepository.findByEmail(email);
+        usuario.ifPresent(u -> cache.put(email, u.getId()));
+        return usuario;
     }
     
-    // busca usuarios ativos
+    // busca usuarios ativos (paginado por id)
     @Transactional(readOnly = true)
-    public List<Usuario> buscarUsuariosAtivos() {
-        return usuarioRepository.findByAtivoTrue();
+    public Pagina<Usuario> buscarUsuariosAtivos(String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        List<Usuario> usuarios = usuarioRepository.findByAtivoTrueAndIdGreaterThanOrderByIdAsc(
+            Cursor.decodificar(cursor).getId(), Limit.of(limite + 1));
+        return Pagina.de(usuarios, limite, u -> Cursor.codificar(u.getId()));
     }
     
-    // busca usuarios por nome
-    @Transactional(readOnly = true)
-    public List<Usuario> buscarPorNome(String nome) {
-        return usuarioRepository.findByNomeContainingIgnoreCase(nome);
+    // busca usuarios por nome (paginado por id), pelo indice de trigramas
+    // (usa a consulta no banco so enquanto o indice esta sendo reconstruido)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Pagina<Usuario> buscarPorNome(String nome, String cursor, Integer tamanho) {
+        int limite = Pagina.limitarTamanho(tamanho);
+        Long ultimoId = Cursor.decodificar(cursor).getId();
+        List<Usuario> usuarios = indiceTrigramas.isPronto()
+            ? indiceTrigramas.buscar(nome, false, ultimoId, limite + 1)
+            : usuarioRepository.findByNomeContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+                nome, ultimoId, Limit.of(limite + 1));
+        return Pagina.de(usuarios, limite, u -> Cursor.codificar(u.getId()));
     }
     
     // busca usuarios por termo (nome ou email)
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Usuario> buscarPorTermo(String termo) {
-        return usuarioRepository.buscarPorNomeOuEmail(termo);
+        return buscarPorTermo(termo, LIMITE_BUSCA_PADRAO);
     }
     
-    // atualiza usuario
+    // busca usuarios por termo (nome ou email) pelo indice de trigramas, em ordem de id
+    // (usa a consulta no banco so enquanto o indice esta sendo reconstruido)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Usuario> buscarPorTermo(String termo, Integer limite) {
+        int limiteBusca = limite != null && limite > 0 ? limite : LIMITE_BUSCA_PADRAO;
+        if (indiceTrigramas.isPronto()) {
+            return indiceTrigramas.buscar(termo, true, 0L, limiteBusca);
+        }
+        return usuarioRepository.buscarPorNomeOuEmail(termo).stream()
+            .limit(limiteBusca)
+            .toList();
+    }
+    
+    // grava na hora (flush) para a violacao do email unico aparecer aqui e virar mensagem de negocio
+    private Usuario gravar(Usuario usuario) {
+        try {
+            return usuarioRepository.saveAndFlush(usuario);
+        } catch (DataIntegrityViolationException e) {
+            if (ViolacaoRestricao.de(e, Usuario.RESTRICAO_EMAIL)) {
+                throw new RuntimeException("Email já cadastrado: " + usuario.getEmail());
+            }
+            throw e;
+        }
+    }
+    
+    // atualiza usuario (o email antigo pode estar no cache, por isso limpa o cache por email inteiro)
+    @CacheEvict(value = CACHE_USUARIOS_POR_EMAIL, allEntries = true)
     public Usuario atualizar(Long id, Usuario usuarioAtualizado) {
         Usuario usuario = usuarioRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + id));
         
-        // verifica se o email nao esta sendo usado por outro usuario
-        if (!usuario.getEmail().equals(usuarioAtualizado.getEmail()) && 
-            usuarioRepository.existsByEmail(usuarioAtualizado.getEmail())) {
-            throw new RuntimeException("Email já cadastrado: " + usuarioAtualizado.getEmail());
-        }
-        
         usuario.setNome(usuarioAtualizado.getNome());
         usuario.setEmail(usuarioAtualizado.getEmail());
         usuario.setTelefone(usuarioAtualizado.getTelefone());
         usuario.setAtivo(usuarioAtualizado.getAtivo());
         
-        return usuarioRepository.save(usuario);
+        // email usado por outro usuario e barrado pela restricao unica
+        Usuario usuarioSalvo = gravar(usuario);
+        indiceTrigramas.indexarAposCommit(usuarioSalvo);
+        cacheSegundoNivel.evictarAposCommit(Usuario.class, id);
+        return usuarioSalvo;
     }
     
     // desativa usuario
@@ -86,6 +168,8 @@ public class UsuarioService {
         
         usuario.setAtivo(false);
         usuarioRepository.save(usuario);
+        indiceTrigramas.indexarAposCommit(usuario);
+        cacheSegundoNivel.evictarAposCommit(Usuario.class, id);
     }
     
     // ativa usuario
@@ -95,14 +179,21 @@ public class UsuarioService {
         
         usuario.setAtivo(true);
         usuarioRepository.save(usuario);
+        indiceTrigramas.indexarAposCommit(usuario);
+        cacheSegundoNivel.evictarAposCommit(Usuario.class, id);
     }
     
     // deleta usuario
+    @CacheEvict(value = CACHE_USUARIOS_POR_EMAIL, allEntries = true)
     public void deletar(Long id) {
-        if (!usuarioRepository.existsById(id)) {
-            throw new RuntimeException("Usuário não encontrado com ID: " + id);
-        }
-        usuarioRepository.deleteById(id);
+        // remove pela entidade (normalmente ja no cache de segundo nivel): o DELETE tira so essa entrada do cache,
+        // enquanto um DELETE em JPQL esvaziaria a regiao inteira de usuarios
+        Usuario usuario = usuarioRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + id));
+        resumoPedidos.apagar(id);
+        usuarioRepository.delete(usuario);
+        indiceTrigramas.removerAposCommit(id);
+        cacheSegundoNivel.evictarAposCommit(Usuario.class, id);
     }
     
     // conta usuarios ativos
@@ -0,0 +1,92 @@
+package com.catevildev.atividade.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// versoes do catalogo em memoria para ETag: uma por produto, uma para a lista de ativos e uma por categoria.
+// as escritas do ProdutoService incrementam depois do commit; o controller le a versao ANTES de consultar o banco,
+// assim uma escrita concorrente no maximo gera um ETag velho para dados novos (o cliente so busca de novo).
+// a epoca muda a cada subida da aplicacao, porque os contadores recomecam do zero.
+@Component
+public class VersaoCatalogo {
+    
+    private static final int FAIXAS_PRODUTO = 4096;
+    
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+    
+    private final AtomicLong versaoAtivos = new AtomicLong();
+    // alteracoes sem categoria conhecida (ex.: UPDATE direto de estoque) invalidam todas as categorias
+    private final AtomicLong versaoGeral = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> versoesCategoria = new ConcurrentHashMap<>();
+    // versoes de produto em faixas fixas (id -> faixa): a memoria nao cresce com o catalogo nem com produtos apagados.
+    // dois produtos na mesma faixa dividem a versao; uma escrita num deles so faz o outro ser buscado de novo
+    private final AtomicLongArray versoesProduto = new AtomicLongArray(FAIXAS_PRODUTO);
+    
+    // produto alterado; categorias = as que o produto tinha e/ou passou a ter (vazio = desconhecida)
+    public void registrarAlteracaoAposCommit(Long produtoId, String... categorias) {
+        AposCommit.executar(() -> registrarAlteracao(produtoId, categorias));
+    }
+    
+    public void registrarAlteracao(Long produtoId, String... categorias) {
+        if (produtoId != null) {
+            versoesProduto.incrementAndGet(faixa(produtoId));
+        }
+        versaoAtivos.incrementAndGet();
+        
+        boolean algumaCategoria = false;
+        for (String categoria : categorias) {
+            if (categoria != null) {
+                versoesCategoria.computeIfAbsent(categoria, c -> new AtomicLong()).incrementAndGet();
+                algumaCategoria = true;
+            }
+        }
+        if (!algumaCategoria) {
+            versaoGeral.incrementAndGet();
+        }
+    }
+    
+    public String etagProduto(Long id) {
+        return "p" + id + "-" + epoca + "-" + versoesProduto.get(faixa(id));
+    }
+    
+    public String etagAtivos() {
+        return "a-" + epoca + "-" + versaoAtivos.get();
+    }
+    
+    public String etagCategoria(String categoria) {
+        AtomicLong versao = versoesCategoria.get(categoria);
+        return "c" + Integer.toHexString(categoria.hashCode()) + "-" + epoca + "-" + versaoGeral.get()
+            + "." + (versao == null ? 0 : versao.get());
+    }
+    
+    private static int faixa(Long produtoId) {
+        return Long.hashCode(produtoId) & (FAIXAS_PRODUTO - 1);
+    }
+    
+    // If-None-Match usa comparacao fraca: ignora o prefixo W/ e aceita lista separada por virgula ou *
+    public static boolean corresponde(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*")) {
+                return true;
+            }
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.length() >= 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+                valor = valor.substring(1, valor.length() - 1);
+            }
+            if (Objects.equals(valor, etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,37 @@
+package com.catevildev.atividade.service;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+// diz qual restricao do banco barrou a escrita. Permite trocar a verificacao previa (um SELECT a mais
+// por escrita) pela propria restricao e ainda devolver a mensagem de negocio certa.
+final class ViolacaoRestricao {
+    
+    private ViolacaoRestricao() {
+    }
+    
+    // o H2 poe o nome da restricao (ou do indice dela) em maiusculas, com prefixo de schema
+    static boolean de(DataIntegrityViolationException e, String restricao) {
+        String nome = restricao.toUpperCase(Locale.ROOT);
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException violacao && contem(violacao.getConstraintName(), nome)) {
+                return true;
+            }
+            if (causa instanceof SQLException sql) {
+                for (SQLException atual = sql; atual != null; atual = atual.getNextException()) {
+                    if (contem(atual.getMessage(), nome)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static boolean contem(String texto, String nome) {
+        return texto != null && texto.toUpperCase(Locale.ROOT).contains(nome);
+    }
+}
@@ -0,0 +1,57 @@
+package com.catevildev.atividade;
+
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.entity.Usuario;
+import com.catevildev.atividade.service.PedidoService;
+import com.catevildev.atividade.service.ProdutoService;
+import com.catevildev.atividade.service.UsuarioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// massa de dados dos testes, gravada pelos servicos (resumo, contadores e indices ficam em dia).
+// Os testes dividem o mesmo banco, entao cada usuario ganha nome e email unicos
+@Component
+public class DadosTeste {
+    
+    @Autowired
+    private UsuarioService usuarioService;
+    
+    @Autowired
+    private PedidoService pedidoService;
+    
+    @Autowired
+    private ProdutoService produtoService;
+    
+    public static String sufixo() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+    
+    public static String emailNovo() {
+        return sufixo() + "@teste.com";
+    }
+    
+    public Usuario usuario() {
+        String sufixo = sufixo();
+        return usuarioService.salvar(new Usuario("Cliente " + sufixo, sufixo + "@teste.com", "66999990000"));
+    }
+    
+    public Pedido pedido(Usuario usuario, String valor) {
+        return pedidoService.salvar(new Pedido(usuario, new BigDecimal(valor), null));
+    }
+    
+    public Pedido pedido(Usuario usuario, String valor, LocalDateTime data, Pedido.StatusPedido status) {
+        Pedido pedido = new Pedido(usuario, new BigDecimal(valor), null);
+        pedido.setDataPedido(data);
+        pedido.setStatus(status);
+        return pedidoService.salvar(pedido);
+    }
+    
+    public Produto produto(String categoria, int estoque) {
+        return produtoService.salvar(new Produto("Teclado " + sufixo(), "Mecânico", new BigDecimal("349.90"), estoque, categoria));
+    }
+}
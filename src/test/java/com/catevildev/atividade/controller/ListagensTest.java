@@ -0,0 +1,99 @@
+package com.catevildev.atividade.controller;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.dto.Cursor;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.entity.Usuario;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// rotas /listagem: filtro opcional, pagina por cursor em ordem de id e so as colunas da lista.
+// Os testes dividem o banco, entao cada consulta parte de um cursor logo antes dos registros criados aqui
+@SpringBootTest
+@AutoConfigureMockMvc
+class ListagensTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Test
+    void pedidosPorStatusEPorCursor() throws Exception {
+        Usuario usuario = dados.usuario();
+        LocalDateTime agora = LocalDateTime.now();
+        Pedido primeiro = dados.pedido(usuario, "10.00", agora, Pedido.StatusPedido.ENTREGUE);
+        Pedido pendente = dados.pedido(usuario, "20.00", agora, Pedido.StatusPedido.PENDENTE);
+        Pedido terceiro = dados.pedido(usuario, "30.00", agora, Pedido.StatusPedido.ENTREGUE);
+        String antes = Cursor.codificar(primeiro.getId() - 1);
+        
+        mockMvc.perform(get("/api/pedidos/listagem?tamanho=3&cursor=" + antes))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.itens[*].id").value(contains(
+                primeiro.getId().intValue(), pendente.getId().intValue(), terceiro.getId().intValue())))
+            .andExpect(jsonPath("$.itens[0].numeroPedido").value(primeiro.getNumeroPedido()))
+            .andExpect(jsonPath("$.itens[0].usuarioId").value(usuario.getId().intValue()))
+            .andExpect(jsonPath("$.itens[0].usuario").doesNotExist());
+        
+        // com status: a primeira pagina pula o pendente e o cursor leva ao proximo entregue
+        String pagina = mockMvc.perform(get("/api/pedidos/listagem?status=ENTREGUE&tamanho=1&cursor=" + antes))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.itens[*].id").value(contains(primeiro.getId().intValue())))
+            .andExpect(jsonPath("$.temMais").value(true))
+            .andReturn().getResponse().getContentAsString();
+        String proximo = JsonPath.read(pagina, "$.proximoCursor");
+        
+        mockMvc.perform(get("/api/pedidos/listagem?status=ENTREGUE&tamanho=1&cursor=" + proximo))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.itens[*].id").value(contains(terceiro.getId().intValue())))
+            .andExpect(jsonPath("$.itens[0].status").value("ENTREGUE"));
+    }
+    
+    @Test
+    void produtosPorCategoriaEPorCursor() throws Exception {
+        String categoria = "Categoria " + DadosTeste.sufixo();
+        Produto primeiro = dados.produto(categoria, 5);
+        Produto outraCategoria = dados.produto("Outra " + DadosTeste.sufixo(), 5);
+        Produto segundo = dados.produto(categoria, 5);
+        
+        mockMvc.perform(get("/api/produtos/listagem").param("categoria", categoria))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.itens[*].id").value(contains(
+                primeiro.getId().intValue(), segundo.getId().intValue())))
+            .andExpect(jsonPath("$.itens[0].nome").value(primeiro.getNome()))
+            .andExpect(jsonPath("$.itens[0].categoria").value(categoria))
+            .andExpect(jsonPath("$.itens[0].descricao").doesNotExist())
+            .andExpect(jsonPath("$.temMais").value(false));
+        
+        mockMvc.perform(get("/api/produtos/listagem?tamanho=3&cursor=" + Cursor.codificar(primeiro.getId() - 1)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.itens[*].id").value(contains(
+                primeiro.getId().intValue(), outraCategoria.getId().intValue(), segundo.getId().intValue())));
+    }
+    
+    @Test
+    void usuariosPorCursor() throws Exception {
+        Usuario primeiro = dados.usuario();
+        Usuario segundo = dados.usuario();
+        
+        mockMvc.perform(get("/api/usuarios/listagem?tamanho=2&cursor=" + Cursor.codificar(primeiro.getId() - 1)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.itens[*].id").value(contains(
+                primeiro.getId().intValue(), segundo.getId().intValue())))
+            .andExpect(jsonPath("$.itens[0].email").value(primeiro.getEmail()))
+            .andExpect(jsonPath("$.itens[0].telefone").doesNotExist());
+    }
+}
@@ -0,0 +1,61 @@
+package com.catevildev.atividade.controller;
+
+import com.catevildev.atividade.diagnostico.CapturadorSql;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// orcamento de SQLs por requisicao: o MockMvc roda na thread do teste, entao o CapturadorSql (por thread)
+// ve tudo o que a requisicao manda ao banco, inclusive depois do commit. Antes de cada medida os caches
+// (segundo nivel, consultas e Caffeine) sao esvaziados, entao o orcamento vale para o pior caso.
+// Busca de valor de sequence fica de fora: sai uma a cada 50 inserts, nao depende da requisicao.
+class OrcamentoSql {
+    
+    private final MockMvc mockMvc;
+    
+    private final EntityManagerFactory entityManagerFactory;
+    
+    private final CacheManager cacheManager;
+    
+    OrcamentoSql(MockMvc mockMvc, EntityManagerFactory entityManagerFactory, CacheManager cacheManager) {
+        this.mockMvc = mockMvc;
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheManager = cacheManager;
+    }
+    
+    // faz a requisicao, confere a resposta e falha (listando os SQLs) se passar de 'maximo'
+    MvcResult verificar(int maximo, RequestBuilder requisicao, ResultMatcher... esperado) throws Exception {
+        esfriarCaches();
+        MvcResult resultado;
+        List<String> sqls;
+        CapturadorSql.iniciar();
+        try {
+            resultado = mockMvc.perform(requisicao).andExpectAll(esperado).andReturn();
+        } finally {
+            sqls = CapturadorSql.parar().stream()
+                .filter(sql -> !sql.toLowerCase(Locale.ROOT).contains("next value for"))
+                .toList();
+        }
+        
+        String chamada = resultado.getRequest().getMethod() + " " + resultado.getRequest().getRequestURI();
+        assertTrue(sqls.size() <= maximo, () -> chamada + " fez " + sqls.size() + " SQLs, orçamento "
+            + maximo + ":\n" + String.join("\n", sqls));
+        return resultado;
+    }
+    
+    private void esfriarCaches() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        for (String nome : cacheManager.getCacheNames()) {
+            cacheManager.getCache(nome).clear();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.catevildev.atividade.controller;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.Usuario;
+import com.catevildev.atividade.service.ArquivamentoPedidosService;
+import com.catevildev.atividade.service.AtualizacaoStatusPedidosService;
+import com.catevildev.atividade.service.CancelamentoAutomaticoPedidosService;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// orcamento de SQLs de cada endpoint de /api/pedidos (pior caso, com caches vazios)
+@SpringBootTest
+@AutoConfigureMockMvc
+class PedidoControllerSqlTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Autowired
+    private CancelamentoAutomaticoPedidosService cancelamentoAutomatico;
+    
+    @Autowired
+    private ArquivamentoPedidosService arquivamento;
+    
+    @Autowired
+    private AtualizacaoStatusPedidosService atualizacaoStatus;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    private OrcamentoSql orcamento;
+    
+    @BeforeEach
+    void iniciar() {
+        orcamento = new OrcamentoSql(mockMvc, entityManagerFactory, cacheManager);
+    }
+    
+    @Test
+    void leituras() throws Exception {
+        Usuario usuario = dados.usuario();
+        Pedido pedido = dados.pedido(usuario, "50.00");
+        dados.pedido(usuario, "50.00");
+        String periodo = "dataInicio=" + LocalDateTime.now().minusMinutes(1) + "&dataFim=" + LocalDateTime.now().plusDays(1);
+        
+        // leituras que podem achar pedido arquivado: tabela quente, MAX(data_pedido) do arquivo (guardado
+        // por pouco tempo, entao entra no pior caso) e o arquivo. PENDENTE nunca e arquivado
+        orcamento.verificar(3, get("/api/pedidos?tamanho=20"), status().isOk());
+        orcamento.verificar(3, get("/api/pedidos/listagem?tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/pedidos/listagem?status=PENDENTE&tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/pedidos/" + pedido.getId()), status().isOk());
+        orcamento.verificar(3, get("/api/pedidos/usuario/" + usuario.getId()), status().isOk());
+        orcamento.verificar(1, get("/api/pedidos/status/PENDENTE?tamanho=20"), status().isOk());
+        orcamento.verificar(3, get("/api/pedidos/periodo?tamanho=20&" + periodo), status().isOk());
+        orcamento.verificar(1, get("/api/pedidos/usuario/" + usuario.getId() + "/valor-total"), status().isOk());
+        orcamento.verificar(1, get("/api/pedidos/usuario/" + usuario.getId() + "/resumo"), status().isOk());
+        orcamento.verificar(0, get("/api/pedidos/estatisticas"), status().isOk());
+        orcamento.verificar(1, get("/api/pedidos/exportar?status=PENDENTE&" + periodo), status().isOk());
+        orcamento.verificar(1, get("/api/pedidos/totais/verificar"), status().isOk());
+    }
+    
+    @Test
+    void criarConfereOUsuarioPelaChaveEstrangeira() throws Exception {
+        Usuario usuario = dados.usuario();
+        
+        // INSERT do pedido, SELECT do usuario (cache de segundo nivel vazio) e UPDATE do resumo;
+        // a resposta traz o usuario completo, como nas consultas
+        orcamento.verificar(3, post("/api/pedidos").contentType(MediaType.APPLICATION_JSON)
+                .content(pedidoJson(usuario.getId(), "25.00")),
+            status().isCreated(),
+            jsonPath("$.usuario.id").value(usuario.getId()),
+            jsonPath("$.usuario.nome").value(usuario.getNome()));
+        // usuario inexistente: so o INSERT, barrado pela chave estrangeira
+        orcamento.verificar(1, post("/api/pedidos").contentType(MediaType.APPLICATION_JSON)
+                .content(pedidoJson(Long.MAX_VALUE, "25.00")),
+            status().isBadRequest(), content().string(containsString("encontrado")));
+    }
+    
+    @Test
+    void criarEmLote() throws Exception {
+        Usuario usuario = dados.usuario();
+        
+        // usuarios do bloco numa consulta, INSERTs em batch e um UPDATE de resumo por usuario
+        MvcResult resultado = orcamento.verificar(3, post("/api/pedidos/lote").contentType(MediaType.APPLICATION_JSON)
+            .content("[" + pedidoJson(usuario.getId(), "10.00") + "," + pedidoJson(usuario.getId(), "20.00") + "]"),
+            status().isOk(),
+            jsonPath("$[0].situacao").value("CRIADO"),
+            jsonPath("$[1].situacao").value("CRIADO"));
+        
+        // os dois INSERTs saem no mesmo batch: cada pedido precisa do seu numero
+        List<String> numeros = JsonPath.read(resultado.getResponse().getContentAsString(), "$[*].numeroPedido");
+        assertNotEquals(numeros.get(0), numeros.get(1));
+    }
+    
+    @Test
+    void alteracoesTravamALinhaEAjustamOResumo() throws Exception {
+        Usuario usuario = dados.usuario();
+        Pedido pedido = dados.pedido(usuario, "50.00");
+        
+        orcamento.verificar(3, put("/api/pedidos/" + pedido.getId()).contentType(MediaType.APPLICATION_JSON)
+            .content("{\"valorTotal\":70.00,\"status\":\"PENDENTE\"}"), status().isOk());
+        orcamento.verificar(3, patch("/api/pedidos/" + pedido.getId() + "/status?status=PROCESSANDO"), status().isOk());
+        orcamento.verificar(3, patch("/api/pedidos/" + pedido.getId() + "/cancelar"), status().isOk());
+        orcamento.verificar(3, delete("/api/pedidos/" + pedido.getId()), status().isOk());
+    }
+    
+    @Test
+    void rotinasManuais() throws Exception {
+        // o que ja estava pendente (de outros testes) sai antes da medida
+        cancelamentoAutomatico.cancelarPendentesAntigos();
+        arquivamento.arquivar();
+        atualizacaoStatus.descarregar();
+        
+        orcamento.verificar(2, post("/api/pedidos/totais/reconstruir"), status().isOk());
+        orcamento.verificar(1, post("/api/pedidos/pendentes/cancelamento"), status().isOk());
+        orcamento.verificar(1, post("/api/pedidos/arquivamento"), status().isOk());
+        orcamento.verificar(0, post("/api/pedidos/status/descarga"), status().isOk());
+    }
+    
+    private static String pedidoJson(Long usuarioId, String valor) {
+        return "{\"usuario\":{\"id\":" + usuarioId + "},\"valorTotal\":" + valor + "}";
+    }
+}
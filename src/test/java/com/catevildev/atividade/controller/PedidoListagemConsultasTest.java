@@ -0,0 +1,108 @@
+package com.catevildev.atividade.controller;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.diagnostico.CapturadorSql;
+import com.catevildev.atividade.entity.Pedido;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// as listagens de pedidos devem trazer o usuario junto, com o mesmo numero de SQLs para 3 ou 33 pedidos
+@SpringBootTest
+@AutoConfigureMockMvc
+class PedidoListagemConsultasTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private Statistics estatisticas;
+    
+    @BeforeEach
+    void iniciar() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    @Test
+    void listagensUsamQuantidadeFixaDeConsultas() throws Exception {
+        LocalDateTime inicio = LocalDateTime.now().minusMinutes(1);
+        String periodo = "/api/pedidos/periodo?tamanho=100&dataInicio=" + inicio
+            + "&dataFim=" + LocalDateTime.now().plusDays(1);
+        
+        criarPedidos(3);
+        long todosPoucos = contarConsultas("/api/pedidos?tamanho=100");
+        long statusPoucos = contarConsultas("/api/pedidos/status/PENDENTE?tamanho=100");
+        long periodoPoucos = contarConsultas(periodo);
+        
+        criarPedidos(30);
+        long todosMuitos = contarConsultas("/api/pedidos?tamanho=100");
+        long statusMuitos = contarConsultas("/api/pedidos/status/PENDENTE?tamanho=100");
+        long periodoMuitos = contarConsultas(periodo);
+        
+        // a tabela quente e, se tiver pedidos, o arquivo
+        assertTrue(todosPoucos <= 2);
+        assertEquals(todosPoucos, todosMuitos);
+        assertEquals(statusPoucos, statusMuitos);
+        assertEquals(periodoPoucos, periodoMuitos);
+    }
+    
+    @Test
+    void buscaPorIdTrazUsuarioNaMesmaConsulta() throws Exception {
+        Pedido pedido = criarPedidos(1);
+        
+        estatisticas.clear();
+        mockMvc.perform(get("/api/pedidos/" + pedido.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.usuario.nome").exists());
+        
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+    }
+    
+    // cada pedido com um usuario diferente, o pior caso para N+1
+    private Pedido criarPedidos(int quantidade) {
+        Pedido ultimo = null;
+        for (int i = 0; i < quantidade; i++) {
+            ultimo = dados.pedido(dados.usuario(), "50.00");
+        }
+        return ultimo;
+    }
+    
+    // a leitura do MAX(data_pedido) do arquivo depende da validade da leitura anterior, nao da quantidade
+    // de pedidos: fica fora da conta
+    private long contarConsultas(String url) throws Exception {
+        List<String> sqls;
+        CapturadorSql.iniciar();
+        try {
+            mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itens[0].usuario.nome").exists());
+        } finally {
+            sqls = CapturadorSql.parar();
+        }
+        return sqls.stream()
+            .map(sql -> sql.toLowerCase(Locale.ROOT))
+            .filter(sql -> !(sql.startsWith("select max(") && sql.contains("pedidos_arquivados")))
+            .count();
+    }
+}
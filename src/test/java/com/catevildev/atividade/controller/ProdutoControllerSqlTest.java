@@ -0,0 +1,101 @@
+package com.catevildev.atividade.controller;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Produto;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// orcamento de SQLs de cada endpoint de /api/produtos (pior caso, com caches vazios)
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProdutoControllerSqlTest {
+    
+    private static final String PRODUTO_JSON = "{\"nome\":\"Mouse\",\"descricao\":\"Sem fio\",\"preco\":89.90,"
+        + "\"quantidadeEstoque\":40,\"categoria\":\"Perifericos\",\"ativo\":true}";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    private OrcamentoSql orcamento;
+    
+    @BeforeEach
+    void iniciar() {
+        orcamento = new OrcamentoSql(mockMvc, entityManagerFactory, cacheManager);
+    }
+    
+    @Test
+    void leituras() throws Exception {
+        Produto produto = dados.produto("Perifericos", 20);
+        
+        orcamento.verificar(1, get("/api/produtos?tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/produtos/listagem?tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/produtos/listagem?categoria=Perifericos&tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/produtos/busca?termo=Teclado"), status().isOk());
+        orcamento.verificar(1, get("/api/produtos/" + produto.getId()), status().isOk());
+        orcamento.verificar(1, get("/api/produtos/ativos?tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/produtos/categoria/Perifericos?tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/produtos/preco?precoMin=1&precoMax=1000&tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/produtos/estoque-baixo?limite=10&tamanho=20"), status().isOk());
+    }
+    
+    @Test
+    void criarEAtualizar() throws Exception {
+        Produto produto = dados.produto("Perifericos", 20);
+        
+        orcamento.verificar(1, post("/api/produtos").contentType(MediaType.APPLICATION_JSON).content(PRODUTO_JSON),
+            status().isCreated());
+        orcamento.verificar(2, put("/api/produtos/" + produto.getId()).contentType(MediaType.APPLICATION_JSON)
+            .content(PRODUTO_JSON), status().isOk());
+        orcamento.verificar(2, patch("/api/produtos/" + produto.getId() + "/estoque?quantidade=30"), status().isOk());
+    }
+    
+    @Test
+    void reservaELiberacaoSaoUmUpdateCada() throws Exception {
+        Produto produto = dados.produto("Perifericos", 20);
+        
+        orcamento.verificar(1, post("/api/produtos/" + produto.getId() + "/reservar?quantidade=2"), status().isOk());
+        orcamento.verificar(1, post("/api/produtos/" + produto.getId() + "/liberar?quantidade=2"), status().isOk());
+    }
+    
+    @Test
+    void flashSale() throws Exception {
+        Produto produto = dados.produto("Perifericos", 20);
+        
+        // confere o produto e puxa o primeiro lote do estoque
+        orcamento.verificar(2, post("/api/produtos/" + produto.getId() + "/flash-sale?lote=5"), status().isOk());
+        orcamento.verificar(0, post("/api/produtos/" + produto.getId() + "/reservar?quantidade=1"), status().isOk());
+        orcamento.verificar(1, delete("/api/produtos/" + produto.getId() + "/flash-sale"), status().isOk());
+    }
+    
+    @Test
+    void deletarCarregaEApaga() throws Exception {
+        Produto produto = dados.produto("Perifericos", 20);
+        
+        // com o cache de segundo nivel vazio o produto sai do banco antes do DELETE
+        orcamento.verificar(2, delete("/api/produtos/" + produto.getId()), status().isOk());
+        orcamento.verificar(1, delete("/api/produtos/" + produto.getId()), status().isBadRequest());
+    }
+}
@@ -0,0 +1,154 @@
+package com.catevildev.atividade.controller;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.service.ProdutoService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProdutoEtagTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ProdutoService produtoService;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Test
+    void produtoInalteradoResponde304SemConsultarBanco() throws Exception {
+        Produto produto = produtoService.salvar(
+            new Produto("Teclado", "Mecânico", new BigDecimal("349.90"), 20, "Periféricos"));
+        String url = "/api/produtos/" + produto.getId();
+        
+        String etag = mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.CACHE_CONTROL))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag));
+        assertEquals(0, estatisticas.getPrepareStatementCount());
+        
+        produtoService.atualizarEstoque(produto.getId(), 5);
+        String novoEtag = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, novoEtag);
+    }
+    
+    @Test
+    void listaDaCategoriaMudaDeVersaoQuandoUmProdutoDelaMuda() throws Exception {
+        Produto produto = produtoService.salvar(
+            new Produto("Caneca", "Cerâmica", new BigDecimal("39.90"), 50, "Cozinha"));
+        String url = "/api/produtos/categoria/Cozinha";
+        
+        String etag = mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+        
+        produtoService.desativar(produto.getId());
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk());
+    }
+    
+    @Test
+    void ativarFlashSaleMudaAsVersoesDoCatalogo() throws Exception {
+        String categoria = "Games " + DadosTeste.sufixo();
+        Produto produto = produtoService.salvar(
+            new Produto("Controle", "Sem fio", new BigDecimal("399.90"), 40, categoria));
+        List<String> urls = List.of("/api/produtos/" + produto.getId(), "/api/produtos/ativos",
+            "/api/produtos/categoria/" + categoria);
+        List<String> etags = new ArrayList<>();
+        for (String url : urls) {
+            etags.add(mockMvc.perform(get(url)).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+        }
+        
+        // o lote da flash sale sai do estoque com UPDATE direto, fora da entidade
+        produtoService.ativarFlashSale(produto.getId(), 10);
+        try {
+            for (int i = 0; i < urls.size(); i++) {
+                String novoEtag = mockMvc.perform(get(urls.get(i)).header(HttpHeaders.IF_NONE_MATCH, etags.get(i)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+                assertNotEquals(etags.get(i), novoEtag, urls.get(i));
+            }
+            mockMvc.perform(get(urls.get(0)))
+                .andExpect(jsonPath("$.quantidadeEstoque").value(30));
+        } finally {
+            produtoService.desativarFlashSale(produto.getId());
+        }
+    }
+    
+    @Test
+    void produtoApagadoNaoRespondeComOEtagAntigo() throws Exception {
+        Produto produto = produtoService.salvar(
+            new Produto("Hub USB", "4 portas", new BigDecimal("89.90"), 30, "Periféricos"));
+        String url = "/api/produtos/" + produto.getId();
+        String etag = mockMvc.perform(get(url))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        produtoService.deletar(produto.getId());
+        
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotFound());
+    }
+    
+    @Test
+    void etagSegueOFormatoNegociadoENaoOTextoDoAccept() throws Exception {
+        Produto produto = produtoService.salvar(
+            new Produto("Webcam", "Full HD", new BigDecimal("259.90"), 15, "Periféricos"));
+        String url = "/api/produtos/" + produto.getId();
+        
+        // cbor aparece no Accept, mas com peso menor que json: a resposta e json e o ETag tambem
+        String etagJson = mockMvc.perform(get(url)
+                .header(HttpHeaders.ACCEPT, "application/cbor;q=0.1, application/json"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(etagJson, mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+        
+        String etagCbor = mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(etagCbor.contains("-cbor"));
+        
+        mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, etagCbor))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etagCbor))
+            .andExpect(status().isOk());
+    }
+}
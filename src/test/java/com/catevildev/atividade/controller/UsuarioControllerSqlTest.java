@@ -0,0 +1,111 @@
+package com.catevildev.atividade.controller;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// orcamento de SQLs de cada endpoint de /api/usuarios (pior caso, com caches vazios)
+@SpringBootTest
+@AutoConfigureMockMvc
+class UsuarioControllerSqlTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    private OrcamentoSql orcamento;
+    
+    @BeforeEach
+    void iniciar() {
+        orcamento = new OrcamentoSql(mockMvc, entityManagerFactory, cacheManager);
+    }
+    
+    @Test
+    void leituras() throws Exception {
+        Usuario usuario = dados.usuario();
+        
+        orcamento.verificar(1, get("/api/usuarios?tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/usuarios/listagem?tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/usuarios/" + usuario.getId()), status().isOk());
+        orcamento.verificar(1, get("/api/usuarios/ativos?tamanho=20"), status().isOk());
+        orcamento.verificar(1, get("/api/usuarios/buscar?nome=Cliente"), status().isOk());
+    }
+    
+    @Test
+    void criarFazSoOInsertEOResumo() throws Exception {
+        orcamento.verificar(2, post("/api/usuarios").contentType(MediaType.APPLICATION_JSON)
+            .content(json("Novo", DadosTeste.emailNovo())), status().isCreated());
+    }
+    
+    @Test
+    void emailRepetidoEBarradoPelaRestricaoSemConsultaAntes() throws Exception {
+        Usuario existente = dados.usuario();
+        
+        orcamento.verificar(1, post("/api/usuarios").contentType(MediaType.APPLICATION_JSON)
+                .content(json("Repetido", existente.getEmail())),
+            recusado("cadastrado"));
+    }
+    
+    @Test
+    void atualizarCarregaEGravaSemConferirEmailAntes() throws Exception {
+        Usuario usuario = dados.usuario();
+        Usuario outro = dados.usuario();
+        
+        orcamento.verificar(2, put("/api/usuarios/" + usuario.getId()).contentType(MediaType.APPLICATION_JSON)
+            .content(json("Alterado", DadosTeste.emailNovo())), status().isOk());
+        orcamento.verificar(2, put("/api/usuarios/" + usuario.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(json("Alterado", outro.getEmail())),
+            recusado("cadastrado"));
+    }
+    
+    @Test
+    void desativar() throws Exception {
+        Usuario usuario = dados.usuario();
+        
+        orcamento.verificar(2, patch("/api/usuarios/" + usuario.getId() + "/desativar"), status().isOk());
+    }
+    
+    @Test
+    void deletarCarregaEApagaResumoEUsuario() throws Exception {
+        Usuario usuario = dados.usuario();
+        
+        // com o cache de segundo nivel vazio o usuario sai do banco antes dos DELETEs
+        orcamento.verificar(3, delete("/api/usuarios/" + usuario.getId()), status().isOk());
+        orcamento.verificar(1, delete("/api/usuarios/" + usuario.getId()),
+            recusado("encontrado"));
+    }
+    
+    private static ResultMatcher[] recusado(String mensagem) {
+        return new ResultMatcher[] {status().isBadRequest(), content().string(containsString(mensagem))};
+    }
+    
+    private static String json(String nome, String email) {
+        return "{\"nome\":\"" + nome + "\",\"email\":\"" + email + "\",\"telefone\":\"66999990000\"}";
+    }
+}
@@ -0,0 +1,93 @@
+package com.catevildev.atividade.diagnostico;
+
+import com.catevildev.atividade.dto.PlanoConsulta;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// consultas que devem usar indice: se alguma voltar a varrer a tabela inteira, o teste falha
+@SpringBootTest
+class AnalisadorPlanosConsultasTest {
+    
+    private static final List<String> CONSULTAS_INDEXADAS = List.of(
+        "PedidoRepository.findByStatus",
+        "PedidoRepository.countByStatus",
+        "PedidoRepository.findByDataPedidoBetween",
+        "PedidoRepository.findPedidosPendentesAntigos",
+        "PedidoRepository.findPedidosRecentes",
+        "PedidoRepository.findByUsuario_IdAndIdGreaterThanOrderByIdAsc",
+        "ProdutoRepository.findByAtivoTrue",
+        "ProdutoRepository.findByCategoria",
+        "ProdutoRepository.countByCategoriaAndAtivoTrue",
+        "ProdutoRepository.findByPrecoBetween",
+        "UsuarioRepository.findByAtivoTrue",
+        "UsuarioRepository.findByTelefone"
+    );
+    
+    // alteram dados ou travam linhas: nao podem ser executados pela analise
+    private static final List<String> NAO_ANALISADAS = List.of(
+        "PedidoRepository.buscarParaAtualizacao",
+        "PedidoRepository.apagarPorIds",
+        "PedidoRepository.atualizarStatusEmLote",
+        "ProdutoRepository.reservarEstoque",
+        "ProdutoRepository.liberarEstoque"
+    );
+    
+    @Autowired
+    private AnalisadorPlanosConsultas analisador;
+    
+    @Test
+    void consultasListadasNaoFazemVarreduraCompleta() {
+        Map<String, List<PlanoConsulta>> planos = analisador.analisar().stream()
+            .collect(Collectors.groupingBy(p -> p.getRepositorio() + "." + p.getMetodo()));
+        
+        for (String consulta : CONSULTAS_INDEXADAS) {
+            List<PlanoConsulta> planosConsulta = planos.get(consulta);
+            assertTrue(planosConsulta != null && !planosConsulta.isEmpty(), "Consulta não analisada: " + consulta);
+            for (PlanoConsulta plano : planosConsulta) {
+                assertNull(plano.getErro(), consulta + ": " + plano.getErro());
+                assertFalse(plano.isVarreduraCompleta(), consulta + " faz varredura completa:\n" + plano.getPlano());
+            }
+        }
+    }
+    
+    @Test
+    void metodosQueAlteramOuTravamNaoSaoExecutados() {
+        List<String> analisadas = analisador.analisar().stream()
+            .map(p -> p.getRepositorio() + "." + p.getMetodo())
+            .toList();
+        
+        for (String metodo : NAO_ANALISADAS) {
+            assertFalse(analisadas.contains(metodo), metodo + " foi executado pela analise");
+        }
+    }
+    
+    @Test
+    void analisaTodosOsRepositoriosDoContexto() {
+        Set<String> repositorios = analisador.analisar().stream()
+            .map(PlanoConsulta::getRepositorio)
+            .collect(Collectors.toSet());
+        
+        assertTrue(repositorios.containsAll(Set.of("PedidoRepository", "PedidoArquivadoRepository",
+            "ProdutoRepository", "ResumoPedidosUsuarioRepository", "UsuarioRepository")), repositorios.toString());
+    }
+    
+    @Test
+    void detectaVarreduraEmBuscaPorTrechoDoNome() {
+        // LIKE '%termo%' nao tem como usar indice: garante que a deteccao funciona
+        boolean varredura = analisador.analisar().stream()
+            .filter(p -> p.getRepositorio().equals("ProdutoRepository")
+                && p.getMetodo().equals("findByNomeContainingIgnoreCase"))
+            .anyMatch(PlanoConsulta::isVarreduraCompleta);
+        assertTrue(varredura);
+    }
+}
@@ -0,0 +1,158 @@
+package com.catevildev.atividade.replicacao;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Produto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// perfil "replica": leitura vai para as replicas H2 locais em rodizio, escrita e leitura depois de escrita para o principal.
+// Banco principal proprio: este contexto nao pode dividir (nem apagar no create-drop) o banco dos outros testes
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:replica-teste;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("replica")
+class RoteamentoReplicasTest {
+    
+    private static final String PRIMARIO = "REPLICA-TESTE";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Autowired
+    private ReplicasLeitura replicas;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @BeforeEach
+    void aguardarReplicas() throws InterruptedException {
+        // a primeira copia e o primeiro heartbeat acontecem logo depois da subida
+        for (int i = 0; i < 100 && replicas.elegiveis().size() < 2; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(2, replicas.elegiveis().size());
+    }
+    
+    @Test
+    void leituraVaiParaReplicasEmRodizio() {
+        Set<String> bancos = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            bancos.add(banco(true));
+        }
+        
+        assertEquals(Set.of("REPLICA1", "REPLICA2"), bancos);
+    }
+    
+    @Test
+    void escritaVaiParaOPrincipal() {
+        assertEquals(PRIMARIO, banco(false));
+    }
+    
+    @Test
+    void leituraDepoisDeEscritaNaMesmaRequisicaoVaiParaOPrincipal() {
+        assertNotEquals(PRIMARIO, banco(true));
+        
+        ContextoRoteamento.iniciarRequisicao();
+        try {
+            assertNotEquals(PRIMARIO, banco(true));
+            banco(false);
+            assertEquals(PRIMARIO, banco(true));
+        } finally {
+            ContextoRoteamento.encerrarRequisicao();
+        }
+        
+        assertNotEquals(PRIMARIO, banco(true));
+    }
+    
+    @Test
+    void escritaRecenteDeOutraRequisicaoLeDoPrincipal() {
+        ContextoRoteamento.iniciarRequisicao(true, null);
+        try {
+            assertEquals(PRIMARIO, banco(true));
+        } finally {
+            ContextoRoteamento.encerrarRequisicao();
+        }
+    }
+    
+    @Test
+    void escritaGravaCookieDeLeituraNoPrincipal() throws Exception {
+        String json = "{\"nome\":\"Cliente Replica\",\"email\":\"" + DadosTeste.emailNovo()
+            + "\",\"telefone\":\"66999990000\"}";
+        
+        mockMvc.perform(post("/api/usuarios").contentType(MediaType.APPLICATION_JSON).content(json))
+            .andExpect(status().isCreated())
+            .andExpect(cookie().exists(LeituraAposEscritaFiltro.COOKIE))
+            .andExpect(cookie().httpOnly(LeituraAposEscritaFiltro.COOKIE, true));
+        mockMvc.perform(get("/api/usuarios?tamanho=1"))
+            .andExpect(status().isOk())
+            .andExpect(cookie().doesNotExist(LeituraAposEscritaFiltro.COOKIE));
+    }
+    
+    @Test
+    void catalogoSemEtagNestePerfil() throws Exception {
+        Produto produto = dados.produto("Perifericos", 5);
+        
+        // sem o cookie de escrita a leitura vai para uma replica, que recebe o produto na proxima copia
+        MvcResult resultado = mockMvc.perform(get("/api/produtos/" + produto.getId())).andReturn();
+        for (int i = 0; i < 50 && resultado.getResponse().getStatus() == 404; i++) {
+            Thread.sleep(100);
+            resultado = mockMvc.perform(get("/api/produtos/" + produto.getId())).andReturn();
+        }
+        assertEquals(200, resultado.getResponse().getStatus());
+        assertNull(resultado.getResponse().getHeader(HttpHeaders.ETAG));
+        mockMvc.perform(get("/api/produtos/ativos?tamanho=5"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+    
+    @Test
+    void replicaRecebeOsDadosDoPrincipal() throws InterruptedException {
+        TransactionTemplate escrita = new TransactionTemplate(transactionManager);
+        Long usuarios = escrita.execute(s -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios", Long.class));
+        
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        boolean igual = false;
+        for (int i = 0; i < 50 && !igual; i++) {
+            igual = usuarios.equals(leitura.execute(s -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios", Long.class)));
+            Thread.sleep(100);
+        }
+        assertTrue(igual);
+    }
+    
+    // nome do banco que atendeu a transacao
+    private String banco(boolean somenteLeitura) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setReadOnly(somenteLeitura);
+        return transacao.execute(s -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class)).toUpperCase();
+    }
+}
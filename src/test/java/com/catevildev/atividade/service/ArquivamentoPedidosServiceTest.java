@@ -0,0 +1,178 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.dto.Cursor;
+import com.catevildev.atividade.dto.Pagina;
+import com.catevildev.atividade.dto.PedidoListagem;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.ResumoPedidosUsuario;
+import com.catevildev.atividade.entity.Usuario;
+import com.catevildev.atividade.repository.PedidoArquivadoRepository;
+import com.catevildev.atividade.repository.PedidoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// pedidos encerrados antigos saem da tabela quente, mas continuam visiveis nas leituras e nos totais
+@SpringBootTest
+class ArquivamentoPedidosServiceTest {
+    
+    @Autowired
+    private ArquivamentoPedidosService arquivamento;
+    
+    @Autowired
+    private PedidoService pedidoService;
+    
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    
+    @Autowired
+    private PedidoArquivadoRepository pedidoArquivadoRepository;
+    
+    @Autowired
+    private ContadoresStatusPedido contadoresStatus;
+    
+    @Autowired
+    private ResumoPedidosService resumoPedidosService;
+    
+    @Autowired
+    private PedidoExportacaoService exportacao;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Test
+    void moveSomentePedidosEncerradosAntigos() {
+        Usuario usuario = dados.usuario();
+        LocalDateTime antiga = LocalDateTime.now().minusYears(2);
+        Pedido entregue = dados.pedido(usuario, "80.00", antiga, Pedido.StatusPedido.ENTREGUE);
+        Pedido pendente = dados.pedido(usuario, "80.00", antiga, Pedido.StatusPedido.PENDENTE);
+        Pedido recente = dados.pedido(usuario, "80.00", LocalDateTime.now(), Pedido.StatusPedido.ENTREGUE);
+        
+        assertTrue(arquivamento.arquivar() >= 1);
+        
+        assertFalse(pedidoRepository.existsById(entregue.getId()));
+        assertTrue(pedidoArquivadoRepository.existsById(entregue.getId()));
+        assertTrue(pedidoRepository.existsById(pendente.getId()));
+        assertTrue(pedidoRepository.existsById(recente.getId()));
+    }
+    
+    @Test
+    void leiturasETotaisIncluemPedidosArquivados() {
+        Usuario usuario = dados.usuario();
+        LocalDateTime antiga = LocalDateTime.now().minusYears(3);
+        Pedido entregue = dados.pedido(usuario, "80.00", antiga, Pedido.StatusPedido.ENTREGUE);
+        contadoresStatus.reconciliar();
+        long entreguesAntes = contadoresStatus.contar(Pedido.StatusPedido.ENTREGUE);
+        
+        arquivamento.arquivar();
+        
+        Pedido arquivado = pedidoService.buscarPorId(entregue.getId()).orElseThrow();
+        assertEquals(entregue.getNumeroPedido(), arquivado.getNumeroPedido());
+        assertTrue(pedidoService.buscarPorNumero(entregue.getNumeroPedido()).isPresent());
+        
+        Pagina<Pedido> periodo = pedidoService.buscarPorPeriodo(antiga.minusDays(1), antiga.plusDays(1), null, 100);
+        assertTrue(periodo.getItens().stream().anyMatch(p -> p.getId().equals(entregue.getId())));
+        
+        ResumoPedidosUsuario resumo = pedidoService.buscarResumoPorUsuario(usuario.getId());
+        assertEquals(1L, resumo.getQuantidadePedidos());
+        assertTrue(resumoPedidosService.verificar().stream().noneMatch(d -> d.getUsuarioId().equals(usuario.getId())));
+        
+        contadoresStatus.reconciliar();
+        assertEquals(entreguesAntes, contadoresStatus.contar(Pedido.StatusPedido.ENTREGUE));
+    }
+    
+    @Test
+    void listasSemPeriodoIncluemPedidosArquivados() {
+        Usuario usuario = dados.usuario();
+        Pedido entregue = dados.pedido(usuario, "81.37", LocalDateTime.now().minusYears(2),
+            Pedido.StatusPedido.ENTREGUE);
+        Pedido pendente = dados.pedido(usuario, "81.37", LocalDateTime.now(), Pedido.StatusPedido.PENDENTE);
+        arquivamento.arquivar();
+        assertTrue(pedidoArquivadoRepository.existsById(entregue.getId()));
+        String antes = Cursor.codificar(entregue.getId() - 1);
+        
+        // por usuario: arquivado e quente na ordem de id, e o cursor atravessa as duas tabelas
+        Pagina<Pedido> primeira = pedidoService.buscarPorUsuario(usuario.getId(), null, 1);
+        assertEquals(List.of(entregue.getId()), ids(primeira.getItens()));
+        Pagina<Pedido> segunda = pedidoService.buscarPorUsuario(usuario.getId(), primeira.getProximoCursor(), 1);
+        assertEquals(List.of(pendente.getId()), ids(segunda.getItens()));
+        
+        assertEquals(List.of(entregue.getId(), pendente.getId()), ids(pedidoService.buscarTodos(antes, 2).getItens()));
+        assertEquals(entregue.getId(),
+            pedidoService.buscarPorStatus(Pedido.StatusPedido.ENTREGUE, antes, 1).getItens().get(0).getId());
+        assertEquals(entregue.getId(),
+            pedidoService.buscarListagem(Pedido.StatusPedido.ENTREGUE, antes, 1).getItens().get(0).getId());
+        assertEquals(List.of(entregue.getId(), pendente.getId()),
+            pedidoService.buscarListagem(null, antes, 2).getItens().stream().map(PedidoListagem::getId).toList());
+        
+        List<Long> faixa = ids(pedidoService.buscarPorFaixaValor(new BigDecimal("81.37"), new BigDecimal("81.37")));
+        assertTrue(faixa.containsAll(List.of(entregue.getId(), pendente.getId())));
+        assertEquals(1, faixa.stream().filter(entregue.getId()::equals).count());
+        
+        // status que nunca vai para o arquivo fica so na tabela quente
+        assertFalse(ids(pedidoService.buscarPorStatus(Pedido.StatusPedido.PENDENTE, antes, 100).getItens())
+            .contains(entregue.getId()));
+    }
+    
+    @Test
+    void pedidoNasDuasTabelasApareceUmaVez() throws Exception {
+        Usuario usuario = dados.usuario();
+        LocalDateTime antiga = LocalDateTime.now().minusYears(4);
+        Pedido entregue = dados.pedido(usuario, "80.00", antiga, Pedido.StatusPedido.ENTREGUE);
+        // o que uma leitura ve quando um lote de arquivamento confirma entre a consulta quente e a do arquivo
+        copiarParaOArquivo(entregue);
+        try {
+            Pagina<Pedido> periodo = pedidoService.buscarPorPeriodo(antiga.minusDays(1), antiga.plusDays(1), null, 100);
+            assertEquals(1, periodo.getItens().stream().filter(p -> p.getId().equals(entregue.getId())).count());
+            
+            ByteArrayOutputStream saida = new ByteArrayOutputStream();
+            long exportados = exportacao.exportar(null, antiga.minusDays(1), antiga.plusDays(1),
+                PedidoExportacaoService.FormatoExportacao.NDJSON, saida);
+            String ndjson = saida.toString(StandardCharsets.UTF_8);
+            assertEquals(1, ndjson.split(entregue.getNumeroPedido(), -1).length - 1);
+            assertEquals(ndjson.lines().count(), exportados);
+        } finally {
+            // termina o "lote": o proximo arquivamento nao pode encontrar o pedido nas duas tabelas
+            jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", entregue.getId());
+        }
+    }
+    
+    @Test
+    void leituraEncontraPedidoArquivadoPorOutraInstancia() {
+        Usuario usuario = dados.usuario();
+        LocalDateTime antiga = LocalDateTime.now().minusYears(5);
+        Pedido entregue = dados.pedido(usuario, "80.00", antiga, Pedido.StatusPedido.ENTREGUE);
+        
+        // arquivado direto no banco, sem passar por este servico
+        copiarParaOArquivo(entregue);
+        jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", entregue.getId());
+        
+        Pagina<Pedido> periodo = pedidoService.buscarPorPeriodo(antiga.minusDays(1), antiga.plusDays(1), null, 100);
+        assertTrue(periodo.getItens().stream().anyMatch(p -> p.getId().equals(entregue.getId())));
+    }
+    
+    private static List<Long> ids(List<Pedido> pedidos) {
+        return pedidos.stream().map(Pedido::getId).toList();
+    }
+    
+    private void copiarParaOArquivo(Pedido pedido) {
+        jdbcTemplate.update("INSERT INTO pedidos_arquivados (id, usuario_id, numero_pedido, valor_total, status, "
+            + "data_pedido, observacoes, data_arquivamento) SELECT id, usuario_id, numero_pedido, valor_total, status, "
+            + "data_pedido, observacoes, CURRENT_TIMESTAMP FROM pedidos WHERE id = ?", pedido.getId());
+    }
+}
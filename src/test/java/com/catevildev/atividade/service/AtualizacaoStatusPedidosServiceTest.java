@@ -0,0 +1,142 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.ResumoPedidosUsuario;
+import com.catevildev.atividade.entity.Usuario;
+import com.catevildev.atividade.repository.PedidoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// mudancas de status enfileiradas: coalescidas por pedido, validadas na ordem e gravadas em lote na descarga
+// (com o modo desligado no teste, a descarga agendada nao roda e a descarga e chamada direto)
+@SpringBootTest
+class AtualizacaoStatusPedidosServiceTest {
+    
+    @Autowired
+    private AtualizacaoStatusPedidosService atualizacaoStatus;
+    
+    @Autowired
+    private PedidoService pedidoService;
+    
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    
+    @Autowired
+    private ContadoresStatusPedido contadoresStatus;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Test
+    void variasMudancasDoMesmoPedidoViramUmaSo() {
+        Pedido pedido = dados.pedido(dados.usuario(), "45.00");
+        
+        atualizacaoStatus.enfileirar(pedido.getId(), Pedido.StatusPedido.PROCESSANDO);
+        atualizacaoStatus.enfileirar(pedido.getId(), Pedido.StatusPedido.ENVIADO);
+        atualizacaoStatus.enfileirar(pedido.getId(), Pedido.StatusPedido.ENTREGUE);
+        
+        // ainda nao gravado, mas a busca ja devolve o status aceito
+        assertEquals(Pedido.StatusPedido.PENDENTE, statusGravado(pedido));
+        assertEquals(Pedido.StatusPedido.ENTREGUE, pedidoService.buscarPorId(pedido.getId()).orElseThrow().getStatus());
+        
+        assertTrue(atualizacaoStatus.descarregar() >= 1);
+        
+        assertEquals(Pedido.StatusPedido.ENTREGUE, statusGravado(pedido));
+        assertFalse(atualizacaoStatus.statusPendente(pedido.getId()).isPresent());
+    }
+    
+    @Test
+    void recusaMudancaForaDeOrdem() {
+        Pedido pedido = dados.pedido(dados.usuario(), "45.00");
+        atualizacaoStatus.enfileirar(pedido.getId(), Pedido.StatusPedido.ENVIADO);
+        
+        assertThrows(RuntimeException.class,
+            () -> atualizacaoStatus.enfileirar(pedido.getId(), Pedido.StatusPedido.PROCESSANDO));
+        assertEquals(Pedido.StatusPedido.ENVIADO, atualizacaoStatus.statusPendente(pedido.getId()).orElseThrow());
+        
+        atualizacaoStatus.descarregar();
+        assertEquals(Pedido.StatusPedido.ENVIADO, statusGravado(pedido));
+    }
+    
+    @Test
+    void recusaPedidoInexistenteETransicaoInvalidaParaOStatusGravado() {
+        Pedido pedido = dados.pedido(dados.usuario(), "45.00");
+        pedidoService.cancelar(pedido.getId());
+        
+        assertThrows(RuntimeException.class,
+            () -> atualizacaoStatus.enfileirar(Long.MAX_VALUE, Pedido.StatusPedido.ENVIADO));
+        assertThrows(RuntimeException.class,
+            () -> atualizacaoStatus.enfileirar(pedido.getId(), Pedido.StatusPedido.ENVIADO));
+        assertFalse(atualizacaoStatus.statusPendente(pedido.getId()).isPresent());
+    }
+    
+    @Test
+    void listasMostramOStatusAceitoSemAlterarAEntidade() {
+        Usuario usuario = dados.usuario();
+        Pedido pedido = dados.pedido(usuario, "45.00");
+        atualizacaoStatus.enfileirar(pedido.getId(), Pedido.StatusPedido.ENVIADO);
+        
+        Pedido daLista = pedidoService.buscarPorUsuario(usuario.getId(), null, 10).getItens().get(0);
+        assertEquals(Pedido.StatusPedido.ENVIADO, daLista.getStatus());
+        assertTrue(pedidoService.buscarListagem(Pedido.StatusPedido.PENDENTE, null, 100).getItens().stream()
+            .noneMatch(p -> p.getId().equals(pedido.getId())));
+        // a leitura nao gravou nada: o banco continua com o status anterior ate a descarga
+        assertEquals(Pedido.StatusPedido.PENDENTE, statusGravado(pedido));
+        
+        atualizacaoStatus.descarregar();
+        assertEquals(Pedido.StatusPedido.ENVIADO, statusGravado(pedido));
+    }
+    
+    @Test
+    void descartaMudancaInvalidaParaOStatusGravado() {
+        Pedido pedido = dados.pedido(dados.usuario(), "45.00");
+        atualizacaoStatus.enfileirar(pedido.getId(), Pedido.StatusPedido.ENVIADO);
+        // cancelado direto enquanto a mudanca esperava a descarga
+        pedidoService.cancelar(pedido.getId());
+        
+        atualizacaoStatus.descarregar();
+        
+        assertEquals(Pedido.StatusPedido.CANCELADO, statusGravado(pedido));
+    }
+    
+    @Test
+    void cancelamentoEmLoteAjustaResumoEContadores() {
+        Usuario usuario = dados.usuario();
+        Pedido cancelado = dados.pedido(usuario, "45.00");
+        dados.pedido(usuario, "45.00");
+        
+        atualizacaoStatus.enfileirar(cancelado.getId(), Pedido.StatusPedido.PROCESSANDO);
+        atualizacaoStatus.enfileirar(cancelado.getId(), Pedido.StatusPedido.CANCELADO);
+        atualizacaoStatus.descarregar();
+        
+        ResumoPedidosUsuario resumo = pedidoService.buscarResumoPorUsuario(usuario.getId());
+        assertEquals(1L, resumo.getQuantidadePedidos());
+        assertEquals(0, new BigDecimal("45.00").compareTo(resumo.getValorTotal()));
+        
+        long cancelados = contadoresStatus.contar(Pedido.StatusPedido.CANCELADO);
+        contadoresStatus.reconciliar();
+        assertEquals(cancelados, contadoresStatus.contar(Pedido.StatusPedido.CANCELADO));
+    }
+    
+    @Test
+    void transicoesSoAvancam() {
+        assertTrue(AtualizacaoStatusPedidosService.transicaoPermitida(Pedido.StatusPedido.PENDENTE, Pedido.StatusPedido.ENVIADO));
+        assertTrue(AtualizacaoStatusPedidosService.transicaoPermitida(Pedido.StatusPedido.ENVIADO, Pedido.StatusPedido.CANCELADO));
+        assertFalse(AtualizacaoStatusPedidosService.transicaoPermitida(Pedido.StatusPedido.ENVIADO, Pedido.StatusPedido.PENDENTE));
+        assertFalse(AtualizacaoStatusPedidosService.transicaoPermitida(Pedido.StatusPedido.ENTREGUE, Pedido.StatusPedido.CANCELADO));
+        assertFalse(AtualizacaoStatusPedidosService.transicaoPermitida(Pedido.StatusPedido.CANCELADO, Pedido.StatusPedido.ENVIADO));
+    }
+    
+    private Pedido.StatusPedido statusGravado(Pedido pedido) {
+        return pedidoRepository.findById(pedido.getId()).orElseThrow().getStatus();
+    }
+}
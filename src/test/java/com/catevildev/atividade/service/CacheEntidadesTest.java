@@ -0,0 +1,100 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.entity.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// leituras em cache nunca devolvem a mesma instancia (alterar o objeto recebido nao vaza para as outras leituras)
+// e as escritas dos servicos aparecem na leitura seguinte, pelo cache de segundo nivel e pelo de consultas
+@SpringBootTest
+class CacheEntidadesTest {
+    
+    @Autowired
+    private ProdutoService produtoService;
+    
+    @Autowired
+    private UsuarioService usuarioService;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Test
+    void produtoPorIdVemNumaInstanciaPorChamada() {
+        Produto produto = dados.produto("Perifericos", 20);
+        
+        Produto primeiro = produtoService.buscarPorId(produto.getId()).orElseThrow();
+        primeiro.setNome("Alterado sem salvar");
+        Produto segundo = produtoService.buscarPorId(produto.getId()).orElseThrow();
+        
+        assertNotSame(primeiro, segundo);
+        assertEquals(produto.getNome(), segundo.getNome());
+    }
+    
+    @Test
+    void cacheDeEmailGuardaSoOId() {
+        Usuario usuario = dados.usuario();
+        
+        Usuario primeiro = usuarioService.buscarPorEmail(usuario.getEmail()).orElseThrow();
+        primeiro.setNome("Alterado sem salvar");
+        Usuario segundo = usuarioService.buscarPorEmail(usuario.getEmail()).orElseThrow();
+        
+        assertNotSame(primeiro, segundo);
+        assertEquals(usuario.getNome(), segundo.getNome());
+        assertEquals(usuario.getId(),
+            cacheManager.getCache(UsuarioService.CACHE_USUARIOS_POR_EMAIL).get(usuario.getEmail(), Long.class));
+    }
+    
+    @Test
+    void emailAntigoDeixaDeEncontrarOUsuario() {
+        Usuario usuario = dados.usuario();
+        String emailAntigo = usuario.getEmail();
+        usuarioService.buscarPorEmail(emailAntigo).orElseThrow();
+        
+        Usuario alterado = new Usuario(usuario.getNome(), DadosTeste.emailNovo(), usuario.getTelefone());
+        usuarioService.atualizar(usuario.getId(), alterado);
+        
+        assertTrue(usuarioService.buscarPorEmail(emailAntigo).isEmpty());
+        assertEquals(usuario.getId(), usuarioService.buscarPorEmail(alterado.getEmail()).orElseThrow().getId());
+    }
+    
+    @Test
+    void escritaApareceNoCacheDeSegundoNivelENoDeConsultas() {
+        String categoria = "Cache " + DadosTeste.sufixo();
+        Produto produto = dados.produto(categoria, 20);
+        // aquece a entidade e a consulta por categoria
+        produtoService.buscarPorId(produto.getId()).orElseThrow();
+        produtoService.buscarPorCategoria(categoria, null, 10);
+        
+        produtoService.reservarEstoque(produto.getId(), 5);
+        Produto outro = dados.produto(categoria, 3);
+        
+        assertEquals(15, produtoService.buscarPorId(produto.getId()).orElseThrow().getQuantidadeEstoque());
+        List<Produto> porCategoria = produtoService.buscarPorCategoria(categoria, null, 10).getItens();
+        assertEquals(List.of(produto.getId(), outro.getId()), porCategoria.stream().map(Produto::getId).toList());
+        assertEquals(15, porCategoria.get(0).getQuantidadeEstoque());
+    }
+    
+    @Test
+    void atualizacaoDeUsuarioApareceNaLeituraPorId() {
+        Usuario usuario = dados.usuario();
+        usuarioService.buscarPorId(usuario.getId()).orElseThrow();
+        
+        usuarioService.desativar(usuario.getId());
+        
+        assertFalse(usuarioService.buscarPorId(usuario.getId()).orElseThrow().getAtivo());
+    }
+}
@@ -0,0 +1,91 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.ResumoPedidosUsuario;
+import com.catevildev.atividade.entity.Usuario;
+import com.catevildev.atividade.repository.PedidoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// pendentes antigos sao cancelados em lote, com o resumo do usuario e os contadores ajustados
+@SpringBootTest
+class CancelamentoAutomaticoPedidosServiceTest {
+    
+    @Autowired
+    private CancelamentoAutomaticoPedidosService cancelamentoAutomatico;
+    
+    @Autowired
+    private PedidoService pedidoService;
+    
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    
+    @Autowired
+    private ContadoresStatusPedido contadoresStatus;
+    
+    @Autowired
+    private AtualizacaoStatusPedidosService atualizacaoStatus;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Test
+    void cancelaSomentePendentesAntigos() {
+        Usuario usuario = dados.usuario();
+        LocalDateTime antiga = LocalDateTime.now().minusDays(90);
+        Pedido pendenteAntigo = dados.pedido(usuario, "80.00", antiga, Pedido.StatusPedido.PENDENTE);
+        Pedido enviadoAntigo = dados.pedido(usuario, "80.00", antiga, Pedido.StatusPedido.ENVIADO);
+        Pedido pendenteRecente = dados.pedido(usuario, "80.00", LocalDateTime.now(), Pedido.StatusPedido.PENDENTE);
+        
+        assertTrue(cancelamentoAutomatico.cancelarPendentesAntigos() >= 1);
+        
+        assertEquals(Pedido.StatusPedido.CANCELADO, statusAtual(pendenteAntigo));
+        assertEquals(Pedido.StatusPedido.ENVIADO, statusAtual(enviadoAntigo));
+        assertEquals(Pedido.StatusPedido.PENDENTE, statusAtual(pendenteRecente));
+    }
+    
+    @Test
+    void ajustaResumoEContadores() {
+        Usuario usuario = dados.usuario();
+        LocalDateTime antiga = LocalDateTime.now().minusDays(60);
+        dados.pedido(usuario, "80.00", antiga, Pedido.StatusPedido.PENDENTE);
+        dados.pedido(usuario, "80.00", antiga, Pedido.StatusPedido.PENDENTE);
+        dados.pedido(usuario, "80.00", LocalDateTime.now(), Pedido.StatusPedido.PENDENTE);
+        
+        cancelamentoAutomatico.cancelarPendentesAntigos();
+        
+        ResumoPedidosUsuario resumo = pedidoService.buscarResumoPorUsuario(usuario.getId());
+        assertEquals(1L, resumo.getQuantidadePedidos());
+        assertEquals(0, new BigDecimal("80.00").compareTo(resumo.getValorTotal()));
+        
+        long cancelados = contadoresStatus.contar(Pedido.StatusPedido.CANCELADO);
+        contadoresStatus.reconciliar();
+        assertEquals(cancelados, contadoresStatus.contar(Pedido.StatusPedido.CANCELADO));
+    }
+    
+    @Test
+    void pulaPedidoComMudancaDeStatusNaFila() {
+        Usuario usuario = dados.usuario();
+        Pedido pendenteAntigo = dados.pedido(usuario, "80.00", LocalDateTime.now().minusDays(45), Pedido.StatusPedido.PENDENTE);
+        atualizacaoStatus.enfileirar(pendenteAntigo.getId(), Pedido.StatusPedido.PROCESSANDO);
+        
+        cancelamentoAutomatico.cancelarPendentesAntigos();
+        assertEquals(Pedido.StatusPedido.PENDENTE, statusAtual(pendenteAntigo));
+        
+        // a mudanca do cliente e gravada, nao descartada como transicao a partir de CANCELADO
+        atualizacaoStatus.descarregar();
+        assertEquals(Pedido.StatusPedido.PROCESSANDO, statusAtual(pendenteAntigo));
+    }
+    
+    private Pedido.StatusPedido statusAtual(Pedido pedido) {
+        return pedidoRepository.findById(pedido.getId()).orElseThrow().getStatus();
+    }
+}
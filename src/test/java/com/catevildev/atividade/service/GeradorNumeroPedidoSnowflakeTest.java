@@ -0,0 +1,140 @@
+package com.catevildev.atividade.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeradorNumeroPedidoSnowflakeTest {
+    
+    private static final int THREADS = 8;
+    private static final int IDS_POR_THREAD = 250_000;
+    
+    @Test
+    void idsSaoUnicosECrescentesSobConcorrencia() throws Exception {
+        GeradorNumeroPedidoSnowflake gerador = new GeradorNumeroPedidoSnowflake(7);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(executor.submit(() -> {
+                    long[] ids = new long[IDS_POR_THREAD];
+                    largada.await();
+                    for (int i = 0; i < IDS_POR_THREAD; i++) {
+                        ids[i] = gerador.proximoId();
+                    }
+                    return ids;
+                }));
+            }
+            largada.countDown();
+            
+            long[] todos = new long[THREADS * IDS_POR_THREAD];
+            int pos = 0;
+            for (Future<long[]> tarefa : tarefas) {
+                long[] ids = tarefa.get();
+                for (int i = 1; i < ids.length; i++) {
+                    assertTrue(ids[i] > ids[i - 1], "ids de uma thread devem ser crescentes");
+                }
+                System.arraycopy(ids, 0, todos, pos, ids.length);
+                pos += ids.length;
+            }
+            
+            Arrays.sort(todos);
+            for (int i = 1; i < todos.length; i++) {
+                assertNotEquals(todos[i - 1], todos[i], "id repetido");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void relogioVoltandoNaoRepeteNemDiminuiIds() {
+        AtomicLong agora = new AtomicLong(GeradorNumeroPedidoSnowflake.EPOCA + 10_000);
+        GeradorNumeroPedidoSnowflake gerador = new GeradorNumeroPedidoSnowflake(1, agora::get);
+        
+        long anterior = gerador.proximoId();
+        for (int i = 0; i < 10_000; i++) {
+            agora.addAndGet(i % 2 == 0 ? -5 : 3);
+            long atual = gerador.proximoId();
+            assertTrue(atual > anterior);
+            anterior = atual;
+        }
+    }
+    
+    @Test
+    void nosDiferentesGeramIdsDiferentesNoMesmoInstante() {
+        long instante = GeradorNumeroPedidoSnowflake.EPOCA + 1;
+        GeradorNumeroPedidoSnowflake noA = new GeradorNumeroPedidoSnowflake(1, () -> instante);
+        GeradorNumeroPedidoSnowflake noB = new GeradorNumeroPedidoSnowflake(2, () -> instante);
+        
+        assertNotEquals(noA.proximoId(), noB.proximoId());
+        assertEquals("PED", noA.proximoNumero().substring(0, 3));
+    }
+    
+    @Test
+    void continuaDepoisDoMaiorNumeroGravadoComRelogioAtrasado() {
+        AtomicLong agora = new AtomicLong(GeradorNumeroPedidoSnowflake.EPOCA + 60_000);
+        GeradorNumeroPedidoSnowflake antes = new GeradorNumeroPedidoSnowflake(3, agora::get);
+        long gravado = antes.proximoId();
+        
+        // nova instancia do mesmo no, numa maquina com o relogio 30 s atras
+        agora.addAndGet(-30_000);
+        GeradorNumeroPedidoSnowflake depois = new GeradorNumeroPedidoSnowflake(3, agora::get);
+        depois.continuarDepoisDe(gravado);
+        
+        assertTrue(depois.proximoId() > gravado);
+    }
+    
+    @Test
+    void sobeDepoisDosNumerosGravadosAFrenteDoRelogio() {
+        AtomicLong agora = new AtomicLong(GeradorNumeroPedidoSnowflake.EPOCA + 60_000);
+        long gravado = new GeradorNumeroPedidoSnowflake(3, () -> agora.get() + 30_000).proximoId();
+        List<Object[]> consultas = new ArrayList<>();
+        DefaultListableBeanFactory contexto = new DefaultListableBeanFactory();
+        contexto.registerSingleton("jdbcTemplate", new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> queryForList(String sql, Class<T> tipo, Object... args) {
+                consultas.add(args);
+                // o indice tambem devolve textos que nao sao numeros deste formato
+                return (List<T>) List.of("PED" + gravado, "PED9x", "PED99999999999999999999");
+            }
+        });
+        
+        GeradorNumeroPedidoSnowflake gerador =
+            new GeradorNumeroPedidoSnowflake(3, agora::get, contexto.getBeanProvider(JdbcTemplate.class));
+        gerador.afterSingletonsInstantiated();
+        
+        // a faixa lida comeca no relogio atual
+        String inicio = "PED" + ((agora.get() - GeradorNumeroPedidoSnowflake.EPOCA) << 22);
+        assertEquals(1, consultas.size());
+        assertEquals(List.of(inicio, inicio), Arrays.asList(consultas.get(0)));
+        assertTrue(gerador.proximoId() > gravado);
+    }
+    
+    @Test
+    void exigeNoConfigurado() {
+        assertThrows(IllegalStateException.class, () -> new GeradorNumeroPedidoSnowflake(null, null));
+    }
+    
+    @Test
+    void rejeitaNoForaDaFaixa() {
+        assertThrows(IllegalArgumentException.class, () -> new GeradorNumeroPedidoSnowflake(1024));
+        assertThrows(IllegalArgumentException.class, () -> new GeradorNumeroPedidoSnowflake(-1));
+    }
+}
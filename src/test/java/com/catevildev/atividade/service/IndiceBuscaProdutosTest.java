@@ -0,0 +1,111 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Produto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// busca de produtos pelo indice invertido: palavra inteira ou prefixo, todas as palavras, por relevancia
+@SpringBootTest
+class IndiceBuscaProdutosTest {
+    
+    @Autowired
+    private ProdutoService produtoService;
+    
+    @Autowired
+    private IndiceBuscaProdutos indice;
+    
+    @Test
+    void achaPorPrefixoSemAcentoComTodasAsPalavras() {
+        String marca = "Marca" + DadosTeste.sufixo();
+        Produto cafeteira = salvar("Cafeteira Elétrica " + marca, "Aço inox", "Cozinha");
+        
+        assertEquals(List.of(cafeteira.getId()), ids(produtoService.buscarPorTermo("eletr " + marca)));
+        assertEquals(List.of(cafeteira.getId()), ids(produtoService.buscarPorTermo(marca + " ACO cozi")));
+        assertTrue(produtoService.buscarPorTermo(marca + " liquidificador").isEmpty());
+    }
+    
+    @Test
+    void naoAchaPedacoDoMeioDaPalavra() {
+        String marca = "Marca" + DadosTeste.sufixo();
+        salvar("Microfone " + marca, "Condensador", "Áudio");
+        
+        // a busca antiga (LIKE '%fone%') achava; o indice so casa palavra inteira ou prefixo
+        assertTrue(produtoService.buscarPorTermo("fone " + marca).isEmpty());
+        assertEquals(1, produtoService.buscarPorTermo("micro " + marca).size());
+    }
+    
+    @Test
+    void nomePesaMaisQueDescricao() {
+        String marca = "Marca" + DadosTeste.sufixo();
+        Produto naDescricao = salvar("Cabo USB", "Compatível com " + marca, "Acessórios");
+        Produto noNome = salvar("Fone " + marca, "Sem fio", "Áudio");
+        
+        assertEquals(List.of(noNome.getId(), naDescricao.getId()), ids(produtoService.buscarPorTermo(marca)));
+    }
+    
+    @Test
+    void limitaOResultadoESoTrazAtivos() {
+        String marca = "Marca" + DadosTeste.sufixo();
+        Produto inativo = salvar("Mouse " + marca, "Óptico", "Periféricos");
+        for (int i = 0; i < 3; i++) {
+            salvar("Teclado " + marca, "Mecânico", "Periféricos");
+        }
+        produtoService.desativar(inativo.getId());
+        
+        assertEquals(2, produtoService.buscarPorTermo(marca, 2).size());
+        List<Long> todos = ids(produtoService.buscarPorTermo(marca));
+        assertEquals(3, todos.size());
+        assertFalse(todos.contains(inativo.getId()));
+        assertTrue(produtoService.buscarPorTermo("teclado").size() <= ProdutoService.LIMITE_BUSCA_PADRAO);
+    }
+    
+    @Test
+    void reconstrucaoMantemOsResultados() {
+        String marca = "Marca" + DadosTeste.sufixo();
+        Produto produto = salvar("Monitor " + marca, "27 polegadas", "Monitores");
+        Produto removido = salvar("Monitor " + marca, "24 polegadas", "Monitores");
+        produtoService.deletar(removido.getId());
+        
+        indice.reconstruir();
+        
+        assertTrue(indice.isPronto());
+        assertEquals(List.of(produto.getId()), ids(indice.buscar(marca, 10)));
+    }
+    
+    @Test
+    void buscaDuranteAReconstrucaoUsaOMesmoCriterio() throws Exception {
+        String marca = "Marca" + DadosTeste.sufixo();
+        Produto microfone = salvar("Microfone " + marca, "Condensador", "Áudio");
+        
+        CompletableFuture<Void> reconstrucoes = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 20; i++) {
+                indice.reconstruir();
+            }
+        });
+        // o LIKE do banco acharia "fone" no meio de "Microfone"; o indice nao acha
+        while (!reconstrucoes.isDone()) {
+            assertTrue(produtoService.buscarPorTermo("fone " + marca).isEmpty());
+            assertEquals(List.of(microfone.getId()), ids(produtoService.buscarPorTermo("micro " + marca)));
+        }
+        reconstrucoes.get(30, TimeUnit.SECONDS);
+    }
+    
+    private Produto salvar(String nome, String descricao, String categoria) {
+        return produtoService.salvar(new Produto(nome, descricao, new BigDecimal("99.90"), 10, categoria));
+    }
+    
+    private static List<Long> ids(List<Produto> produtos) {
+        return produtos.stream().map(Produto::getId).toList();
+    }
+}
@@ -0,0 +1,87 @@
+package com.catevildev.atividade.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// quem busca durante a reconstrucao espera o indice em vez de usar outro criterio de busca
+class IndiceEmMemoriaTest {
+    
+    @Test
+    void aguardaAReconstrucaoTerminar() throws Exception {
+        CountDownLatch carregando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        IndiceTravado indice = new IndiceTravado(carregando, liberar);
+        CompletableFuture<Void> reconstrucao = CompletableFuture.runAsync(indice::reconstruir);
+        try {
+            assertTrue(carregando.await(5, TimeUnit.SECONDS));
+            
+            // no meio da carga: desiste depois do tempo pedido
+            assertFalse(indice.aguardarPronto(50));
+            
+            CompletableFuture<Boolean> esperando = CompletableFuture.supplyAsync(() -> indice.aguardarPronto(10_000));
+            liberar.countDown();
+            assertTrue(esperando.get(5, TimeUnit.SECONDS));
+            assertTrue(indice.isPronto());
+        } finally {
+            liberar.countDown();
+            reconstrucao.get(5, TimeUnit.SECONDS);
+        }
+    }
+    
+    // indice vazio cuja carga fica parada ate o teste liberar
+    private static class IndiceTravado extends IndiceEmMemoria<Long> {
+        
+        private final CountDownLatch carregando;
+        private final CountDownLatch liberar;
+        
+        IndiceTravado(CountDownLatch carregando, CountDownLatch liberar) {
+            this.carregando = carregando;
+            this.liberar = liberar;
+        }
+        
+        @Override
+        protected List<Long> carregarLote(long ultimoId, int tamanho) {
+            carregando.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of();
+        }
+        
+        @Override
+        protected Long id(Long entidade) {
+            return entidade;
+        }
+        
+        @Override
+        protected Long copiar(Long entidade) {
+            return entidade;
+        }
+        
+        @Override
+        protected boolean contem(Long id) {
+            return false;
+        }
+        
+        @Override
+        protected void adicionar(Long entidade) {
+        }
+        
+        @Override
+        protected void retirar(Long id) {
+        }
+        
+        @Override
+        protected void limpar() {
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// busca por substring no indice de trigramas: termos curtos, limite e cursor por id
+@SpringBootTest
+class IndiceTrigramasUsuariosTest {
+    
+    @Autowired
+    private IndiceTrigramasUsuarios indice;
+    
+    @Autowired
+    private UsuarioService usuarioService;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Test
+    void termoCurtoAchaOcorrenciaAteNoFimDoNome() {
+        Usuario usuario = usuarioService.salvar(
+            new Usuario("Maria " + DadosTeste.sufixo() + " Zoé", DadosTeste.emailNovo(), "66999990000"));
+        long antes = usuario.getId() - 1;
+        
+        assertEquals(List.of(usuario.getId()), ids(indice.buscar("oé", false, antes, 1)));
+        assertEquals(List.of(usuario.getId()), ids(indice.buscar("E", false, antes, 1)));
+        assertEquals(List.of(usuario.getId()), ids(indice.buscar("ma", false, antes, 1)));
+        // nome "Cliente <hex>" nao tem 'q'
+        Usuario semQ = dados.usuario();
+        assertFalse(ids(indice.buscar("q", false, semQ.getId() - 1, 10)).contains(semQ.getId()));
+    }
+    
+    @Test
+    void termoCurtoNoEmailSoQuandoPedido() {
+        Usuario usuario = dados.usuario();
+        long antes = usuario.getId() - 1;
+        
+        assertFalse(ids(indice.buscar("@t", false, antes, 10)).contains(usuario.getId()));
+        assertEquals(List.of(usuario.getId()), ids(indice.buscar("@t", true, antes, 1)));
+    }
+    
+    @Test
+    void limiteECursorSeguemOId() {
+        String grupo = "Grupo" + DadosTeste.sufixo();
+        Usuario primeiro = usuarioService.salvar(new Usuario(grupo + " Um", DadosTeste.emailNovo(), "66999990000"));
+        Usuario segundo = usuarioService.salvar(new Usuario(grupo + " Dois", DadosTeste.emailNovo(), "66999990000"));
+        Usuario terceiro = usuarioService.salvar(new Usuario(grupo + " Tres", DadosTeste.emailNovo(), "66999990000"));
+        
+        assertEquals(List.of(primeiro.getId(), segundo.getId()), ids(indice.buscar(grupo, false, 0L, 2)));
+        assertEquals(List.of(terceiro.getId()), ids(indice.buscar(grupo, false, segundo.getId(), 2)));
+        // termo curto tambem respeita o limite e a ordem
+        List<Long> curtos = ids(indice.buscar("u", false, primeiro.getId() - 1, 2));
+        assertEquals(List.of(primeiro.getId(), segundo.getId()), curtos);
+    }
+    
+    @Test
+    void buscaPorTermoTemLimite() {
+        for (int i = 0; i < 3; i++) {
+            dados.usuario();
+        }
+        
+        assertEquals(2, usuarioService.buscarPorTermo("cliente", 2).size());
+        assertTrue(usuarioService.buscarPorTermo("teste.com").size() <= UsuarioService.LIMITE_BUSCA_PADRAO);
+    }
+    
+    @Test
+    void reconstrucaoMantemOsResultados() {
+        Usuario usuario = dados.usuario();
+        Usuario removido = dados.usuario();
+        usuarioService.deletar(removido.getId());
+        
+        indice.reconstruir();
+        
+        assertTrue(indice.isPronto());
+        assertEquals(List.of(usuario.getId()), ids(indice.buscar(usuario.getNome(), false, 0L, 10)));
+        assertTrue(indice.buscar(removido.getNome(), false, 0L, 10).isEmpty());
+    }
+    
+    private static List<Long> ids(List<Usuario> usuarios) {
+        return usuarios.stream().map(Usuario::getId).toList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.dto.ResultadoItemLote;
+import com.catevildev.atividade.entity.Pedido;
+import com.catevildev.atividade.entity.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// importacao em lote: uma linha ruim no meio do bloco nao derruba as outras e recebe o proprio erro
+@SpringBootTest
+class PedidoLoteServiceTest {
+    
+    @Autowired
+    private PedidoLoteService pedidoLoteService;
+    
+    @Autowired
+    private PedidoService pedidoService;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Test
+    void linhaRuimNoMeioDoBlocoNaoDerrubaAsOutras() {
+        Usuario usuario = dados.usuario();
+        Pedido existente = dados.pedido(usuario, "10.00");
+        
+        Pedido numeroRepetido = novo(usuario, "20.00");
+        numeroRepetido.setNumeroPedido(existente.getNumeroPedido());
+        Pedido observacoesLongas = novo(usuario, "20.00");
+        observacoesLongas.setObservacoes("x".repeat(501));
+        Pedido semData = novo(usuario, "20.00");
+        semData.setDataPedido(null);
+        List<Pedido> pedidos = List.of(novo(usuario, "30.00"), numeroRepetido, novo(usuario, "40.00"),
+            observacoesLongas, semData, novo(usuario, "50.00"));
+        
+        List<ResultadoItemLote> resultados = pedidoLoteService.salvarEmLote(pedidos.iterator());
+        
+        assertEquals(6, resultados.size());
+        for (int i = 0; i < resultados.size(); i++) {
+            assertEquals(i, resultados.get(i).getIndice());
+        }
+        for (int i : List.of(0, 2, 5)) {
+            assertEquals(ResultadoItemLote.Situacao.CRIADO, resultados.get(i).getSituacao());
+        }
+        assertEquals(ResultadoItemLote.Situacao.ERRO, resultados.get(1).getSituacao());
+        assertTrue(resultados.get(1).getMensagem().startsWith("Falha ao gravar o pedido"));
+        assertEquals("Observações com mais de 500 caracteres", resultados.get(3).getMensagem());
+        assertEquals("Data do pedido não informada", resultados.get(4).getMensagem());
+        
+        // o pedido existente e os tres gravados
+        assertEquals(4L, pedidoService.buscarResumoPorUsuario(usuario.getId()).getQuantidadePedidos());
+        assertEquals(0, new BigDecimal("130.00")
+            .compareTo(pedidoService.buscarResumoPorUsuario(usuario.getId()).getValorTotal()));
+    }
+    
+    private static Pedido novo(Usuario usuario, String valor) {
+        Usuario referencia = new Usuario();
+        referencia.setId(usuario.getId());
+        return new Pedido(referencia, new BigDecimal(valor), null);
+    }
+}
@@ -0,0 +1,178 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.entity.Produto;
+import com.catevildev.atividade.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+@SpringBootTest
+class ReservaEstoqueConcorrenciaTest {
+    
+    private static final int THREADS = 16;
+    private static final int ESTOQUE_INICIAL = 500;
+    private static final long LIMITE_SEGUNDOS = 30;
+    
+    @Autowired
+    private ProdutoService produtoService;
+    
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    
+    @Test
+    void reservaNoBancoNaoVendeAlemDoEstoque() throws Exception {
+        Produto produto = produtoService.salvar(
+            new Produto("Console", "Edição limitada", new BigDecimal("3999.90"), ESTOQUE_INICIAL, "Games"));
+        
+        int reservados = reservarAteEsgotar(produto.getId(), 1);
+        
+        assertEquals(ESTOQUE_INICIAL, reservados);
+        assertEquals(0, produtoRepository.buscarQuantidadeEstoque(produto.getId()));
+    }
+    
+    @Test
+    void reservaEmMemoriaNaoVendeAlemDoEstoque() throws Exception {
+        Produto produto = produtoService.salvar(
+            new Produto("Fone", "Promoção relâmpago", new BigDecimal("199.90"), ESTOQUE_INICIAL, "Áudio"));
+        produtoService.ativarFlashSale(produto.getId(), 64);
+        
+        int reservados = reservarAteEsgotar(produto.getId(), 1);
+        produtoService.desativarFlashSale(produto.getId());
+        
+        assertEquals(ESTOQUE_INICIAL, reservados);
+        assertEquals(0, produtoRepository.buscarQuantidadeEstoque(produto.getId()));
+    }
+    
+    @Test
+    void reservaEmMemoriaDeVariasUnidadesNaoVendeAlemDoEstoque() throws Exception {
+        Produto produto = produtoService.salvar(
+            new Produto("Teclado", "Promoção relâmpago", new BigDecimal("299.90"), ESTOQUE_INICIAL, "Periféricos"));
+        produtoService.ativarFlashSale(produto.getId(), 64);
+        
+        int reservados = reservarAteEsgotar(produto.getId(), 4);
+        produtoService.desativarFlashSale(produto.getId());
+        
+        assertEquals(ESTOQUE_INICIAL, reservados);
+        assertEquals(0, produtoRepository.buscarQuantidadeEstoque(produto.getId()));
+    }
+    
+    @Test
+    void ativarEDesativarAoMesmoTempoNaoPerdeUnidades() throws Exception {
+        Produto produto = produtoService.salvar(
+            new Produto("Monitor", "Promoção relâmpago", new BigDecimal("899.90"), ESTOQUE_INICIAL, "Monitores"));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean ativa = t % 2 == 0;
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < 50; i++) {
+                        if (ativa) {
+                            produtoService.ativarFlashSale(produto.getId(), 32);
+                        } else {
+                            produtoService.desativarFlashSale(produto.getId());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(LIMITE_SEGUNDOS, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        produtoService.desativarFlashSale(produto.getId());
+        
+        // toda unidade puxada para uma reserva voltou ao banco
+        assertEquals(ESTOQUE_INICIAL, produtoRepository.buscarQuantidadeEstoque(produto.getId()));
+    }
+    
+    @Test
+    void lotesDaFlashSaleAtualizamCacheEIndice() {
+        String marca = "Marca" + DadosTeste.sufixo();
+        Produto produto = produtoService.salvar(
+            new Produto("Cadeira " + marca, "Promoção relâmpago", new BigDecimal("799.90"), 100, "Escritório"));
+        // a leitura por id guarda o produto no cache de segundo nivel
+        assertEquals(100, produtoService.buscarPorId(produto.getId()).orElseThrow().getQuantidadeEstoque());
+        
+        try {
+            produtoService.ativarFlashSale(produto.getId(), 30);
+            assertEquals(70, produtoService.buscarPorId(produto.getId()).orElseThrow().getQuantidadeEstoque());
+            assertEquals(70, produtoService.buscarPorTermo(marca).get(0).getQuantidadeEstoque());
+            
+            // 40 unidades: o saldo em memoria (30) nao basta e outro lote de 40 sai do banco
+            produtoService.reservarEstoque(produto.getId(), 40);
+            assertEquals(30, produtoService.buscarPorId(produto.getId()).orElseThrow().getQuantidadeEstoque());
+            assertEquals(30, produtoService.buscarPorTermo(marca).get(0).getQuantidadeEstoque());
+        } finally {
+            produtoService.desativarFlashSale(produto.getId());
+        }
+        assertEquals(60, produtoService.buscarPorId(produto.getId()).orElseThrow().getQuantidadeEstoque());
+    }
+    
+    @Test
+    void liberarDevolveAoEstoque() {
+        Produto produto = produtoService.salvar(
+            new Produto("Mouse", "Sem fio", new BigDecimal("99.90"), 10, "Periféricos"));
+        
+        produtoService.reservarEstoque(produto.getId(), 4);
+        produtoService.liberarEstoque(produto.getId(), 1);
+        
+        assertEquals(7, produtoRepository.buscarQuantidadeEstoque(produto.getId()));
+    }
+    
+    // varias threads reservam 'quantidade' unidades ate receber "estoque insuficiente"; retorna o total reservado.
+    // cada thread tem um prazo: se nunca receber a resposta de falta de estoque, o teste falha em vez de travar
+    private int reservarAteEsgotar(Long produtoId, int quantidade) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(LIMITE_SEGUNDOS);
+                    int sucesso = 0;
+                    while (System.nanoTime() < limite) {
+                        try {
+                            produtoService.reservarEstoque(produtoId, quantidade);
+                            sucesso += quantidade;
+                        } catch (RuntimeException e) {
+                            if (e.getMessage() != null && e.getMessage().contains("insuficiente")) {
+                                return sucesso;
+                            }
+                            // espera de lock no banco: tenta de novo
+                        }
+                    }
+                    return fail("Reserva não terminou em " + LIMITE_SEGUNDOS + " s");
+                }));
+            }
+            largada.countDown();
+            
+            int total = 0;
+            for (Future<Integer> tarefa : tarefas) {
+                total += tarefa.get(LIMITE_SEGUNDOS * 2, TimeUnit.SECONDS);
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
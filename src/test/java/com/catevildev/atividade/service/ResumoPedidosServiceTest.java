@@ -0,0 +1,77 @@
+package com.catevildev.atividade.service;
+
+import com.catevildev.atividade.DadosTeste;
+import com.catevildev.atividade.dto.DivergenciaResumo;
+import com.catevildev.atividade.entity.ResumoPedidosUsuario;
+import com.catevildev.atividade.entity.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// resumo de pedidos por usuario: linha faltando e recriada, a verificacao olha a data do ultimo pedido
+// e a reconstrucao corrige sem apagar os resumos antes
+@SpringBootTest
+class ResumoPedidosServiceTest {
+    
+    @Autowired
+    private ResumoPedidosService resumoPedidosService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private DadosTeste dados;
+    
+    @Test
+    void pedidoNovoRecriaResumoQueFaltava() {
+        Usuario usuario = dados.usuario();
+        dados.pedido(usuario, "30.00");
+        jdbcTemplate.update("DELETE FROM resumo_pedidos_usuario WHERE usuario_id = ?", usuario.getId());
+        
+        dados.pedido(usuario, "20.00");
+        
+        ResumoPedidosUsuario resumo = resumoPedidosService.buscar(usuario.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("50.00").compareTo(resumo.getValorTotal()));
+        assertEquals(2L, resumo.getQuantidadePedidos());
+        assertTrue(divergencia(usuario).isEmpty());
+    }
+    
+    @Test
+    void verificarApontaDataDoUltimoPedidoErrada() {
+        Usuario usuario = dados.usuario();
+        dados.pedido(usuario, "30.00");
+        jdbcTemplate.update("UPDATE resumo_pedidos_usuario SET data_ultimo_pedido = TIMESTAMP '2000-01-01 00:00:00' "
+            + "WHERE usuario_id = ?", usuario.getId());
+        
+        DivergenciaResumo divergencia = divergencia(usuario).orElseThrow();
+        assertEquals(2000, divergencia.getDataUltimoPedidoResumo().getYear());
+        assertEquals(0, divergencia.getValorResumo().compareTo(divergencia.getValorCalculado()));
+    }
+    
+    @Test
+    void reconstruirCorrigeOsResumos() {
+        Usuario usuario = dados.usuario();
+        dados.pedido(usuario, "30.00");
+        jdbcTemplate.update("UPDATE resumo_pedidos_usuario SET valor_total = 999, data_ultimo_pedido = NULL "
+            + "WHERE usuario_id = ?", usuario.getId());
+        
+        resumoPedidosService.reconstruir();
+        
+        assertTrue(divergencia(usuario).isEmpty());
+        assertEquals(0, new BigDecimal("30.00").compareTo(
+            resumoPedidosService.buscar(usuario.getId()).orElseThrow().getValorTotal()));
+    }
+    
+    private Optional<DivergenciaResumo> divergencia(Usuario usuario) {
+        return resumoPedidosService.verificar().stream()
+            .filter(d -> d.getUsuarioId().equals(usuario.getId()))
+            .findFirst();
+    }
+}